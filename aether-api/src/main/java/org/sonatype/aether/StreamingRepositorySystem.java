@@ -0,0 +1,48 @@
+package org.sonatype.aether;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.Collection;
+import java.util.List;
+
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResolutionListener;
+import org.sonatype.aether.resolution.ArtifactResult;
+
+/**
+ * A repository system that can report the results of an artifact resolution while it is still in progress. Clients
+ * that obtained a {@link RepositorySystem} can check for this interface via {@code instanceof}.
+ */
+public interface StreamingRepositorySystem
+    extends RepositorySystem
+{
+
+    /**
+     * Resolves the paths for a collection of artifacts and reports each result to the given listener as soon as it is
+     * final, i.e. before the resolution of the remaining artifacts has finished. Artifacts will be downloaded if
+     * necessary. Artifacts that are already resolved will be skipped and are not re-resolved. Note that this method
+     * assumes that any relocations have already been processed. Downloaded artifacts are usually registered with the
+     * local repository and reported to the session's repository listener from a worker thread of the repository
+     * connector, so the session's local repository manager and repository listener must be thread-safe.
+     *
+     * @param session The repository session, must not be {@code null}.
+     * @param requests The resolution requests, must not be {@code null}
+     * @param listener The listener to notify about each final result, must not be {@code null}.
+     * @return The resolution results (in request order), never {@code null}.
+     * @throws ArtifactResolutionException If any artifact could not be resolved.
+     * @see Artifact#getFile()
+     */
+    List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                           Collection<? extends ArtifactRequest> requests,
+                                           ArtifactResolutionListener listener )
+        throws ArtifactResolutionException;
+
+}
@@ -0,0 +1,30 @@
+package org.sonatype.aether.resolution;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+/**
+ * A callback that receives the results of an artifact resolution one by one as soon as they are final.
+ * 
+ * @see org.sonatype.aether.StreamingRepositorySystem#resolveArtifacts(org.sonatype.aether.RepositorySystemSession,
+ *      java.util.Collection, ArtifactResolutionListener)
+ */
+public interface ArtifactResolutionListener
+{
+
+    /**
+     * Notifies the listener about the final result for one of the resolved artifacts. The result is unsuccessful if it
+     * lacks an artifact file. The results of a single resolution are reported one at a time but not necessarily in
+     * request order nor from the calling thread, downloaded artifacts are usually reported from a worker thread of the
+     * repository connector. Implementations should hand off expensive work instead of blocking that thread.
+     * 
+     * @param result The resolution result, never {@code null}.
+     */
+    void artifactResolved( ArtifactResult result );
+
+}
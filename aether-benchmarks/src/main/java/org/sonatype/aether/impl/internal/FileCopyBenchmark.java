@@ -0,0 +1,135 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonatype.aether.spi.io.CoarseProgressListener;
+import org.sonatype.aether.spi.io.FileProcessor.ProgressListener;
+
+/**
+ * Measures {@link DefaultFileProcessor#copy(File, File, ProgressListener)} via the channel transfer used for copies
+ * without a listener or with a {@link CoarseProgressListener} against the stream copy required by a listener that
+ * inspects the copied data.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class FileCopyBenchmark
+{
+
+    @Param( { "1", "64", "256" } )
+    int megabytes;
+
+    File dir;
+
+    File source;
+
+    File target;
+
+    DefaultFileProcessor fileProcessor;
+
+    ProgressListener streamListener = new ProgressListener()
+    {
+        public void progressed( ByteBuffer buffer )
+        {
+            // data consumer, forces the stream copy
+        }
+    };
+
+    CoarseProgressListener coarseListener = new CoarseProgressListener()
+    {
+        public void progressed( ByteBuffer buffer )
+        {
+        }
+
+        public void transferred( long bytes )
+        {
+        }
+    };
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        dir = File.createTempFile( "aether-copy-", ".dir" );
+        dir.delete();
+        dir.mkdirs();
+        source = new File( dir, "source.bin" );
+        target = new File( dir, "target.bin" );
+
+        byte[] chunk = new byte[1024 * 1024];
+        new Random( 0 ).nextBytes( chunk );
+        OutputStream os = new FileOutputStream( source );
+        try
+        {
+            for ( int i = 0; i < megabytes; i++ )
+            {
+                os.write( chunk );
+            }
+        }
+        finally
+        {
+            os.close();
+        }
+
+        fileProcessor = new DefaultFileProcessor();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        source.delete();
+        target.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public long stream()
+        throws IOException
+    {
+        return fileProcessor.copy( source, target, streamListener );
+    }
+
+    @Benchmark
+    public long transfer()
+        throws IOException
+    {
+        return fileProcessor.copy( source, target, null );
+    }
+
+    @Benchmark
+    public long transferWithProgress()
+        throws IOException
+    {
+        return fileProcessor.copy( source, target, coarseListener );
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Measures the interning throughput of the {@link ObjectPool} against the former pool guarded by a single monitor when
+ * used by 1, 4, 16 and 64 threads.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ObjectPoolBenchmark
+{
+
+    @State( Scope.Benchmark )
+    public static class Pools
+    {
+
+        /**
+         * Equal but distinct artifacts, each coordinate occurs several times just like in a dirty dependency graph.
+         */
+        Artifact[] artifacts;
+
+        ObjectPool<Artifact> striped;
+
+        SynchronizedObjectPool<Artifact> synchronizedPool;
+
+        @Setup
+        public void setup()
+        {
+            artifacts = new Artifact[4096];
+            for ( int i = 0; i < artifacts.length; i++ )
+            {
+                int id = i % 512;
+                artifacts[i] = new DefaultArtifact( "org.group" + ( id % 32 ), "artifact" + id, "jar", "1." + id );
+            }
+            striped = new ObjectPool<Artifact>();
+            synchronizedPool = new SynchronizedObjectPool<Artifact>();
+        }
+
+    }
+
+    @State( Scope.Thread )
+    public static class Cursor
+    {
+
+        int index;
+
+        int next( int length )
+        {
+            index = ( index + 7 ) & ( length - 1 );
+            return index;
+        }
+
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public Object striped_01( Pools pools, Cursor cursor )
+    {
+        return pools.striped.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public Object striped_04( Pools pools, Cursor cursor )
+    {
+        return pools.striped.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    @Benchmark
+    @Threads( 16 )
+    public Object striped_16( Pools pools, Cursor cursor )
+    {
+        return pools.striped.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    @Benchmark
+    @Threads( 64 )
+    public Object striped_64( Pools pools, Cursor cursor )
+    {
+        return pools.striped.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public Object synchronized_01( Pools pools, Cursor cursor )
+    {
+        return pools.synchronizedPool.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public Object synchronized_04( Pools pools, Cursor cursor )
+    {
+        return pools.synchronizedPool.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    @Benchmark
+    @Threads( 16 )
+    public Object synchronized_16( Pools pools, Cursor cursor )
+    {
+        return pools.synchronizedPool.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    @Benchmark
+    @Threads( 64 )
+    public Object synchronized_64( Pools pools, Cursor cursor )
+    {
+        return pools.synchronizedPool.intern( pools.artifacts[cursor.next( pools.artifacts.length )] );
+    }
+
+    /**
+     * The previous pool implementation, kept as baseline.
+     */
+    static class SynchronizedObjectPool<T>
+    {
+
+        private final Map<Object, Reference<T>> objects = new WeakHashMap<Object, Reference<T>>( 256 );
+
+        public synchronized T intern( T object )
+        {
+            Reference<T> pooledRef = objects.get( object );
+            if ( pooledRef != null )
+            {
+                T pooled = pooledRef.get();
+                if ( pooled != null )
+                {
+                    return pooled;
+                }
+            }
+
+            objects.put( object, new WeakReference<T>( object ) );
+            return object;
+        }
+
+    }
+
+}
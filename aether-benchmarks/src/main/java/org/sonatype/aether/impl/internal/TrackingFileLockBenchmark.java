@@ -0,0 +1,198 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of looking up the lock for a tracking file in {@link TrackingFileManager} via the cached canonical
+ * path and the striped lock table against the former canonicalization and interning of the path on each access when
+ * used by 1, 16 and 64 threads. Since the benchmark cycles through fewer files than the cache holds, this effectively
+ * compares a {@link File#getCanonicalPath()} call with a map hit, i.e. it shows the benefit of the cache rather than
+ * that of the lock striping. The {@code locked} variants use a path cache guarded by a single lock to show the cost
+ * of contention on the cache itself.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class TrackingFileLockBenchmark
+{
+
+    @State( Scope.Benchmark )
+    public static class Files
+    {
+
+        /**
+         * Tracking files of a local repository, the files need not exist for the lookup.
+         */
+        File[] files;
+
+        TrackingFileManager manager;
+
+        /**
+         * A path cache guarded by a single lock, kept as baseline for the segmented cache of the manager.
+         */
+        Map<String, String> paths;
+
+        @Setup
+        public void setup()
+        {
+            File basedir = new File( System.getProperty( "java.io.tmpdir" ), "aether-benchmark-repo" );
+            files = new File[1024];
+            for ( int i = 0; i < files.length; i++ )
+            {
+                File dir = new File( basedir, "org/group" + ( i % 32 ) + "/artifact" + i + "/1." + i );
+                files[i] = new File( dir, "_maven.repositories" );
+            }
+            manager = new TrackingFileManager();
+            paths = new LinkedHashMap<String, String>( 256, 0.75f, true )
+            {
+                private static final long serialVersionUID = 1;
+
+                @Override
+                protected boolean removeEldestEntry( Map.Entry<String, String> eldest )
+                {
+                    return size() > 4096;
+                }
+            };
+        }
+
+    }
+
+    @State( Scope.Thread )
+    public static class Cursor
+    {
+
+        int index;
+
+        int next( int length )
+        {
+            index = ( index + 7 ) & ( length - 1 );
+            return index;
+        }
+
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public Object striped_01( Files files, Cursor cursor )
+    {
+        return lookup( files, cursor );
+    }
+
+    @Benchmark
+    @Threads( 16 )
+    public Object striped_16( Files files, Cursor cursor )
+    {
+        return lookup( files, cursor );
+    }
+
+    @Benchmark
+    @Threads( 64 )
+    public Object striped_64( Files files, Cursor cursor )
+    {
+        return lookup( files, cursor );
+    }
+
+    @Benchmark
+    @Threads( 16 )
+    public Object locked_16( Files files, Cursor cursor )
+        throws IOException
+    {
+        return lookupLocked( files, cursor );
+    }
+
+    @Benchmark
+    @Threads( 64 )
+    public Object locked_64( Files files, Cursor cursor )
+        throws IOException
+    {
+        return lookupLocked( files, cursor );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public Object interned_01( Files files, Cursor cursor )
+        throws IOException
+    {
+        return intern( files, cursor );
+    }
+
+    @Benchmark
+    @Threads( 16 )
+    public Object interned_16( Files files, Cursor cursor )
+        throws IOException
+    {
+        return intern( files, cursor );
+    }
+
+    @Benchmark
+    @Threads( 64 )
+    public Object interned_64( Files files, Cursor cursor )
+        throws IOException
+    {
+        return intern( files, cursor );
+    }
+
+    private static Object lookup( Files files, Cursor cursor )
+    {
+        File file = files.files[cursor.next( files.files.length )];
+        return files.manager.getLock( files.manager.getPath( file ) );
+    }
+
+    private static Object lookupLocked( Files files, Cursor cursor )
+        throws IOException
+    {
+        File file = files.files[cursor.next( files.files.length )];
+        String absolute = file.getAbsolutePath();
+        String canonical;
+        synchronized ( files.paths )
+        {
+            canonical = files.paths.get( absolute );
+        }
+        if ( canonical == null )
+        {
+            canonical = file.getCanonicalPath();
+            synchronized ( files.paths )
+            {
+                files.paths.put( absolute, canonical );
+            }
+        }
+        return files.manager.getLock( canonical );
+    }
+
+    /**
+     * The previous lock lookup, kept as baseline.
+     */
+    private static Object intern( Files files, Cursor cursor )
+        throws IOException
+    {
+        File file = files.files[cursor.next( files.files.length )];
+        return file.getCanonicalPath().intern();
+    }
+
+}
@@ -0,0 +1,207 @@
+package org.sonatype.aether.util.filter;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyFilter;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.DefaultDependencyNode;
+import org.sonatype.aether.util.version.GenericVersionScheme;
+import org.sonatype.aether.version.InvalidVersionSpecificationException;
+import org.sonatype.aether.version.VersionRange;
+import org.sonatype.aether.version.VersionScheme;
+
+/**
+ * Measures filtering a dependency graph of 2000 nodes with the compiled {@link PatternInclusionsDependencyFilter}
+ * against the former filter that split and interpreted every pattern for every node. The patterns are mostly exact
+ * coordinates, mixed with group id wildcards and version ranges.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class PatternFilterBenchmark
+{
+
+    @Param( { "10", "300" } )
+    int patternCount;
+
+    private List<DependencyNode> nodes;
+
+    private DependencyFilter compiled;
+
+    private DependencyFilter legacy;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random( 42 );
+
+        nodes = new ArrayList<DependencyNode>();
+        for ( int i = 0; i < 2000; i++ )
+        {
+            int id = random.nextInt( 1000 );
+            Artifact artifact =
+                new DefaultArtifact( "org.group" + ( id % 100 ), "artifact" + id, "jar", "1." + random.nextInt( 10 ) );
+            nodes.add( new DefaultDependencyNode( new Dependency( artifact, "compile" ) ) );
+        }
+
+        List<String> patterns = new ArrayList<String>();
+        for ( int i = 0; i < patternCount; i++ )
+        {
+            int id = random.nextInt( 2000 );
+            switch ( i % 10 )
+            {
+                case 0:
+                    patterns.add( "org.group" + ( id % 200 ) + ".*" );
+                    break;
+                case 1:
+                    patterns.add( "org.group" + ( id % 200 ) + ":artifact" + id + ":jar:[1.5,)" );
+                    break;
+                default:
+                    patterns.add( "org.group" + ( id % 200 ) + ":artifact" + id );
+            }
+        }
+
+        VersionScheme versionScheme = new GenericVersionScheme();
+        compiled = new PatternInclusionsDependencyFilter( versionScheme, patterns );
+        legacy = new LegacyPatternInclusionsDependencyFilter( versionScheme, patterns );
+    }
+
+    private int filter( DependencyFilter filter )
+    {
+        List<DependencyNode> parents = Collections.emptyList();
+        int accepted = 0;
+        for ( DependencyNode node : nodes )
+        {
+            if ( filter.accept( node, parents ) )
+            {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public int compiled()
+    {
+        return filter( compiled );
+    }
+
+    @Benchmark
+    public int legacy()
+    {
+        return filter( legacy );
+    }
+
+    /**
+     * The previous filter implementation, kept as baseline.
+     */
+    static class LegacyPatternInclusionsDependencyFilter
+        implements DependencyFilter
+    {
+
+        private final Collection<String> patterns;
+
+        private final VersionScheme versionScheme;
+
+        LegacyPatternInclusionsDependencyFilter( VersionScheme versionScheme, Collection<String> patterns )
+        {
+            this.versionScheme = versionScheme;
+            this.patterns = patterns;
+        }
+
+        public boolean accept( DependencyNode node, List<DependencyNode> parents )
+        {
+            Artifact artifact = node.getDependency().getArtifact();
+            for ( String pattern : patterns )
+            {
+                if ( accept( artifact, pattern ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean accept( Artifact artifact, String pattern )
+        {
+            String[] tokens =
+                new String[] { artifact.getGroupId(), artifact.getArtifactId(), artifact.getExtension(),
+                    artifact.getBaseVersion() };
+            String[] patternTokens = pattern.split( ":" );
+            boolean matched = ( patternTokens.length <= tokens.length );
+            for ( int i = 0; matched && i < patternTokens.length; i++ )
+            {
+                matched = matches( tokens[i], patternTokens[i] );
+            }
+            return matched;
+        }
+
+        private boolean matches( String token, String pattern )
+        {
+            if ( "*".equals( pattern ) || pattern.length() == 0 )
+            {
+                return true;
+            }
+            else if ( pattern.startsWith( "*" ) && pattern.endsWith( "*" ) )
+            {
+                return token.indexOf( pattern.substring( 1, pattern.length() - 1 ) ) != -1;
+            }
+            else if ( pattern.startsWith( "*" ) )
+            {
+                return token.endsWith( pattern.substring( 1, pattern.length() ) );
+            }
+            else if ( pattern.endsWith( "*" ) )
+            {
+                return token.startsWith( pattern.substring( 0, pattern.length() - 1 ) );
+            }
+            else if ( pattern.startsWith( "[" ) || pattern.startsWith( "(" ) )
+            {
+                try
+                {
+                    VersionRange range = versionScheme.parseVersionRange( pattern );
+                    return range.containsVersion( versionScheme.parseVersion( token ) );
+                }
+                catch ( InvalidVersionSpecificationException e )
+                {
+                    return false;
+                }
+            }
+            else
+            {
+                return token.equals( pattern );
+            }
+        }
+
+    }
+
+}
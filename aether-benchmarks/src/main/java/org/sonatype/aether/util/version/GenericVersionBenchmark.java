@@ -0,0 +1,80 @@
+package org.sonatype.aether.util.version;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the comparison and the construction of {@link GenericVersion}s as done when filtering the versions of a
+ * range or resolving version conflicts. Run with {@code -prof gc} to see the allocation rate.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class GenericVersionBenchmark
+{
+
+    private static final String[] QUALIFIERS = { "", "", "", "-SNAPSHOT", "-beta-2", "-rc1", ".Final", "-1" };
+
+    private String[] strings;
+
+    private GenericVersion[] versions;
+
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random( 42 );
+        strings = new String[1024];
+        versions = new GenericVersion[strings.length];
+        for ( int i = 0; i < strings.length; i++ )
+        {
+            // versions of the same artifact mostly differ in the numeric components
+            String qualifier = QUALIFIERS[random.nextInt( QUALIFIERS.length )];
+            strings[i] = "2." + random.nextInt( 12 ) + '.' + random.nextInt( 30 ) + qualifier;
+            versions[i] = new GenericVersion( strings[i] );
+        }
+    }
+
+    private int next()
+    {
+        index = ( index + 7 ) & ( versions.length - 1 );
+        return index;
+    }
+
+    @Benchmark
+    public int compareTo()
+    {
+        int i = next();
+        return versions[i].compareTo( versions[( i + 1 ) & ( versions.length - 1 )] );
+    }
+
+    @Benchmark
+    public Object parse()
+    {
+        return new GenericVersion( strings[next()] );
+    }
+
+}
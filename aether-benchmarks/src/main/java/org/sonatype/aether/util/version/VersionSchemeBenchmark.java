@@ -0,0 +1,149 @@
+package org.sonatype.aether.util.version;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonatype.aether.version.InvalidVersionSpecificationException;
+import org.sonatype.aether.version.Version;
+import org.sonatype.aether.version.VersionRange;
+
+/**
+ * Measures parsing the versions and version constraints seen during a dependency collection with the caching
+ * {@link GenericVersionScheme} against constructing new objects for each string. The corpus mimics the version
+ * strings found on Maven Central: mostly numeric releases, qualifiers like snapshots, milestones and vendor suffixes,
+ * timestamped snapshots and a few ranges, where popular versions occur many times.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class VersionSchemeBenchmark
+{
+
+    private static final String[] QUALIFIERS =
+        { "", "", "", "", "-SNAPSHOT", "-alpha-1", "-beta-2", "-rc1", "-M3", ".RELEASE", ".Final", "-jdk15",
+            "-20110506.123456-7" };
+
+    private static final String[] RANGES = { "[1.0,2.0)", "[2.5,)", "(,1.0]", "[1.2.3]", "[3.0,4.0),[4.1,)" };
+
+    private final GenericVersionScheme scheme = new GenericVersionScheme();
+
+    private final GenericVersionScheme uncachedScheme = new UncachedVersionScheme();
+
+    private String[] versions;
+
+    private String[] constraints;
+
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random( 42 );
+
+        List<String> distinct = new ArrayList<String>();
+        for ( int i = 0; i < 1024; i++ )
+        {
+            StringBuilder buffer = new StringBuilder( 32 );
+            buffer.append( random.nextInt( 5 ) ).append( '.' ).append( random.nextInt( 20 ) );
+            if ( random.nextBoolean() )
+            {
+                buffer.append( '.' ).append( random.nextInt( 10 ) );
+            }
+            buffer.append( QUALIFIERS[random.nextInt( QUALIFIERS.length )] );
+            distinct.add( buffer.toString() );
+        }
+        distinct.add( "20040616" );
+        distinct.add( "r09" );
+
+        // skewed towards a working set of popular versions like a real dependency graph
+        versions = new String[4096];
+        constraints = new String[4096];
+        for ( int i = 0; i < versions.length; i++ )
+        {
+            int popular = Math.min( distinct.size() - 1, (int) Math.abs( random.nextGaussian() * 128 ) );
+            versions[i] = new String( distinct.get( popular ) );
+            constraints[i] =
+                new String( ( i % 16 == 0 ) ? RANGES[random.nextInt( RANGES.length )] : distinct.get( popular ) );
+        }
+    }
+
+    private int next()
+    {
+        index = ( index + 7 ) & ( versions.length - 1 );
+        return index;
+    }
+
+    @Benchmark
+    public Object parseVersion_cached()
+        throws InvalidVersionSpecificationException
+    {
+        return scheme.parseVersion( versions[next()] );
+    }
+
+    @Benchmark
+    public Object parseVersion_uncached()
+        throws InvalidVersionSpecificationException
+    {
+        return uncachedScheme.parseVersion( versions[next()] );
+    }
+
+    @Benchmark
+    public Object parseConstraint_cached()
+        throws InvalidVersionSpecificationException
+    {
+        return scheme.parseVersionConstraint( constraints[next()] );
+    }
+
+    @Benchmark
+    public Object parseConstraint_uncached()
+        throws InvalidVersionSpecificationException
+    {
+        return uncachedScheme.parseVersionConstraint( constraints[next()] );
+    }
+
+    /**
+     * The version scheme without caching, kept as baseline. Being a subclass, its constraints are not cached either.
+     */
+    static class UncachedVersionScheme
+        extends GenericVersionScheme
+    {
+
+        @Override
+        public Version parseVersion( String version )
+        {
+            return new GenericVersion( version );
+        }
+
+        @Override
+        public VersionRange parseVersionRange( String range )
+            throws InvalidVersionSpecificationException
+        {
+            return new GenericVersionRange( range );
+        }
+
+    }
+
+}
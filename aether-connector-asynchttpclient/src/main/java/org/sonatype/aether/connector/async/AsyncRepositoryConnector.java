@@ -8,6 +8,7 @@ package org.sonatype.aether.connector.async;
  *   http://www.eclipse.org/legal/epl-v10.html
  *******************************************************************************/
 
+import com.ning.http.client.AsyncCompletionHandler;
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.AsyncHttpClientConfig;
 import com.ning.http.client.FluentCaseInsensitiveStringsMap;
@@ -63,18 +64,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -94,6 +100,12 @@ class AsyncRepositoryConnector
 
     private final AsyncHttpClient httpClient;
 
+    private final HttpClientPool httpClientPool;
+
+    private final String httpClientKey;
+
+    private final long httpClientIdleTimeout;
+
     private final Map<String, String> checksumAlgos;
 
     private final AtomicBoolean closed = new AtomicBoolean( false );
@@ -115,6 +127,10 @@ class AsyncRepositoryConnector
 
     private final FluentCaseInsensitiveStringsMap headers;
 
+    private final HostThrottle throttle;
+
+    private final int maxOverloadRetry;
+
     /**
      * Create an {@link org.sonatype.aether.connector.async.AsyncRepositoryConnector} instance which connect to the
      * {@link RemoteRepository}
@@ -127,6 +143,21 @@ class AsyncRepositoryConnector
     public AsyncRepositoryConnector( RemoteRepository repository, RepositorySystemSession session,
                                      FileProcessor fileProcessor, Logger logger )
         throws NoRepositoryConnectorException
+    {
+        this( repository, session, fileProcessor, logger, null, null );
+    }
+
+    /**
+     * Create an {@link org.sonatype.aether.connector.async.AsyncRepositoryConnector} instance which connect to the
+     * {@link RemoteRepository} and shares its HTTP client and host throttle with the other connectors of a factory.
+     *
+     * @param clientPool the pool to obtain the HTTP client from if client sharing is enabled, may be {@code null}.
+     * @param throttles the registry to obtain the host throttle from, may be {@code null} to use a private throttle.
+     */
+    AsyncRepositoryConnector( RemoteRepository repository, RepositorySystemSession session,
+                              FileProcessor fileProcessor, Logger logger, HttpClientPool clientPool,
+                              HostThrottle.Registry throttles )
+        throws NoRepositoryConnectorException
     {
         this.logger = logger;
         this.repository = repository;
@@ -146,7 +177,19 @@ class AsyncRepositoryConnector
         }
 
         AsyncHttpClientConfig config = createConfig( session, repository, true );
-        httpClient = new AsyncHttpClient( new NettyAsyncHttpProvider( config ) );
+        if ( clientPool != null && ConfigUtils.getBoolean( session, false, "aether.connector.ahc.shareClients" ) )
+        {
+            httpClientPool = clientPool;
+            httpClientKey = getClientKey( session, repository );
+            httpClient = clientPool.acquire( httpClientKey, config );
+        }
+        else
+        {
+            httpClientPool = null;
+            httpClientKey = null;
+            httpClient = new AsyncHttpClient( new NettyAsyncHttpProvider( config ) );
+        }
+        httpClientIdleTimeout = ConfigUtils.getLong( session, 60 * 1000, "aether.connector.ahc.clientIdleTimeout" );
 
         checksumAlgos = new LinkedHashMap<String, String>();
         checksumAlgos.put( "SHA-1", ".sha1" );
@@ -155,6 +198,22 @@ class AsyncRepositoryConnector
         disableResumeSupport = ConfigUtils.getBoolean( session, false, "aether.connector.ahc.disableResumable" );
         maxIOExceptionRetry = ConfigUtils.getInteger( session, 3, "aether.connector.ahc.resumeRetry" );
 
+        int maxConnectionsPerHost = ConfigUtils.getInteger( session, 20, "aether.connector.ahc.maxConnectionsPerHost" );
+        long overloadBackoff = ConfigUtils.getLong( session, 500, "aether.connector.ahc.overloadBackoff" );
+        long maxOverloadBackoff = ConfigUtils.getLong( session, 30 * 1000, "aether.connector.ahc.maxOverloadBackoff" );
+        if ( throttles != null )
+        {
+            String host =
+                repository.getProtocol().toLowerCase( Locale.ENGLISH ) + "://"
+                    + repository.getHost().toLowerCase( Locale.ENGLISH );
+            throttle = throttles.forHost( host, maxConnectionsPerHost, overloadBackoff, maxOverloadBackoff );
+        }
+        else
+        {
+            throttle = new HostThrottle( maxConnectionsPerHost, overloadBackoff, maxOverloadBackoff );
+        }
+        maxOverloadRetry = ConfigUtils.getInteger( session, 3, "aether.connector.ahc.overloadRetry" );
+
         this.headers = new FluentCaseInsensitiveStringsMap();
         Map<?, ?> headers =
             ConfigUtils.getMap( session, null, ConfigurationProperties.HTTP_HEADERS + "." + repository.getId(),
@@ -210,6 +269,64 @@ class AsyncRepositoryConnector
         return proxyServer;
     }
 
+    /**
+     * Gets the key under which the client for the repository is pooled, covering all inputs of
+     * {@link #createConfig(RepositorySystemSession, RemoteRepository, boolean)}. Credentials only enter the key as
+     * digest.
+     */
+    private String getClientKey( RepositorySystemSession session, RemoteRepository repository )
+    {
+        StringBuilder buffer = new StringBuilder( 256 );
+        buffer.append( repository.getUrl() );
+
+        Proxy proxy = repository.getProxy();
+        if ( proxy != null )
+        {
+            buffer.append( "|proxy:" ).append( proxy.getType() ).append( "://" ).append( proxy.getHost() );
+            buffer.append( ':' ).append( proxy.getPort() );
+            append( buffer, proxy.getAuthentication() );
+        }
+
+        buffer.append( "|auth:" );
+        append( buffer, repository.getAuthentication() );
+
+        buffer.append( '|' ).append( ConfigUtils.getString( session, ConfigurationProperties.DEFAULT_USER_AGENT,
+                                                            ConfigurationProperties.USER_AGENT ) );
+        buffer.append( '|' ).append( ConfigUtils.getInteger( session, ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT,
+                                                             ConfigurationProperties.CONNECT_TIMEOUT ) );
+        buffer.append( '|' ).append( ConfigUtils.getInteger( session, ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
+                                                             ConfigurationProperties.REQUEST_TIMEOUT ) );
+
+        return buffer.toString();
+    }
+
+    private static void append( StringBuilder buffer, Authentication auth )
+    {
+        if ( auth != null )
+        {
+            String credentials =
+                auth.getUsername() + '\0' + auth.getPassword() + '\0' + auth.getPrivateKeyFile() + '\0'
+                    + auth.getPassphrase();
+            try
+            {
+                byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( credentials.getBytes( "UTF-8" ) );
+                for ( byte b : digest )
+                {
+                    buffer.append( Character.forDigit( ( b >> 4 ) & 0x0F, 16 ) );
+                    buffer.append( Character.forDigit( b & 0x0F, 16 ) );
+                }
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                throw new IllegalStateException( "SHA-1 not supported" );
+            }
+            catch ( UnsupportedEncodingException e )
+            {
+                throw new IllegalStateException( "UTF-8 not supported" );
+            }
+        }
+    }
+
     /**
      * Create an {@link AsyncHttpClientConfig} instance based on the values from {@link RepositorySystemSession}
      *
@@ -262,7 +379,20 @@ class AsyncRepositoryConnector
 
         CountDownLatch latch = new CountDownLatch( artifactDownloads.size() + metadataDownloads.size() );
 
-        Collection<GetTask<?>> tasks = new ArrayList<GetTask<?>>();
+        List<GetTask<?>> tasks = new ArrayList<GetTask<?>>();
+
+        // existence checks are cheap HEAD requests, issue them first so they don't queue behind real downloads
+        for ( ArtifactDownload download : artifactDownloads )
+        {
+            if ( download.isExistenceCheck() )
+            {
+                String resource = layout.getPath( download.getArtifact() ).getPath();
+                GetTask<?> task =
+                    new GetTask<ArtifactTransfer>( resource, null, download.getChecksumPolicy(), latch, download,
+                                                   ARTIFACT, true );
+                tasks.add( task );
+            }
+        }
 
         for ( MetadataDownload download : metadataDownloads )
         {
@@ -271,23 +401,62 @@ class AsyncRepositoryConnector
                 new GetTask<MetadataTransfer>( resource, download.getFile(), download.getChecksumPolicy(), latch,
                                                download, METADATA, false );
             tasks.add( task );
-            task.run();
         }
 
         for ( ArtifactDownload download : artifactDownloads )
         {
-            String resource = layout.getPath( download.getArtifact() ).getPath();
-            GetTask<?> task =
-                new GetTask<ArtifactTransfer>( resource, download.isExistenceCheck() ? null : download.getFile(),
-                                               download.getChecksumPolicy(), latch, download, ARTIFACT, true );
-            tasks.add( task );
-            task.run();
+            if ( !download.isExistenceCheck() )
+            {
+                String resource = layout.getPath( download.getArtifact() ).getPath();
+                GetTask<?> task =
+                    new GetTask<ArtifactTransfer>( resource, download.getFile(), download.getChecksumPolicy(), latch,
+                                                   download, ARTIFACT, true );
+                tasks.add( task );
+            }
         }
 
         try
         {
-            latch.await();
+            List<GetTask<?>> pending = tasks;
+            for ( int retry = 0;; retry++ )
+            {
+                for ( GetTask<?> task : pending )
+                {
+                    throttle.acquire();
+                    task.run();
+                }
+
+                latch.await();
+
+                // downloads refused due to overload are queued again, the throttle delays them as needed
+                int overloaded = 0;
+                for ( GetTask<?> task : tasks )
+                {
+                    if ( task.isOverloaded() )
+                    {
+                        overloaded++;
+                    }
+                }
+                if ( overloaded <= 0 || retry >= maxOverloadRetry )
+                {
+                    break;
+                }
+
+                latch = new CountDownLatch( overloaded );
+                pending = new ArrayList<GetTask<?>>( overloaded );
+                for ( ListIterator<GetTask<?>> it = tasks.listIterator(); it.hasNext(); )
+                {
+                    GetTask<?> task = it.next();
+                    if ( task.isOverloaded() )
+                    {
+                        task = task.retry( latch );
+                        it.set( task );
+                        pending.add( task );
+                    }
+                }
+            }
 
+            // completes the transfers that were still overloaded after the last retry, others are already flushed
             for ( GetTask<?> task : tasks )
             {
                 task.flush();
@@ -330,7 +499,6 @@ class AsyncRepositoryConnector
 
             PutTask<?> task = new PutTask<ArtifactTransfer>( path, upload.getFile(), latch, upload, ARTIFACT );
             tasks.add( task );
-            task.run();
         }
 
         for ( MetadataUpload upload : metadataUploads )
@@ -339,11 +507,16 @@ class AsyncRepositoryConnector
 
             PutTask<?> task = new PutTask<MetadataTransfer>( path, upload.getFile(), latch, upload, METADATA );
             tasks.add( task );
-            task.run();
         }
 
         try
         {
+            for ( PutTask<?> task : tasks )
+            {
+                throttle.acquire();
+                task.run();
+            }
+
             latch.await();
 
             for ( PutTask<?> task : tasks )
@@ -360,6 +533,31 @@ class AsyncRepositoryConnector
         }
     }
 
+    private void checkOverload( Response response, LatchGuard latch )
+    {
+        int status = response.getStatusCode();
+        if ( status != HttpURLConnection.HTTP_UNAVAILABLE && status != 429 )
+        {
+            return;
+        }
+
+        long retryAfter = 0;
+        String value = response.getHeader( "Retry-After" );
+        if ( value != null )
+        {
+            try
+            {
+                retryAfter = Long.parseLong( value.trim() ) * 1000;
+            }
+            catch ( NumberFormatException e )
+            {
+                // HTTP date, use our own backoff
+            }
+        }
+        logger.debug( "Server overloaded, status " + status + ", Retry-After " + value + " for " + repository );
+        latch.overloaded( retryAfter );
+    }
+
     private void handleResponseCode( String url, int responseCode, String responseMsg )
         throws AuthorizationException, ResourceDoesNotExistException, TransferException
     {
@@ -423,7 +621,14 @@ class AsyncRepositoryConnector
             this.file = file;
             this.checksumPolicy = checksumPolicy;
             this.allowResumable = allowResumable;
-            this.latch = new LatchGuard( latch );
+            this.latch = new LatchGuard( latch, throttle, new Runnable()
+            {
+                public void run()
+                {
+                    // report each transfer as soon as it is done rather than after the entire batch
+                    flush();
+                }
+            } );
             this.download = download;
             this.wrapper = wrapper;
         }
@@ -438,6 +643,16 @@ class AsyncRepositoryConnector
             return exception;
         }
 
+        public boolean isOverloaded()
+        {
+            return latch.isOverloaded();
+        }
+
+        public GetTask<T> retry( CountDownLatch latch )
+        {
+            return new GetTask<T>( path, file, checksumPolicy, latch, download, wrapper, allowResumable );
+        }
+
         public void run()
         {
             download.setState( Transfer.State.ACTIVE );
@@ -642,6 +857,7 @@ class AsyncRepositoryConnector
 
                             final Response response = super.onCompleted( r );
 
+                            checkOverload( response, latch );
                             handleResponseCode( uri, response.getStatusCode(), response.getStatusText() );
 
                             if ( !ignoreChecksum )
@@ -767,12 +983,7 @@ class AsyncRepositoryConnector
                 {
                     if ( file == null )
                     {
-                        if ( !resourceExist( uri ) )
-                        {
-                            throw new ResourceDoesNotExistException(
-                                "Could not find " + uri + " in " + repository.getUrl() );
-                        }
-                        latch.countDown();
+                        checkExistence( uri );
                     }
                     else
                     {
@@ -829,6 +1040,61 @@ class AsyncRepositoryConnector
             }
         }
 
+        /**
+         * Sends a HEAD request for the resource without waiting for the response, the outcome is recorded once the
+         * response arrives. This allows the existence checks of a batch to share the pooled keep-alive connections.
+         */
+        private void checkExistence( final String uri )
+            throws IOException
+        {
+            httpClient.prepareHead( uri ).setHeaders( headers ).execute( new AsyncCompletionHandler<Response>()
+            {
+                @Override
+                public Response onCompleted( Response response )
+                    throws Exception
+                {
+                    try
+                    {
+                        checkOverload( response, latch );
+                        if ( !resourceExist( uri, response.getStatusCode() ) )
+                        {
+                            throw new ResourceDoesNotExistException(
+                                "Could not find " + uri + " in " + repository.getUrl() );
+                        }
+                    }
+                    catch ( Exception e )
+                    {
+                        exception = e;
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                    return response;
+                }
+
+                @Override
+                public void onThrowable( Throwable t )
+                {
+                    try
+                    {
+                        if ( Exception.class.isAssignableFrom( t.getClass() ) )
+                        {
+                            exception = Exception.class.cast( t );
+                        }
+                        else
+                        {
+                            exception = new Exception( t );
+                        }
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            } );
+        }
+
         private void deleteFile( FileLockCompanion fileLockCompanion )
         {
             if ( fileLockCompanion.getFile() != null && deleteFile.get() )
@@ -953,7 +1219,7 @@ class AsyncRepositoryConnector
             this.file = file;
             this.upload = upload;
             this.wrapper = wrapper;
-            this.latch = new LatchGuard( latch );
+            this.latch = new LatchGuard( latch, throttle );
         }
 
         public Exception getException()
@@ -1008,6 +1274,7 @@ class AsyncRepositoryConnector
                             try
                             {
                                 Response response = super.onCompleted( r );
+                                checkOverload( response, latch );
                                 handleResponseCode( uri, response.getStatusCode(), response.getStatusText() );
 
                                 httpClient.getConfig().executorService().execute( new Runnable()
@@ -1173,11 +1440,9 @@ class AsyncRepositoryConnector
         return tmpUri;
     }
 
-    private boolean resourceExist( String url )
-        throws IOException, ExecutionException, InterruptedException, TransferException, AuthorizationException
+    private boolean resourceExist( String url, int statusCode )
+        throws TransferException, AuthorizationException
     {
-        int statusCode = httpClient.prepareHead( url ).setHeaders( headers ).execute().get().getStatusCode();
-
         switch ( statusCode )
         {
             case HttpURLConnection.HTTP_OK:
@@ -1207,8 +1472,17 @@ class AsyncRepositoryConnector
 
     public void close()
     {
-        closed.set( true );
-        httpClient.close();
+        if ( closed.compareAndSet( false, true ) )
+        {
+            if ( httpClientPool != null )
+            {
+                httpClientPool.release( httpClientKey, httpClientIdleTimeout );
+            }
+            else
+            {
+                httpClient.close();
+            }
+        }
     }
 
     private <T> Collection<T> safe( Collection<T> items )
@@ -1449,18 +1723,54 @@ class AsyncRepositoryConnector
 
         private final CountDownLatch latch;
 
+        private final HostThrottle throttle;
+
         private final AtomicBoolean done = new AtomicBoolean( false );
 
-        public LatchGuard( CountDownLatch latch )
+        private final Runnable onDone;
+
+        private volatile boolean overloaded;
+
+        public LatchGuard( CountDownLatch latch, HostThrottle throttle )
+        {
+            this( latch, throttle, null );
+        }
+
+        public LatchGuard( CountDownLatch latch, HostThrottle throttle, Runnable onDone )
         {
             this.latch = latch;
+            this.throttle = throttle;
+            this.onDone = onDone;
+        }
+
+        public void overloaded( long retryAfter )
+        {
+            overloaded = true;
+            throttle.overloaded( retryAfter );
+        }
+
+        public boolean isOverloaded()
+        {
+            return overloaded;
         }
 
         public void countDown()
         {
             if ( !done.getAndSet( true ) )
             {
-                latch.countDown();
+                try
+                {
+                    // a transfer refused due to overload is retried, its outcome is not final yet
+                    if ( onDone != null && !overloaded )
+                    {
+                        onDone.run();
+                    }
+                }
+                finally
+                {
+                    throttle.release( overloaded );
+                    latch.countDown();
+                }
             }
         }
     }
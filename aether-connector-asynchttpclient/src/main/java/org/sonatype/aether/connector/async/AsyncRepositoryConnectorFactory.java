@@ -39,6 +39,10 @@ public class AsyncRepositoryConnectorFactory
 
     private int priority = 100;
 
+    private final HttpClientPool clientPool = new HttpClientPool();
+
+    private final HostThrottle.Registry throttles = new HostThrottle.Registry();
+
     public AsyncRepositoryConnectorFactory()
     {
     }
@@ -103,7 +107,19 @@ public class AsyncRepositoryConnectorFactory
     public RepositoryConnector newInstance( RepositorySystemSession session, RemoteRepository repository )
         throws NoRepositoryConnectorException
     {
-        return new AsyncRepositoryConnector( repository, session, fileProcessor, logger );
+        return new AsyncRepositoryConnector( repository, session, fileProcessor, logger, clientPool, throttles );
+    }
+
+    /**
+     * Closes the HTTP clients that are pooled for reuse by the connectors of this factory and forgets the state of the
+     * host throttles. Clients are only pooled if {@code aether.connector.ahc.shareClients} is enabled, whoever enables
+     * that should dispose the factory once it is no longer needed. Pooled clients are closed even if still in use, so
+     * the connectors of this factory should be closed before.
+     */
+    public void dispose()
+    {
+        clientPool.shutdown();
+        throttles.clear();
     }
 
 }
@@ -0,0 +1,177 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Limits the number of concurrent transfers to a host. Waiting transfers are admitted in the order they arrived. When
+ * the host signals overload, the limit is halved and further transfers are held back for a growing delay, the limit
+ * then recovers by one for each round of transfers completed without overload.
+ */
+final class HostThrottle
+{
+
+    private final int maxPermits;
+
+    private final long minBackoff;
+
+    private final long maxBackoff;
+
+    private final LinkedList<Object> queue = new LinkedList<Object>();
+
+    private int limit;
+
+    private int active;
+
+    private int successes;
+
+    private long backoff;
+
+    private long resumeAt;
+
+    /**
+     * @param maxPermits The maximum number of concurrent transfers, a non-positive value disables the static cap but
+     *            still allows the throttle to adapt to overload.
+     * @param minBackoff The initial delay in milliseconds after the host signaled overload.
+     * @param maxBackoff The maximum delay in milliseconds after the host signaled overload.
+     */
+    HostThrottle( int maxPermits, long minBackoff, long maxBackoff )
+    {
+        this.maxPermits = ( maxPermits > 0 ) ? maxPermits : Integer.MAX_VALUE;
+        this.minBackoff = Math.max( 0, minBackoff );
+        this.maxBackoff = Math.max( this.minBackoff, maxBackoff );
+        limit = this.maxPermits;
+        backoff = this.minBackoff;
+    }
+
+    /**
+     * Blocks until a transfer may be started. Each successful call must be paired with a call to
+     * {@link #release(boolean)}.
+     *
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public synchronized void acquire()
+        throws InterruptedException
+    {
+        Object ticket = new Object();
+        queue.add( ticket );
+        try
+        {
+            while ( true )
+            {
+                if ( queue.getFirst() != ticket || active >= limit )
+                {
+                    wait();
+                    continue;
+                }
+                long delay = resumeAt - System.currentTimeMillis();
+                if ( delay > 0 )
+                {
+                    wait( delay );
+                    continue;
+                }
+                break;
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            queue.remove( ticket );
+            notifyAll();
+            throw e;
+        }
+        queue.removeFirst();
+        active++;
+        notifyAll();
+    }
+
+    /**
+     * Records that the host signaled overload. The limit is halved and no further transfers are admitted until the
+     * current backoff delay or the delay requested by the host has elapsed, whichever is greater.
+     *
+     * @param retryAfter The delay in milliseconds requested by the host, may be zero if unknown.
+     */
+    public synchronized void overloaded( long retryAfter )
+    {
+        limit = Math.max( 1, Math.min( limit, active ) / 2 );
+        successes = 0;
+
+        long delay = Math.min( Math.max( backoff, retryAfter ), maxBackoff );
+        resumeAt = Math.max( resumeAt, System.currentTimeMillis() + delay );
+        backoff = Math.min( Math.max( 1, backoff * 2 ), maxBackoff );
+    }
+
+    /**
+     * Releases a permit obtained via {@link #acquire()}.
+     *
+     * @param overloaded {@code true} if the transfer was refused due to overload, {@code false} otherwise.
+     */
+    public synchronized void release( boolean overloaded )
+    {
+        active--;
+        if ( !overloaded && ++successes >= limit )
+        {
+            successes = 0;
+            backoff = minBackoff;
+            if ( limit < maxPermits )
+            {
+                limit++;
+            }
+        }
+        notifyAll();
+    }
+
+    synchronized int getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * The throttles shared by the connectors of one connector factory, one per host and configuration.
+     */
+    static final class Registry
+    {
+
+        private final Map<String, HostThrottle> throttles = new HashMap<String, HostThrottle>();
+
+        /**
+         * Gets the throttle shared by all connectors to the specified host with the same configuration.
+         *
+         * @param host The host, must not be {@code null}.
+         * @param maxPermits The maximum number of concurrent transfers.
+         * @param minBackoff The initial delay in milliseconds after the host signaled overload.
+         * @param maxBackoff The maximum delay in milliseconds after the host signaled overload.
+         * @return The throttle, never {@code null}.
+         * @see HostThrottle#HostThrottle(int, long, long)
+         */
+        public synchronized HostThrottle forHost( String host, int maxPermits, long minBackoff, long maxBackoff )
+        {
+            String key = host + '|' + maxPermits + '|' + minBackoff + '|' + maxBackoff;
+            HostThrottle throttle = throttles.get( key );
+            if ( throttle == null )
+            {
+                throttle = new HostThrottle( maxPermits, minBackoff, maxBackoff );
+                throttles.put( key, throttle );
+            }
+            return throttle;
+        }
+
+        /**
+         * Forgets all throttles. Connectors still holding a throttle keep using it.
+         */
+        public synchronized void clear()
+        {
+            throttles.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.AsyncHttpClientConfig;
+import com.ning.http.client.providers.netty.NettyAsyncHttpProvider;
+
+/**
+ * A pool of HTTP clients that outlives the individual connectors created by a connector factory. Connectors to the
+ * same repository with equal client configuration share one client and hence its keep-alive connections. A client is
+ * reference counted and closed once it has not been used for the idle timeout given by its last user, remaining
+ * clients are closed when the pool is {@link #shutdown() shut down}.
+ */
+final class HttpClientPool
+{
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private Timer timer;
+
+    /**
+     * Gets the client for the specified key, creating it from the given configuration if no such client is pooled.
+     * Each call must be paired with a call to {@link #release(String, long)}.
+     *
+     * @param key The key of the client, must not be {@code null}.
+     * @param config The configuration to create the client from, must not be {@code null}.
+     * @return The client, never {@code null}.
+     */
+    public synchronized AsyncHttpClient acquire( String key, AsyncHttpClientConfig config )
+    {
+        Entry entry = entries.get( key );
+        if ( entry == null || entry.client.isClosed() )
+        {
+            entry = new Entry( new AsyncHttpClient( new NettyAsyncHttpProvider( config ) ) );
+            entries.put( key, entry );
+        }
+        if ( entry.closer != null )
+        {
+            entry.closer.cancel();
+            entry.closer = null;
+        }
+        entry.references++;
+        return entry.client;
+    }
+
+    /**
+     * Releases a client previously obtained via {@link #acquire(String, AsyncHttpClientConfig)}.
+     *
+     * @param key The key of the client, must not be {@code null}.
+     * @param idleTimeout The time in milliseconds to keep the client open after its last reference was released, a
+     *            non-positive value closes the client immediately.
+     */
+    public synchronized void release( final String key, long idleTimeout )
+    {
+        final Entry entry = entries.get( key );
+        if ( entry == null || --entry.references > 0 )
+        {
+            return;
+        }
+
+        if ( idleTimeout <= 0 )
+        {
+            entries.remove( key );
+            entry.client.close();
+            return;
+        }
+
+        entry.closer = new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                synchronized ( HttpClientPool.this )
+                {
+                    if ( entry.closer != this )
+                    {
+                        return;
+                    }
+                    if ( entries.get( key ) == entry )
+                    {
+                        entries.remove( key );
+                    }
+                }
+                entry.client.close();
+            }
+        };
+        if ( timer == null )
+        {
+            timer = new Timer( "aether-ahc-reaper", true );
+        }
+        timer.schedule( entry.closer, idleTimeout );
+    }
+
+    /**
+     * Closes all pooled clients, regardless of their reference count.
+     */
+    public void shutdown()
+    {
+        List<Entry> closing;
+        synchronized ( this )
+        {
+            closing = new ArrayList<Entry>( entries.values() );
+            entries.clear();
+            if ( timer != null )
+            {
+                timer.cancel();
+                timer = null;
+            }
+        }
+        for ( Entry entry : closing )
+        {
+            entry.client.close();
+        }
+    }
+
+    static final class Entry
+    {
+
+        final AsyncHttpClient client;
+
+        int references;
+
+        TimerTask closer;
+
+        Entry( AsyncHttpClient client )
+        {
+            this.client = client;
+        }
+
+    }
+
+}
@@ -0,0 +1,250 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mortbay.jetty.HttpMethods;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.handler.AbstractHandler;
+import org.mortbay.jetty.nio.SelectChannelConnector;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.test.impl.TestFileProcessor;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Tests the existence checks of the connector against a server that answers each resource with a scripted sequence of
+ * status codes.
+ */
+public class ExistenceCheckTest
+{
+
+    private Server server;
+
+    private int port;
+
+    private final Map<String, LinkedList<Integer>> statuses = new HashMap<String, LinkedList<Integer>>();
+
+    private final List<String> requests = Collections.synchronizedList( new ArrayList<String>() );
+
+    private TestRepositorySystemSession session;
+
+    private RepositoryConnector connector;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        server = new Server();
+        SelectChannelConnector httpConnector = new SelectChannelConnector();
+        httpConnector.setPort( 0 );
+        server.addConnector( httpConnector );
+        server.setHandler( new AbstractHandler()
+        {
+            public void handle( String target, HttpServletRequest request, HttpServletResponse response, int dispatch )
+                throws IOException
+            {
+                requests.add( request.getMethod() + " " + target );
+                int status = nextStatus( target );
+                if ( status == HttpServletResponse.SC_SERVICE_UNAVAILABLE || status == 429 )
+                {
+                    response.setHeader( "Retry-After", "0" );
+                }
+                response.setStatus( status );
+                if ( status == HttpServletResponse.SC_OK && HttpMethods.GET.equals( request.getMethod() ) )
+                {
+                    response.getOutputStream().write( "content".getBytes( "UTF-8" ) );
+                }
+                ( (Request) request ).setHandled( true );
+            }
+        } );
+        server.start();
+        port = httpConnector.getLocalPort();
+
+        session = new TestRepositorySystemSession();
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.connector.ahc.maxConnectionsPerHost", Integer.valueOf( 1 ) );
+        config.put( "aether.connector.ahc.overloadBackoff", Long.valueOf( 10 ) );
+        config.put( "aether.connector.ahc.maxOverloadBackoff", Long.valueOf( 50 ) );
+        config.put( "aether.connector.ahc.overloadRetry", Integer.valueOf( 3 ) );
+        session.setConfigProperties( config );
+
+        RemoteRepository repository = new RemoteRepository( "test", "default", "http://localhost:" + port + "/repo" );
+        connector =
+            new AsyncRepositoryConnectorFactory( NullLogger.INSTANCE, new TestFileProcessor() ).newInstance( session,
+                                                                                                             repository );
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        if ( connector != null )
+        {
+            connector.close();
+        }
+        if ( server != null )
+        {
+            server.stop();
+        }
+    }
+
+    private int nextStatus( String target )
+    {
+        synchronized ( statuses )
+        {
+            LinkedList<Integer> codes = statuses.get( target );
+            if ( codes == null || codes.isEmpty() )
+            {
+                return HttpServletResponse.SC_NOT_FOUND;
+            }
+            // the last code of a sequence sticks
+            return ( codes.size() > 1 ) ? codes.removeFirst().intValue() : codes.getFirst().intValue();
+        }
+    }
+
+    private String respond( Artifact artifact, Integer... codes )
+    {
+        String path = "/repo/" + artifact.getGroupId() + '/' + artifact.getArtifactId() + '/' + artifact.getVersion()
+            + '/' + artifact.getArtifactId() + '-' + artifact.getVersion() + '.' + artifact.getExtension();
+        synchronized ( statuses )
+        {
+            statuses.put( path, new LinkedList<Integer>( Arrays.asList( codes ) ) );
+        }
+        return path;
+    }
+
+    private ArtifactDownload newExistenceCheck( Artifact artifact )
+        throws IOException
+    {
+        ArtifactDownload download =
+            new ArtifactDownload( artifact, null, TestFileUtils.createTempFile( "local" ),
+                                  RepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+        download.setExistenceCheck( true );
+        return download;
+    }
+
+    @Test
+    public void testPresentAndMissingArtifacts()
+        throws Exception
+    {
+        Artifact present = new DefaultArtifact( "gid:present:jar:1" );
+        Artifact missing = new DefaultArtifact( "gid:missing:jar:1" );
+        String presentPath = respond( present, 200 );
+        String missingPath = respond( missing, 404 );
+
+        ArtifactDownload presentCheck = newExistenceCheck( present );
+        ArtifactDownload missingCheck = newExistenceCheck( missing );
+        connector.get( Arrays.asList( presentCheck, missingCheck ), null );
+
+        assertEquals( Transfer.State.DONE, presentCheck.getState() );
+        assertNull( String.valueOf( presentCheck.getException() ), presentCheck.getException() );
+        TestFileUtils.assertContent( "local", presentCheck.getFile() );
+
+        assertEquals( Transfer.State.DONE, missingCheck.getState() );
+        assertTrue( String.valueOf( missingCheck.getException() ),
+                    missingCheck.getException() instanceof ArtifactNotFoundException );
+
+        assertTrue( requests.toString(), requests.contains( "HEAD " + presentPath ) );
+        assertTrue( requests.toString(), requests.contains( "HEAD " + missingPath ) );
+        assertEquals( requests.toString(), 2, requests.size() );
+    }
+
+    @Test
+    public void testServiceUnavailableIsRetried()
+        throws Exception
+    {
+        Artifact artifact = new DefaultArtifact( "gid:busy:jar:1" );
+        String path = respond( artifact, 503, 503, 200 );
+
+        ArtifactDownload check = newExistenceCheck( artifact );
+        connector.get( Arrays.asList( check ), null );
+
+        assertNull( String.valueOf( check.getException() ), check.getException() );
+        assertEquals( Arrays.asList( "HEAD " + path, "HEAD " + path, "HEAD " + path ), requests );
+    }
+
+    @Test
+    public void testTooManyRequestsIsRetried()
+        throws Exception
+    {
+        Artifact artifact = new DefaultArtifact( "gid:limited:jar:1" );
+        String path = respond( artifact, 429, 404 );
+
+        ArtifactDownload check = newExistenceCheck( artifact );
+        connector.get( Arrays.asList( check ), null );
+
+        assertTrue( String.valueOf( check.getException() ), check.getException() instanceof ArtifactNotFoundException );
+        assertEquals( Arrays.asList( "HEAD " + path, "HEAD " + path ), requests );
+    }
+
+    @Test
+    public void testPersistentOverloadFailsAfterMaxRetries()
+        throws Exception
+    {
+        Artifact artifact = new DefaultArtifact( "gid:down:jar:1" );
+        respond( artifact, 503 );
+
+        ArtifactDownload check = newExistenceCheck( artifact );
+        connector.get( Arrays.asList( check ), null );
+
+        assertNotNull( check.getException() );
+        assertFalse( check.getException() instanceof ArtifactNotFoundException );
+        assertEquals( Transfer.State.DONE, check.getState() );
+        assertEquals( requests.toString(), 4, requests.size() );
+    }
+
+    @Test
+    public void testExistenceChecksPrecedeDownloads()
+        throws Exception
+    {
+        Artifact downloaded = new DefaultArtifact( "gid:downloaded:jar:1" );
+        Artifact checked = new DefaultArtifact( "gid:checked:jar:1" );
+        String downloadedPath = respond( downloaded, 200 );
+        String checkedPath = respond( checked, 200 );
+
+        File file = new File( TestFileUtils.createTempDir(), "downloaded.jar" );
+        ArtifactDownload download =
+            new ArtifactDownload( downloaded, null, file, RepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+        ArtifactDownload check = newExistenceCheck( checked );
+        connector.get( Arrays.asList( download, check ), null );
+
+        assertNull( String.valueOf( download.getException() ), download.getException() );
+        assertNull( String.valueOf( check.getException() ), check.getException() );
+        TestFileUtils.assertContent( "content", file );
+        assertEquals( Arrays.asList( "HEAD " + checkedPath, "GET " + downloadedPath ), requests );
+    }
+
+}
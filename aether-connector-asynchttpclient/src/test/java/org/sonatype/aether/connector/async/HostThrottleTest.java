@@ -0,0 +1,135 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class HostThrottleTest
+{
+
+    private Thread acquireAsync( final HostThrottle throttle, final List<String> order, final String name )
+        throws InterruptedException
+    {
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    throttle.acquire();
+                    order.add( name );
+                }
+                catch ( InterruptedException e )
+                {
+                    order.add( "interrupted:" + name );
+                }
+            }
+        };
+        thread.start();
+        // give the thread time to enqueue
+        Thread.sleep( 100 );
+        return thread;
+    }
+
+    @Test
+    public void testWaitingTransfersAreAdmittedInOrder()
+        throws Exception
+    {
+        HostThrottle throttle = new HostThrottle( 1, 0, 0 );
+        List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+
+        throttle.acquire();
+        Thread a = acquireAsync( throttle, order, "a" );
+        Thread b = acquireAsync( throttle, order, "b" );
+        Thread c = acquireAsync( throttle, order, "c" );
+        assertEquals( 0, order.size() );
+
+        b.interrupt();
+        b.join();
+        assertEquals( "interrupted:b", order.get( 0 ) );
+
+        throttle.release( false );
+        a.join();
+        throttle.release( false );
+        c.join();
+
+        assertEquals( "a", order.get( 1 ) );
+        assertEquals( "c", order.get( 2 ) );
+    }
+
+    @Test
+    public void testOverloadReducesLimitAndDelaysTransfers()
+        throws Exception
+    {
+        HostThrottle throttle = new HostThrottle( 8, 200, 1000 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            throttle.acquire();
+        }
+
+        throttle.overloaded( 0 );
+        assertEquals( 4, throttle.getLimit() );
+        for ( int i = 0; i < 8; i++ )
+        {
+            throttle.release( i == 0 );
+        }
+
+        long start = System.currentTimeMillis();
+        throttle.acquire();
+        assertTrue( System.currentTimeMillis() - start >= 150 );
+        throttle.release( false );
+    }
+
+    @Test
+    public void testLimitRecoversAfterRoundWithoutOverload()
+        throws Exception
+    {
+        HostThrottle throttle = new HostThrottle( 4, 0, 0 );
+        for ( int i = 0; i < 4; i++ )
+        {
+            throttle.acquire();
+        }
+        throttle.overloaded( 0 );
+        for ( int i = 0; i < 4; i++ )
+        {
+            throttle.release( true );
+        }
+        assertEquals( 2, throttle.getLimit() );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            throttle.acquire();
+            throttle.release( false );
+        }
+        assertEquals( 3, throttle.getLimit() );
+    }
+
+    @Test
+    public void testRegistrySharesThrottlesPerHostAndConfiguration()
+    {
+        HostThrottle.Registry registry = new HostThrottle.Registry();
+        HostThrottle throttle = registry.forHost( "http://host", 4, 0, 0 );
+
+        assertSame( throttle, registry.forHost( "http://host", 4, 0, 0 ) );
+        assertNotSame( throttle, registry.forHost( "http://other", 4, 0, 0 ) );
+        assertNotSame( throttle, registry.forHost( "http://host", 8, 0, 0 ) );
+        assertNotSame( throttle, new HostThrottle.Registry().forHost( "http://host", 4, 0, 0 ) );
+
+        registry.clear();
+        assertNotSame( throttle, registry.forHost( "http://host", 4, 0, 0 ) );
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.AsyncHttpClientConfig;
+
+public class HttpClientPoolTest
+{
+
+    private HttpClientPool pool = new HttpClientPool();
+
+    private AsyncHttpClientConfig config = new AsyncHttpClientConfig.Builder().build();
+
+    @After
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testClientIsSharedWhileReferenced()
+    {
+        AsyncHttpClient client1 = pool.acquire( "a", config );
+        AsyncHttpClient client2 = pool.acquire( "a", config );
+        AsyncHttpClient other = pool.acquire( "b", config );
+
+        assertSame( client1, client2 );
+        assertNotSame( client1, other );
+
+        pool.release( "a", 0 );
+        assertFalse( client1.isClosed() );
+
+        pool.release( "a", 0 );
+        assertTrue( client1.isClosed() );
+        assertFalse( other.isClosed() );
+
+        assertNotSame( client1, pool.acquire( "a", config ) );
+    }
+
+    @Test
+    public void testIdleClientIsReused()
+        throws Exception
+    {
+        AsyncHttpClient client = pool.acquire( "a", config );
+        pool.release( "a", 60 * 1000 );
+        assertFalse( client.isClosed() );
+
+        assertSame( client, pool.acquire( "a", config ) );
+        pool.release( "a", 100 );
+
+        for ( int i = 0; i < 50 && !client.isClosed(); i++ )
+        {
+            Thread.sleep( 100 );
+        }
+        assertTrue( client.isClosed() );
+    }
+
+    @Test
+    public void testShutdownClosesAllClients()
+    {
+        AsyncHttpClient client = pool.acquire( "a", config );
+        pool.shutdown();
+        assertTrue( client.isClosed() );
+    }
+
+}
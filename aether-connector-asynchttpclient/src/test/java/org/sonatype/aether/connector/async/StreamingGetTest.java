@@ -0,0 +1,157 @@
+package org.sonatype.aether.connector.async;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.handler.AbstractHandler;
+import org.mortbay.jetty.nio.SelectChannelConnector;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.test.impl.TestFileProcessor;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Tests that the downloads of a batch are completed one by one instead of all at once after the batch.
+ */
+public class StreamingGetTest
+{
+
+    private Server server;
+
+    private final CountDownLatch slowRelease = new CountDownLatch( 1 );
+
+    private RepositoryConnector connector;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        server = new Server();
+        SelectChannelConnector httpConnector = new SelectChannelConnector();
+        httpConnector.setPort( 0 );
+        server.addConnector( httpConnector );
+        server.setHandler( new AbstractHandler()
+        {
+            public void handle( String target, HttpServletRequest request, HttpServletResponse response, int dispatch )
+                throws IOException
+            {
+                if ( target.contains( "slow" ) )
+                {
+                    try
+                    {
+                        slowRelease.await( 10, TimeUnit.SECONDS );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IOException( e.getMessage() );
+                    }
+                }
+                response.setStatus( HttpServletResponse.SC_OK );
+                response.getOutputStream().write( target.getBytes( "UTF-8" ) );
+                ( (Request) request ).setHandled( true );
+            }
+        } );
+        server.start();
+
+        TestRepositorySystemSession session = new TestRepositorySystemSession();
+        RemoteRepository repository =
+            new RemoteRepository( "test", "default", "http://localhost:" + httpConnector.getLocalPort() + "/repo" );
+        connector =
+            new AsyncRepositoryConnectorFactory( NullLogger.INSTANCE, new TestFileProcessor() ).newInstance( session,
+                                                                                                             repository );
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        slowRelease.countDown();
+        if ( connector != null )
+        {
+            connector.close();
+        }
+        if ( server != null )
+        {
+            server.stop();
+        }
+    }
+
+    private ArtifactDownload newDownload( String coords )
+        throws IOException
+    {
+        File file = new File( TestFileUtils.createTempDir(), "artifact.jar" );
+        return new ArtifactDownload( new DefaultArtifact( coords ), null, file,
+                                     RepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+    }
+
+    @Test
+    public void testFirstDownloadIsDoneBeforeBatchEnds()
+        throws Exception
+    {
+        final ArtifactDownload slow = newDownload( "gid:slow:jar:1" );
+        final ArtifactDownload fast = newDownload( "gid:fast:jar:1" );
+
+        Thread batch = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                connector.get( Arrays.asList( slow, fast ), null );
+            }
+        };
+        batch.start();
+
+        try
+        {
+            for ( long end = System.currentTimeMillis() + 10000; System.currentTimeMillis() < end; )
+            {
+                if ( Transfer.State.DONE.equals( fast.getState() ) )
+                {
+                    break;
+                }
+                Thread.sleep( 10 );
+            }
+            assertEquals( Transfer.State.DONE, fast.getState() );
+            assertNull( String.valueOf( fast.getException() ), fast.getException() );
+            assertTrue( fast.getFile().isFile() );
+            assertTrue( batch.isAlive() );
+            assertFalse( Transfer.State.DONE.equals( slow.getState() ) );
+        }
+        finally
+        {
+            slowRelease.countDown();
+            batch.join( 10000 );
+        }
+
+        assertEquals( Transfer.State.DONE, slow.getState() );
+        assertNull( String.valueOf( slow.getException() ), slow.getException() );
+    }
+
+}
@@ -13,6 +13,8 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +34,7 @@ import org.sonatype.aether.spi.connector.MetadataUpload;
 import org.sonatype.aether.spi.connector.RepositoryConnector;
 import org.sonatype.aether.spi.connector.Transfer;
 import org.sonatype.aether.spi.connector.Transfer.State;
+import org.sonatype.aether.spi.io.DigestingProgressListener;
 import org.sonatype.aether.spi.io.FileProcessor;
 import org.sonatype.aether.spi.log.Logger;
 import org.sonatype.aether.spi.log.NullLogger;
@@ -232,17 +235,24 @@ class FileRepositoryWorker
             }
             else
             {
+                boolean checksums =
+                    Direction.UPLOAD.equals( direction )
+                        || !RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( transfer.getChecksumPolicy() );
+
                 File tmp = tmpfile( target );
-                totalTransferred = copy( src, tmp );
+                Collection<String> algos = checksums ? checksumAlgos.keySet() : Collections.<String> emptySet();
+                DigestingProgressListener digester = copy( src, tmp, algos );
+                totalTransferred = digester.getBytes();
+                Map<String, Object> crcs = getChecksums( digester, tmp, algos );
                 fileProcessor.move( tmp, target );
 
                 switch ( direction )
                 {
                     case UPLOAD:
-                        writeChecksum( src, target.getPath() );
+                        writeChecksum( crcs, target.getPath() );
                         break;
                     case DOWNLOAD:
-                        verifyChecksum( src );
+                        verifyChecksum( src, crcs );
                         break;
                 }
             }
@@ -321,11 +331,10 @@ class FileRepositoryWorker
         }
     }
 
-    private void writeChecksum( File src, String targetPath )
+    private void writeChecksum( Map<String, Object> crcs, String targetPath )
         throws IOException, Throwable
     {
         // write checksum files
-        Map<String, Object> crcs = ChecksumUtils.calc( src, checksumAlgos.keySet() );
         for ( Entry<String, Object> crc : crcs.entrySet() )
         {
             String name = crc.getKey();
@@ -343,14 +352,13 @@ class FileRepositoryWorker
         }
     }
 
-    private void verifyChecksum( File src )
+    private void verifyChecksum( File src, Map<String, Object> crcs )
         throws ChecksumFailureException, IOException, TransferCancelledException
     {
         if ( RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( transfer.getChecksumPolicy() ) )
         {
             return;
         }
-        Map<String, Object> crcs = ChecksumUtils.calc( src, checksumAlgos.keySet() );
         boolean verified = false;
         try
         {
@@ -392,7 +400,10 @@ class FileRepositoryWorker
         }
     }
 
-    private long copy( File src, File target )
+    /**
+     * Copies the file and calculates the checksums of the copied data in the same pass.
+     */
+    private DigestingProgressListener copy( File src, File target, Collection<String> algos )
         throws TransferCancelledException, IOException
     {
         if ( src == null )
@@ -411,7 +422,7 @@ class FileRepositoryWorker
         DefaultTransferEvent event = newEvent( transfer );
         catapult.fireStarted( event );
 
-        return fileProcessor.copy( src, target, new FileProcessor.ProgressListener()
+        FileProcessor.ProgressListener listener = new FileProcessor.ProgressListener()
         {
 
             int total = 0;
@@ -431,7 +442,25 @@ class FileRepositoryWorker
                     throw new IOException( "Transfer was cancelled: " + e.getMessage() );
                 }
             }
-        } );
+        };
+
+        DigestingProgressListener digester = new DigestingProgressListener( algos, listener );
+        fileProcessor.copy( src, target, digester );
+        return digester;
+    }
+
+    /**
+     * Gets the checksums of the copied file. The digests only cover the data that was reported to the listener, so if
+     * the file processor did not report all of it, the checksums are calculated from the file itself.
+     */
+    private Map<String, Object> getChecksums( DigestingProgressListener digester, File file, Collection<String> algos )
+        throws IOException
+    {
+        if ( algos.isEmpty() || digester.getBytes() == file.length() )
+        {
+            return digester.getChecksums();
+        }
+        return ChecksumUtils.calc( file, algos );
     }
 
     private DefaultTransferEvent newEvent( TransferWrapper transfer )
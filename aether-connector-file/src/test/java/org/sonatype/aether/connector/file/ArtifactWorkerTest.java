@@ -13,6 +13,7 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 
 import org.junit.After;
 import org.junit.Before;
@@ -25,11 +26,13 @@ import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.ArtifactUpload;
 import org.sonatype.aether.spi.connector.MetadataDownload;
 import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.io.FileProcessor;
 import org.sonatype.aether.test.impl.TestFileProcessor;
 import org.sonatype.aether.test.impl.TestRepositorySystemSession;
 import org.sonatype.aether.test.util.TestFileUtils;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.ChecksumUtils;
 import org.sonatype.aether.util.artifact.DefaultArtifact;
 import org.sonatype.aether.util.layout.MavenDefaultLayout;
 import org.sonatype.aether.util.layout.RepositoryLayout;
@@ -155,6 +158,51 @@ public class ArtifactWorkerTest
         assertArrayEquals( expected, actual );
     }
 
+    @Test
+    public void testChecksumsOfUnobservedCopy()
+        throws Exception
+    {
+        Artifact artifact = new DefaultArtifact( "gid", "aid", "jar", "ver" );
+        File file = TestFileUtils.createTempFile( "test content" );
+
+        // a processor that does not report the copied data to the listener
+        FileProcessor processor = new FileProcessor()
+        {
+            public boolean mkdirs( File directory )
+            {
+                return TestFileProcessor.INSTANCE.mkdirs( directory );
+            }
+
+            public void write( File target, String data )
+                throws IOException
+            {
+                TestFileProcessor.INSTANCE.write( target, data );
+            }
+
+            public long copy( File source, File target, ProgressListener listener )
+                throws IOException
+            {
+                return TestFileProcessor.INSTANCE.copy( source, target, null );
+            }
+
+            public void move( File source, File target )
+                throws IOException
+            {
+                TestFileProcessor.INSTANCE.move( source, target );
+            }
+        };
+
+        ArtifactUpload transfer = new ArtifactUpload( artifact, file );
+        FileRepositoryWorker worker = new FileRepositoryWorker( transfer, repository, session );
+        worker.setFileProcessor( processor );
+        worker.run();
+        assertNull( transfer.getException() );
+
+        File uploaded = new File( new File( new URI( repository.getUrl() ) ), layout.getPath( artifact ).getRawPath() );
+        Object expected = ChecksumUtils.calc( file, Arrays.asList( "SHA-1" ) ).get( "SHA-1" );
+        assertEquals( expected, ChecksumUtils.read( new File( uploaded.getPath() + ".sha1" ) ) );
+    }
+
     @Test
     public void testDecodeURL()
         throws ArtifactTransferException, IOException
@@ -0,0 +1,266 @@
+package org.sonatype.aether.connector.wagon;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.wagon.Wagon;
+
+/**
+ * The wagons and the transfer threads for one remote repository. A pool can be used by several connectors at once,
+ * wagons that were not used for the idle timeout are disconnected and released.
+ */
+final class WagonPool
+{
+
+    private final String name;
+
+    private final WagonProvider wagonProvider;
+
+    private final long idleTimeout;
+
+    private final LinkedList<IdleWagon> idle = new LinkedList<IdleWagon>();
+
+    private final Executor executor;
+
+    private final AtomicLong created = new AtomicLong();
+
+    private final AtomicLong reused = new AtomicLong();
+
+    private final AtomicLong evicted = new AtomicLong();
+
+    private volatile boolean disposed;
+
+    int connectors;
+
+    long lastUsed = System.currentTimeMillis();
+
+    WagonPool( String name, WagonProvider wagonProvider, int threads, long idleTimeout )
+    {
+        this.name = name;
+        this.wagonProvider = wagonProvider;
+        this.idleTimeout = idleTimeout;
+        this.executor = newExecutor( name, threads );
+    }
+
+    private static Executor newExecutor( final String name, int threads )
+    {
+        if ( threads <= 1 )
+        {
+            return new Executor()
+            {
+                public void execute( Runnable command )
+                {
+                    command.run();
+                }
+            };
+        }
+        else
+        {
+            ThreadFactory threadFactory = new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread( Runnable r )
+                {
+                    Thread thread = new Thread( r, "aether-wagon-" + name + "-" + count.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            };
+            return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                           threadFactory );
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    public long getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    /**
+     * Takes the most recently used idle wagon from this pool.
+     *
+     * @return The wagon or {@code null} if none is idle, in which case the caller needs to look up a new wagon and
+     *         report it via {@link #created()}.
+     */
+    public Wagon poll()
+    {
+        evict( false );
+        IdleWagon wagon = null;
+        synchronized ( idle )
+        {
+            if ( !idle.isEmpty() )
+            {
+                wagon = idle.removeLast();
+            }
+        }
+        if ( wagon == null )
+        {
+            return null;
+        }
+        reused.incrementAndGet();
+        return wagon.wagon;
+    }
+
+    /**
+     * Returns the specified wagon to this pool. A wagon returned to a disposed pool is released right away.
+     */
+    public void offer( Wagon wagon )
+    {
+        synchronized ( idle )
+        {
+            idle.addLast( new IdleWagon( wagon, System.currentTimeMillis() ) );
+        }
+        if ( disposed )
+        {
+            evict( true );
+        }
+    }
+
+    /**
+     * Records the creation of a wagon for this pool.
+     */
+    public void created()
+    {
+        created.incrementAndGet();
+    }
+
+    /**
+     * Disconnects and releases the idle wagons that exceeded the idle timeout.
+     *
+     * @param all {@code true} to evict all idle wagons regardless of their idle time.
+     */
+    public void evict( boolean all )
+    {
+        List<Wagon> expired = new ArrayList<Wagon>();
+        long threshold = System.currentTimeMillis() - idleTimeout;
+        synchronized ( idle )
+        {
+            // the wagons are ordered by idle time, the oldest first
+            for ( Iterator<IdleWagon> it = idle.iterator(); it.hasNext(); )
+            {
+                IdleWagon wagon = it.next();
+                if ( !all && wagon.since > threshold )
+                {
+                    break;
+                }
+                it.remove();
+                expired.add( wagon.wagon );
+            }
+        }
+        for ( Wagon wagon : expired )
+        {
+            try
+            {
+                wagon.disconnect();
+            }
+            catch ( Exception e )
+            {
+                // too bad
+            }
+            wagonProvider.release( wagon );
+            evicted.incrementAndGet();
+        }
+    }
+
+    /**
+     * Lets the transfer threads of this pool terminate once idle while no connector uses the pool, respectively
+     * restores them for the next connector. Lowering the core size is used because letting core threads time out
+     * requires Java 6.
+     */
+    public void setActive( boolean active )
+    {
+        if ( executor instanceof ThreadPoolExecutor )
+        {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            pool.setCorePoolSize( active ? pool.getMaximumPoolSize() : 0 );
+        }
+    }
+
+    /**
+     * Releases all idle wagons and stops the transfer threads of this pool.
+     */
+    public void dispose()
+    {
+        disposed = true;
+        evict( true );
+        if ( executor instanceof ExecutorService )
+        {
+            ( (ExecutorService) executor ).shutdown();
+        }
+    }
+
+    public long getCreatedCount()
+    {
+        return created.get();
+    }
+
+    public long getReusedCount()
+    {
+        return reused.get();
+    }
+
+    public long getEvictedCount()
+    {
+        return evicted.get();
+    }
+
+    public int getIdleCount()
+    {
+        synchronized ( idle )
+        {
+            return idle.size();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + " (created: " + getCreatedCount() + ", reused: " + getReusedCount() + ", evicted: "
+            + getEvictedCount() + ", idle: " + getIdleCount() + ")";
+    }
+
+    static final class IdleWagon
+    {
+
+        final Wagon wagon;
+
+        final long since;
+
+        IdleWagon( Wagon wagon, long since )
+        {
+            this.wagon = wagon;
+            this.since = since;
+        }
+
+    }
+
+}
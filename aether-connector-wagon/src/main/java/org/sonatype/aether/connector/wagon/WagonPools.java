@@ -0,0 +1,172 @@
+package org.sonatype.aether.connector.wagon;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The wagon pools of a connector factory, keyed by the repository and the settings that affect the connection. A pool
+ * outlives the connectors using it and is disposed once it has not been used by any connector for its idle timeout.
+ */
+final class WagonPools
+{
+
+    private final Map<Object, WagonPool> pools = new HashMap<Object, WagonPool>();
+
+    private final Map<String, Map<String, Long>> retired = new LinkedHashMap<String, Map<String, Long>>();
+
+    /**
+     * Gets the pool for the specified key, creating it if necessary. Each call must be matched by a call to
+     * {@link #release(WagonPool)} once the connector is closed.
+     */
+    public WagonPool acquire( Object key, String name, WagonProvider wagonProvider, int threads, long idleTimeout )
+    {
+        List<WagonPool> expired;
+        WagonPool pool;
+        synchronized ( pools )
+        {
+            expired = expire();
+
+            pool = pools.get( key );
+            if ( pool == null )
+            {
+                pool = new WagonPool( name, wagonProvider, threads, idleTimeout );
+                pools.put( key, pool );
+            }
+            if ( pool.connectors++ <= 0 )
+            {
+                pool.setActive( true );
+            }
+        }
+
+        dispose( expired );
+
+        return pool;
+    }
+
+    /**
+     * Releases the specified pool from a closed connector. The transfer threads of a pool that is no longer used by any
+     * connector terminate once idle, pools that exceeded their idle timeout are disposed.
+     */
+    public void release( WagonPool pool )
+    {
+        List<WagonPool> expired;
+        synchronized ( pools )
+        {
+            if ( --pool.connectors <= 0 )
+            {
+                pool.setActive( false );
+            }
+            pool.lastUsed = System.currentTimeMillis();
+            expired = expire();
+        }
+        pool.evict( false );
+
+        dispose( expired );
+    }
+
+    /**
+     * Removes the pools that have not been used by any connector for their idle timeout, must be called while holding
+     * the lock on {@link #pools}.
+     */
+    private List<WagonPool> expire()
+    {
+        List<WagonPool> expired = new ArrayList<WagonPool>();
+        long now = System.currentTimeMillis();
+        for ( Iterator<WagonPool> it = pools.values().iterator(); it.hasNext(); )
+        {
+            WagonPool p = it.next();
+            if ( p.connectors <= 0 && now - p.lastUsed > p.getIdleTimeout() )
+            {
+                it.remove();
+                expired.add( p );
+            }
+        }
+        return expired;
+    }
+
+    private void dispose( List<WagonPool> expired )
+    {
+        for ( WagonPool p : expired )
+        {
+            p.dispose();
+            synchronized ( pools )
+            {
+                addStatistics( retired, p );
+            }
+        }
+    }
+
+    /**
+     * Disposes all pools, including those still used by open connectors. Wagons returned by such connectors are
+     * released right away, further transfers of those connectors fail.
+     */
+    public void dispose()
+    {
+        List<WagonPool> disposed;
+        synchronized ( pools )
+        {
+            disposed = new ArrayList<WagonPool>( pools.values() );
+            pools.clear();
+        }
+
+        dispose( disposed );
+    }
+
+    /**
+     * Gets the usage statistics of the pools, keyed by pool name. The statistics of disposed pools are included.
+     *
+     * @return The statistics, never {@code null}.
+     */
+    public Map<String, Map<String, Long>> getStatistics()
+    {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<String, Map<String, Long>>();
+        synchronized ( pools )
+        {
+            for ( Map.Entry<String, Map<String, Long>> entry : retired.entrySet() )
+            {
+                stats.put( entry.getKey(), new LinkedHashMap<String, Long>( entry.getValue() ) );
+            }
+            for ( WagonPool pool : pools.values() )
+            {
+                addStatistics( stats, pool );
+            }
+        }
+        return stats;
+    }
+
+    private static void addStatistics( Map<String, Map<String, Long>> stats, WagonPool pool )
+    {
+        Map<String, Long> poolStats = stats.get( pool.getName() );
+        if ( poolStats == null )
+        {
+            poolStats = new LinkedHashMap<String, Long>();
+            poolStats.put( "created", Long.valueOf( 0 ) );
+            poolStats.put( "reused", Long.valueOf( 0 ) );
+            poolStats.put( "evicted", Long.valueOf( 0 ) );
+            poolStats.put( "idle", Long.valueOf( 0 ) );
+            stats.put( pool.getName(), poolStats );
+        }
+        add( poolStats, "created", pool.getCreatedCount() );
+        add( poolStats, "reused", pool.getReusedCount() );
+        add( poolStats, "evicted", pool.getEvictedCount() );
+        add( poolStats, "idle", pool.getIdleCount() );
+    }
+
+    private static void add( Map<String, Long> stats, String key, long value )
+    {
+        stats.put( key, Long.valueOf( stats.get( key ).longValue() + value ) );
+    }
+
+}
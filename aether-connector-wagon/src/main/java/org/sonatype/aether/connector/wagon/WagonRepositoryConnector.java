@@ -12,21 +12,14 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Queue;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.StreamingWagon;
@@ -82,6 +75,8 @@ class WagonRepositoryConnector
 
     private static final String PROP_CONFIG = "aether.connector.wagon.config";
 
+    private static final String PROP_IDLE_TIMEOUT = "aether.connector.wagon.idleTimeout";
+
     private static final String PROP_FILE_MODE = "aether.connector.perms.fileMode";
 
     private static final String PROP_DIR_MODE = "aether.connector.perms.dirMode";
@@ -112,9 +107,9 @@ class WagonRepositoryConnector
 
     private final TransferListener listener;
 
-    private final Queue<Wagon> wagons = new ConcurrentLinkedQueue<Wagon>();
+    private final WagonPools pools;
 
-    private final Executor executor;
+    private final WagonPool pool;
 
     private boolean closed;
 
@@ -126,6 +121,18 @@ class WagonRepositoryConnector
                                      RemoteRepository repository, RepositorySystemSession session,
                                      FileProcessor fileProcessor, Logger logger )
         throws NoRepositoryConnectorException
+    {
+        this( wagonProvider, wagonConfigurator, repository, session, fileProcessor, logger, null );
+    }
+
+    /**
+     * Creates a connector whose wagons and transfer threads are shared with other connectors via the specified pools.
+     * Without pools, the connector uses its own wagons and threads and disposes them when closed.
+     */
+    WagonRepositoryConnector( WagonProvider wagonProvider, WagonConfigurator wagonConfigurator,
+                              RemoteRepository repository, RepositorySystemSession session,
+                              FileProcessor fileProcessor, Logger logger, WagonPools pools )
+        throws NoRepositoryConnectorException
     {
         this.logger = logger;
         this.fileProcessor = fileProcessor;
@@ -149,22 +156,9 @@ class WagonRepositoryConnector
             throw new NoRepositoryConnectorException( repository );
         }
 
-        try
-        {
-            wagons.add( lookupWagon() );
-        }
-        catch ( Exception e )
-        {
-            logger.debug( e.getMessage(), e );
-            throw new NoRepositoryConnectorException( repository );
-        }
-
         wagonAuth = getAuthenticationInfo( repository );
         wagonProxy = getProxy( repository );
 
-        int threads = ConfigUtils.getInteger( session, 5, PROP_THREADS, "maven.artifact.threads" );
-        executor = getExecutor( threads );
-
         checksumAlgos = new LinkedHashMap<String, String>();
         checksumAlgos.put( "SHA-1", ".sha1" );
         checksumAlgos.put( "MD5", ".md5" );
@@ -179,26 +173,56 @@ class WagonRepositoryConnector
         {
             this.headers.putAll( headers );
         }
-    }
 
-    private Executor getExecutor( int threads )
-    {
-        if ( threads <= 1 )
+        int threads = ConfigUtils.getInteger( session, 5, PROP_THREADS, "maven.artifact.threads" );
+        long idleTimeout = ConfigUtils.getLong( session, 60 * 1000, PROP_IDLE_TIMEOUT );
+        String name = repository.getId() + " (" + repository.getUrl() + ")";
+
+        this.pools = pools;
+        if ( pools != null )
         {
-            return new Executor()
-            {
-                public void execute( Runnable command )
-                {
-                    command.run();
-                }
-            };
+            pool = pools.acquire( getPoolKey( wagonProvider, threads ), name, wagonProvider, threads, idleTimeout );
         }
         else
         {
-            return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>() );
+            pool = new WagonPool( name, wagonProvider, threads, idleTimeout );
+        }
+
+        try
+        {
+            Wagon wagon = pool.poll();
+            if ( wagon == null )
+            {
+                wagon = lookupWagon();
+                pool.created();
+            }
+            pool.offer( wagon );
+        }
+        catch ( Exception e )
+        {
+            close();
+            logger.debug( e.getMessage(), e );
+            throw new NoRepositoryConnectorException( repository );
         }
     }
 
+    /**
+     * Gets the key identifying the wagons that can be shared with this connector, i.e. all settings that are applied to
+     * a wagon when connecting it.
+     */
+    private Object getPoolKey( WagonProvider wagonProvider, int threads )
+    {
+        RepositoryPermissions perms = wagonRepo.getPermissions();
+        return Arrays.asList( new Object[] {
+            wagonProvider, wagonConfigurator, repository, headers, Integer.valueOf( threads ),
+            ( perms != null ) ? perms.getFileMode() : null, ( perms != null ) ? perms.getDirectoryMode() : null,
+            ( perms != null ) ? perms.getGroup() : null,
+            ConfigUtils.getObject( session, null, PROP_CONFIG + "." + repository.getId() ),
+            ConfigUtils.getString( session, (String) null, ConfigurationProperties.CONNECT_TIMEOUT ),
+            ConfigUtils.getString( session, (String) null, ConfigurationProperties.REQUEST_TIMEOUT ),
+            ConfigUtils.getString( session, (String) null, ConfigurationProperties.INTERACTIVE ) } );
+    }
+
     private static RepositoryPermissions getPermissions( String repoId, RepositorySystemSession session )
     {
         RepositoryPermissions result = null;
@@ -345,31 +369,17 @@ class WagonRepositoryConnector
         wagon.connect( wagonRepo, wagonAuth, wagonProxy );
     }
 
-    private void disconnectWagon( Wagon wagon )
-    {
-        try
-        {
-            if ( wagon != null )
-            {
-                wagon.disconnect();
-            }
-        }
-        catch ( Exception e )
-        {
-            // too bad
-        }
-    }
-
     Wagon pollWagon()
         throws Exception
     {
-        Wagon wagon = wagons.poll();
+        Wagon wagon = pool.poll();
 
         if ( wagon == null )
         {
             try
             {
                 wagon = lookupWagon();
+                pool.created();
                 connectWagon( wagon );
             }
             catch ( Exception e )
@@ -386,7 +396,7 @@ class WagonRepositoryConnector
             }
             catch ( Exception e )
             {
-                wagons.add( wagon );
+                pool.offer( wagon );
                 throw e;
             }
         }
@@ -421,36 +431,42 @@ class WagonRepositoryConnector
         artifactDownloads = safe( artifactDownloads );
         metadataDownloads = safe( metadataDownloads );
 
-        Collection<GetTask<?>> tasks = new ArrayList<GetTask<?>>();
-
         RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
 
+        // existence checks are cheap, queue them first so they don't wait behind real downloads
+        for ( ArtifactDownload download : artifactDownloads )
+        {
+            if ( download.isExistenceCheck() )
+            {
+                String resource = layout.getPath( download.getArtifact() ).getPath();
+                GetTask<?> task =
+                    new GetTask<ArtifactTransfer>( resource, null, download.getChecksumPolicy(), download, ARTIFACT );
+                pool.getExecutor().execute( errorForwarder.wrap( task ) );
+            }
+        }
+
         for ( MetadataDownload download : metadataDownloads )
         {
             String resource = layout.getPath( download.getMetadata() ).getPath();
             GetTask<?> task =
                 new GetTask<MetadataTransfer>( resource, download.getFile(), download.getChecksumPolicy(), download,
                                                METADATA );
-            tasks.add( task );
-            executor.execute( errorForwarder.wrap( task ) );
+            pool.getExecutor().execute( errorForwarder.wrap( task ) );
         }
 
         for ( ArtifactDownload download : artifactDownloads )
         {
-            String resource = layout.getPath( download.getArtifact() ).getPath();
-            GetTask<?> task =
-                new GetTask<ArtifactTransfer>( resource, download.isExistenceCheck() ? null : download.getFile(),
-                                               download.getChecksumPolicy(), download, ARTIFACT );
-            tasks.add( task );
-            executor.execute( errorForwarder.wrap( task ) );
+            if ( !download.isExistenceCheck() )
+            {
+                String resource = layout.getPath( download.getArtifact() ).getPath();
+                GetTask<?> task =
+                    new GetTask<ArtifactTransfer>( resource, download.getFile(), download.getChecksumPolicy(), download,
+                                                   ARTIFACT );
+                pool.getExecutor().execute( errorForwarder.wrap( task ) );
+            }
         }
 
         errorForwarder.await();
-
-        for ( GetTask<?> task : tasks )
-        {
-            task.flush();
-        }
     }
 
     public void put( Collection<? extends ArtifactUpload> artifactUploads,
@@ -483,24 +499,21 @@ class WagonRepositoryConnector
         }
     }
 
-    public void close()
+    public synchronized void close()
     {
+        if ( closed )
+        {
+            return;
+        }
         closed = true;
 
-        for ( Wagon wagon = wagons.poll(); wagon != null; wagon = wagons.poll() )
+        if ( pools != null )
         {
-            disconnectWagon( wagon );
-            releaseWagon( wagon );
+            pools.release( pool );
         }
-
-        shutdown( executor );
-    }
-
-    private void shutdown( Executor executor )
-    {
-        if ( executor instanceof ExecutorService )
+        else
         {
-            ( (ExecutorService) executor ).shutdown();
+            pool.dispose();
         }
     }
 
@@ -673,7 +686,7 @@ class WagonRepositoryConnector
                     {
                         tmp.delete();
                     }
-                    wagons.add( wagon );
+                    pool.offer( wagon );
                 }
             }
             catch ( Exception e )
@@ -694,6 +707,9 @@ class WagonRepositoryConnector
                     listener.transferFailed( event );
                 }
             }
+
+            // report each transfer as soon as it is done rather than after the entire batch
+            flush();
         }
 
         public void flush()
@@ -853,7 +869,7 @@ class WagonRepositoryConnector
                 }
                 finally
                 {
-                    wagons.add( wagon );
+                    pool.offer( wagon );
                 }
             }
             catch ( Exception e )
@@ -8,8 +8,11 @@ package org.sonatype.aether.connector.wagon;
  *   http://www.eclipse.org/legal/epl-v10.html
  *******************************************************************************/
 
+import java.util.Map;
+
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
 import org.sonatype.aether.RepositorySystemSession;
 import org.sonatype.aether.repository.RemoteRepository;
 import org.sonatype.aether.spi.connector.RepositoryConnector;
@@ -28,7 +31,7 @@ import org.sonatype.aether.transfer.NoRepositoryConnectorException;
  */
 @Component( role = RepositoryConnectorFactory.class, hint = "wagon" )
 public class WagonRepositoryConnectorFactory
-    implements RepositoryConnectorFactory, Service
+    implements RepositoryConnectorFactory, Service, Disposable
 {
 
     @Requirement
@@ -45,6 +48,8 @@ public class WagonRepositoryConnectorFactory
 
     private int priority;
 
+    private final WagonPools pools = new WagonPools();
+
     public WagonRepositoryConnectorFactory()
     {
         // enables default constructor
@@ -140,7 +145,31 @@ public class WagonRepositoryConnectorFactory
         throws NoRepositoryConnectorException
     {
         return new WagonRepositoryConnector( wagonProvider, wagonConfigurator, repository, session, fileProcessor,
-                                             logger );
+                                             logger, pools );
+    }
+
+    /**
+     * Gets usage statistics for the wagons of the connectors created by this factory. The wagons and transfer threads
+     * are shared among all connectors for the same repository and settings, the statistics are grouped by repository
+     * and list the number of wagons that were {@code created}, {@code reused} for another transfer, {@code evicted}
+     * after being idle for longer than {@code aether.connector.wagon.idleTimeout} milliseconds and currently
+     * {@code idle}.
+     * 
+     * @return The wagon statistics keyed by repository, never {@code null}.
+     */
+    public Map<String, Map<String, Long>> getWagonStatistics()
+    {
+        return pools.getStatistics();
+    }
+
+    /**
+     * Releases the idle wagons and stops the transfer threads that are shared by the connectors of this factory. The
+     * Plexus container calls this method when the factory is disposed, users of the service locator need to call it
+     * themselves once the factory is no longer needed. The connectors of this factory should be closed before.
+     */
+    public void dispose()
+    {
+        pools.dispose();
     }
 
 }
@@ -0,0 +1,59 @@
+package org.sonatype.aether.connector.wagon;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class WagonPoolsTest
+{
+
+    private final WagonPools pools = new WagonPools();
+
+    @After
+    public void tearDown()
+    {
+        pools.dispose();
+    }
+
+    @Test
+    public void testThreadsOfUnusedPoolTimeOut()
+    {
+        WagonPool pool = pools.acquire( "a", "a", null, 4, 60000 );
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) pool.getExecutor();
+        assertEquals( 4, executor.getCorePoolSize() );
+
+        pools.release( pool );
+        assertEquals( 0, executor.getCorePoolSize() );
+
+        assertSame( pool, pools.acquire( "a", "a", null, 4, 60000 ) );
+        assertEquals( 4, executor.getCorePoolSize() );
+    }
+
+    @Test
+    public void testExpiredPoolIsDisposedOnRelease()
+        throws Exception
+    {
+        WagonPool a = pools.acquire( "a", "a", null, 4, 0 );
+        WagonPool b = pools.acquire( "b", "b", null, 4, 60000 );
+
+        pools.release( a );
+        Thread.sleep( 10 );
+        pools.release( b );
+
+        assertTrue( ( (ThreadPoolExecutor) a.getExecutor() ).isShutdown() );
+        assertFalse( ( (ThreadPoolExecutor) b.getExecutor() ).isShutdown() );
+        assertNotSame( a, pools.acquire( "a", "a", null, 4, 0 ) );
+    }
+
+}
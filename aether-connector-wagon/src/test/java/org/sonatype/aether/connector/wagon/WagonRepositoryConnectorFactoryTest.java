@@ -0,0 +1,120 @@
+package org.sonatype.aether.connector.wagon;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.providers.http.LightweightHttpWagon;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.test.impl.TestFileProcessor;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+
+public class WagonRepositoryConnectorFactoryTest
+{
+
+    private TestRepositorySystemSession session;
+
+    private RemoteRepository repository;
+
+    private WagonRepositoryConnectorFactory factory;
+
+    private int lookups;
+
+    private int releases;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        session = new TestRepositorySystemSession();
+        repository = new RemoteRepository( "test", "default", "http://localhost:1/repo" );
+        WagonProvider provider = new WagonProvider()
+        {
+            public Wagon lookup( String roleHint )
+                throws Exception
+            {
+                lookups++;
+                return new LightweightHttpWagon();
+            }
+
+            public void release( Wagon wagon )
+            {
+                releases++;
+            }
+        };
+        factory = new WagonRepositoryConnectorFactory( NullLogger.INSTANCE, TestFileProcessor.INSTANCE, provider, null );
+    }
+
+    @Test
+    public void testWagonsAreSharedAcrossConnectors()
+        throws Exception
+    {
+        RepositoryConnector connector = factory.newInstance( session, repository );
+        connector.close();
+        connector = factory.newInstance( session, repository );
+        connector.close();
+
+        assertEquals( 1, lookups );
+        assertEquals( 0, releases );
+
+        Map<String, Long> stats = factory.getWagonStatistics().values().iterator().next();
+        assertEquals( Long.valueOf( 1 ), stats.get( "created" ) );
+        assertEquals( Long.valueOf( 1 ), stats.get( "reused" ) );
+        assertEquals( Long.valueOf( 0 ), stats.get( "evicted" ) );
+        assertEquals( Long.valueOf( 1 ), stats.get( "idle" ) );
+    }
+
+    @Test
+    public void testIdleWagonsAreEvicted()
+        throws Exception
+    {
+        String key = "aether.connector.wagon.idleTimeout";
+        session.setConfigProperties( Collections.<String, Object> singletonMap( key, "0" ) );
+
+        RepositoryConnector connector = factory.newInstance( session, repository );
+        Thread.sleep( 10 );
+        connector.close();
+
+        assertEquals( 1, lookups );
+        assertEquals( 1, releases );
+
+        Map<String, Long> stats = factory.getWagonStatistics().values().iterator().next();
+        assertEquals( Long.valueOf( 1 ), stats.get( "evicted" ) );
+        assertEquals( Long.valueOf( 0 ), stats.get( "idle" ) );
+    }
+
+    @Test
+    public void testDisposeReleasesIdleWagons()
+        throws Exception
+    {
+        RepositoryConnector connector = factory.newInstance( session, repository );
+        connector.close();
+        assertEquals( 0, releases );
+
+        factory.dispose();
+        assertEquals( 1, releases );
+
+        Map<String, Long> stats = factory.getWagonStatistics().values().iterator().next();
+        assertEquals( Long.valueOf( 1 ), stats.get( "evicted" ) );
+        assertEquals( Long.valueOf( 0 ), stats.get( "idle" ) );
+
+        connector = factory.newInstance( session, repository );
+        connector.close();
+        assertEquals( 2, lookups );
+    }
+
+}
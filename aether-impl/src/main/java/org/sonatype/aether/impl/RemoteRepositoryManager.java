@@ -22,6 +22,19 @@ import org.sonatype.aether.transfer.NoRepositoryConnectorException;
 public interface RemoteRepositoryManager
 {
 
+    /**
+     * Aggregates the specified dominant and recessive repositories. The results are cached per session, keyed by the
+     * input repositories and the identity of the mirror, proxy and authentication selectors of the session, so these
+     * selectors must not be reconfigured once the session is in use.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @param dominantRepositories The repositories that take precedence, must not be {@code null}.
+     * @param recessiveRepositories The repositories to add unless already present, must not be {@code null}.
+     * @param recessiveIsRaw {@code true} if the recessive repositories still need to be subjected to the mirror, proxy
+     *            and authentication selectors of the session, {@code false} otherwise.
+     * @return The aggregated repositories, never {@code null}. The repositories may be shared with other callers and
+     *         must not be modified, the list itself is not shared.
+     */
     List<RemoteRepository> aggregateRepositories( RepositorySystemSession session,
                                                   List<RemoteRepository> dominantRepositories,
                                                   List<RemoteRepository> recessiveRepositories, boolean recessiveIsRaw );
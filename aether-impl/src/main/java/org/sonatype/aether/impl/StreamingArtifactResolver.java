@@ -0,0 +1,39 @@
+package org.sonatype.aether.impl;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.Collection;
+import java.util.List;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.resolution.ArtifactResolutionListener;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResult;
+
+/**
+ * An artifact resolver that can report the results of a resolution while it is still in progress.
+ */
+public interface StreamingArtifactResolver
+    extends ArtifactResolver
+{
+
+    /**
+     * Resolves the paths for a collection of artifacts and reports each result to the given listener as soon as it is
+     * final, i.e. before the resolution of the remaining artifacts has finished. Artifacts will be downloaded if
+     * necessary. For an artifact that is downloaded, the registration with the local repository, the repository events
+     * and the notification of the listener may happen on a worker thread of the repository connector rather than the
+     * calling thread, so the session's local repository manager and repository listener must be thread-safe.
+     */
+    List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                           Collection<? extends ArtifactRequest> requests,
+                                           ArtifactResolutionListener listener )
+        throws ArtifactResolutionException;
+
+}
@@ -0,0 +1,76 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss and eviction counters of an in-memory cache of the repository system.
+ */
+final class CacheStatistics
+{
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Gets the number of lookups that were answered by the cache.
+     * 
+     * @return The number of cache hits.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that could not be answered by the cache.
+     * 
+     * @return The number of cache misses.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of entries that were dropped to stay within the configured bounds of the cache.
+     * 
+     * @return The number of evicted entries.
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    void hit()
+    {
+        hits.incrementAndGet();
+    }
+
+    void miss()
+    {
+        misses.incrementAndGet();
+    }
+
+    void evicted()
+    {
+        evictions.incrementAndGet();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions();
+    }
+
+}
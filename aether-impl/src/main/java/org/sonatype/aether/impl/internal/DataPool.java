@@ -8,6 +8,8 @@ package org.sonatype.aether.impl.internal;
  *   http://www.eclipse.org/legal/epl-v10.html
  *******************************************************************************/
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -17,21 +19,32 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
 
 import org.sonatype.aether.RepositoryCache;
+import org.sonatype.aether.RepositoryEvent;
+import org.sonatype.aether.RepositoryListener;
 import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.collection.DependencyManager;
 import org.sonatype.aether.collection.DependencySelector;
 import org.sonatype.aether.collection.DependencyTraverser;
 import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.impl.ArtifactDescriptorReader;
 import org.sonatype.aether.repository.ArtifactRepository;
 import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.resolution.ArtifactDescriptorException;
 import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
 import org.sonatype.aether.resolution.ArtifactDescriptorResult;
 import org.sonatype.aether.resolution.VersionRangeRequest;
 import org.sonatype.aether.resolution.VersionRangeResult;
+import org.sonatype.aether.util.ConfigUtils;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+import org.sonatype.aether.util.listener.ChainedRepositoryListener;
 import org.sonatype.aether.version.Version;
 import org.sonatype.aether.version.VersionConstraint;
 
@@ -47,6 +60,10 @@ final class DataPool
 
     private static final String DESCRIPTORS = DataPool.class.getName() + "$Descriptors";
 
+    private static final String PERSISTENT_CACHE = DataPool.class.getName() + "$PersistentCache";
+
+    private static final String DESCRIPTOR_STATISTICS = DataPool.class.getName() + "$DescriptorStatistics";
+
     public static final ArtifactDescriptorResult NO_DESCRIPTOR =
         new ArtifactDescriptorResult( new ArtifactDescriptorRequest() );
 
@@ -54,22 +71,41 @@ final class DataPool
 
     private ObjectPool<Dependency> dependencies;
 
-    private Map<Object, Descriptor> descriptors;
+    private DescriptorCache descriptors;
+
+    private final RepositorySystemSession session;
+
+    private PersistentCollectionCache persistentCache;
 
-    private Map<Object, Constraint> constraints = new WeakHashMap<Object, Constraint>();
+    private String persistentContext;
+
+    private final Map<ArtifactDescriptorResult, Collection<File>> resolvedFiles =
+        new ConcurrentHashMap<ArtifactDescriptorResult, Collection<File>>();
+
+    private Map<Object, Constraint> constraints =
+        Collections.synchronizedMap( new WeakHashMap<Object, Constraint>() );
 
     private Map<Object, GraphNode> nodes = new HashMap<Object, GraphNode>( 256 );
 
+    private ConcurrentMap<Object, FutureTask<ArtifactDescriptorResult>> pendingDescriptors =
+        new ConcurrentHashMap<Object, FutureTask<ArtifactDescriptorResult>>();
+
+    private ConcurrentMap<Object, FutureTask<VersionRangeResult>> pendingConstraints =
+        new ConcurrentHashMap<Object, FutureTask<VersionRangeResult>>();
+
     @SuppressWarnings( "unchecked" )
     public DataPool( RepositorySystemSession session )
     {
+        this.session = session;
+
         RepositoryCache cache = session.getCache();
 
         if ( cache != null )
         {
             artifacts = (ObjectPool<Artifact>) cache.get( session, ARTIFACT_POOL );
             dependencies = (ObjectPool<Dependency>) cache.get( session, DEPENDENCY_POOL );
-            descriptors = (Map<Object, Descriptor>) cache.get( session, DESCRIPTORS );
+            descriptors = (DescriptorCache) cache.get( session, DESCRIPTORS );
+            persistentCache = (PersistentCollectionCache) cache.get( session, PERSISTENT_CACHE );
         }
 
         if ( artifacts == null )
@@ -92,12 +128,63 @@ final class DataPool
 
         if ( descriptors == null )
         {
-            descriptors = Collections.synchronizedMap( new WeakHashMap<Object, Descriptor>( 256 ) );
+            int maxEntries =
+                ConfigUtils.getInteger( session, 0, "aether.dependencyCollector.descriptorCache.maxEntries" );
+            long maxBytes = ConfigUtils.getLong( session, 0, "aether.dependencyCollector.descriptorCache.maxBytes" );
+            descriptors = new DescriptorCache( maxEntries, maxBytes );
             if ( cache != null )
             {
                 cache.put( session, DESCRIPTORS, descriptors );
             }
         }
+
+        if ( persistentCache == null
+            && ConfigUtils.getBoolean( session, false, "aether.dependencyCollector.persistentCache" ) )
+        {
+            long maxAge =
+                ConfigUtils.getLong( session, 24 * 60 * 60 * 1000L,
+                                     "aether.dependencyCollector.persistentCache.maxAge" );
+            int maxEntries =
+                ConfigUtils.getInteger( session, 20000, "aether.dependencyCollector.persistentCache.maxEntries" );
+            File file = new File( session.getLocalRepository().getBasedir(), ".aether/collection-cache" );
+            persistentCache = new PersistentCollectionCache( file, maxAge, maxEntries );
+            if ( cache != null )
+            {
+                cache.put( session, PERSISTENT_CACHE, persistentCache );
+            }
+        }
+
+        if ( persistentCache != null )
+        {
+            if ( RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals( session.getUpdatePolicy() ) )
+            {
+                // a forced update must not be answered from the results of previous runs, regardless of their age
+                persistentCache = null;
+            }
+            else
+            {
+                persistentContext = PersistentCollectionCache.newContext( session );
+            }
+        }
+
+        SessionData data = session.getData();
+        if ( data != null )
+        {
+            data.set( DESCRIPTOR_STATISTICS, descriptors.getStatistics() );
+        }
+    }
+
+    /**
+     * Gets the statistics of the descriptor cache used by the latest dependency collection in the specified session.
+     * The statistics accumulate since the creation of that cache, which may have served earlier collections too.
+     * 
+     * @return The statistics or {@code null} if none are available.
+     */
+    static CacheStatistics getDescriptorStatistics( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        Object statistics = ( data != null ) ? data.get( DESCRIPTOR_STATISTICS ) : null;
+        return ( statistics instanceof CacheStatistics ) ? (CacheStatistics) statistics : null;
     }
 
     public Artifact intern( Artifact artifact )
@@ -117,7 +204,7 @@ final class DataPool
 
     public ArtifactDescriptorResult getDescriptor( Object key, ArtifactDescriptorRequest request )
     {
-        Descriptor descriptor = descriptors.get( key );
+        Descriptor descriptor = getDescriptor( key, request, true );
         if ( descriptor != null )
         {
             return descriptor.toResult( request );
@@ -125,14 +212,92 @@ final class DataPool
         return null;
     }
 
+    /**
+     * Determines whether the descriptor for the specified key is already available. Unlike
+     * {@link #getDescriptor(Object, ArtifactDescriptorRequest)}, the lookup is not counted in the cache statistics.
+     */
+    public boolean hasDescriptor( Object key, ArtifactDescriptorRequest request )
+    {
+        return getDescriptor( key, request, false ) != null;
+    }
+
+    private Descriptor getDescriptor( Object key, ArtifactDescriptorRequest request, boolean count )
+    {
+        Descriptor descriptor = count ? descriptors.get( key ) : descriptors.peek( key );
+        if ( descriptor == null && persistentCache != null )
+        {
+            descriptor = persistentCache.getDescriptor( session, persistentContext, request.getArtifact(), request );
+            if ( descriptor != null )
+            {
+                descriptors.put( key, descriptor );
+            }
+        }
+        return descriptor;
+    }
+
+    /**
+     * Reads the specified descriptor. If the persistent cache is enabled, the files resolved by the reader, e.g. parent
+     * POMs, are recorded such that a persisted descriptor can be invalidated when any of them changes.
+     */
+    public ArtifactDescriptorResult readDescriptor( ArtifactDescriptorReader reader, RepositorySystemSession session,
+                                                    ArtifactDescriptorRequest request )
+        throws ArtifactDescriptorException
+    {
+        if ( persistentCache == null )
+        {
+            return reader.readArtifactDescriptor( session, request );
+        }
+
+        ResolvedFilesRecorder recorder = new ResolvedFilesRecorder( session.getRepositoryListener() );
+        DefaultRepositorySystemSession recordingSession = new DefaultRepositorySystemSession( session );
+        recordingSession.setRepositoryListener( recorder );
+
+        ArtifactDescriptorResult result = reader.readArtifactDescriptor( recordingSession, request );
+        resolvedFiles.put( result, recorder.getFiles() );
+        return result;
+    }
+
     public void putDescriptor( Object key, ArtifactDescriptorResult result )
     {
         descriptors.put( key, new GoodDescriptor( result ) );
+        pendingDescriptors.remove( key );
+        Collection<File> files = resolvedFiles.remove( result );
+        if ( persistentCache != null && result.getRequest() != null && files != null )
+        {
+            persistentCache.putDescriptor( session, persistentContext, result.getRequest().getArtifact(), result,
+                                           files );
+        }
     }
 
     public void putDescriptor( Object key, ArtifactDescriptorException e )
     {
         descriptors.put( key, BadDescriptor.INSTANCE );
+        pendingDescriptors.remove( key );
+    }
+
+    /**
+     * Registers a background task that reads the descriptor for the specified key.
+     * 
+     * @return {@code true} if the task was registered, {@code false} if another task for the key is already pending or
+     *         the descriptor has already been pooled.
+     */
+    public boolean putPendingDescriptor( Object key, FutureTask<ArtifactDescriptorResult> task )
+    {
+        if ( pendingDescriptors.putIfAbsent( key, task ) != null )
+        {
+            return false;
+        }
+        if ( descriptors.containsKey( key ) )
+        {
+            pendingDescriptors.remove( key, task );
+            return false;
+        }
+        return true;
+    }
+
+    public FutureTask<ArtifactDescriptorResult> getPendingDescriptor( Object key )
+    {
+        return pendingDescriptors.get( key );
     }
 
     public Object toKey( VersionRangeRequest request )
@@ -143,6 +308,14 @@ final class DataPool
     public VersionRangeResult getConstraint( Object key, VersionRangeRequest request )
     {
         Constraint constraint = constraints.get( key );
+        if ( constraint == null && persistentCache != null )
+        {
+            constraint = persistentCache.getConstraint( session, request );
+            if ( constraint != null )
+            {
+                constraints.put( key, constraint );
+            }
+        }
         if ( constraint != null )
         {
             return constraint.toResult( request );
@@ -153,6 +326,67 @@ final class DataPool
     public void putConstraint( Object key, VersionRangeResult result )
     {
         constraints.put( key, new Constraint( result ) );
+        pendingConstraints.remove( key );
+        if ( persistentCache != null )
+        {
+            persistentCache.putConstraint( session, result );
+        }
+    }
+
+    /**
+     * Registers a background task that resolves the version range for the specified key.
+     * 
+     * @return {@code true} if the task was registered, {@code false} if another task for the key is already pending or
+     *         the constraint has already been pooled.
+     */
+    public boolean putPendingConstraint( Object key, FutureTask<VersionRangeResult> task )
+    {
+        if ( pendingConstraints.putIfAbsent( key, task ) != null )
+        {
+            return false;
+        }
+        if ( constraints.containsKey( key ) )
+        {
+            pendingConstraints.remove( key, task );
+            return false;
+        }
+        return true;
+    }
+
+    public FutureTask<VersionRangeResult> getPendingConstraint( Object key )
+    {
+        return pendingConstraints.get( key );
+    }
+
+    /**
+     * Cancels all background tasks that have not been taken yet.
+     */
+    public void cancelPending()
+    {
+        for ( FutureTask<?> task : pendingDescriptors.values() )
+        {
+            task.cancel( false );
+        }
+        pendingDescriptors.clear();
+        for ( FutureTask<?> task : pendingConstraints.values() )
+        {
+            task.cancel( false );
+        }
+        pendingConstraints.clear();
+    }
+
+    /**
+     * Writes the descriptors and version ranges pooled since the last save to the persistent cache, if enabled.
+     * 
+     * @throws IOException If the persistent cache could not be written.
+     */
+    public void save()
+        throws IOException
+    {
+        if ( persistentCache != null )
+        {
+            persistentCache.save();
+        }
     }
 
     public Object toKey( Artifact artifact, List<RemoteRepository> repositories )
@@ -181,6 +415,11 @@ final class DataPool
 
         public abstract ArtifactDescriptorResult toResult( ArtifactDescriptorRequest request );
 
+        /**
+         * Gets a rough estimate of the heap memory (in bytes) retained by this descriptor.
+         */
+        public abstract int getWeight();
+
     }
 
     static class GoodDescriptor
@@ -221,6 +460,16 @@ final class DataPool
             return result;
         }
 
+        public int getWeight()
+        {
+            int weight = 128;
+            weight += 32 * properties.size();
+            weight += 64 * relocations.size();
+            weight += 160 * ( dependencies.size() + managedDependencies.size() );
+            weight += 256 * repositories.size();
+            return weight;
+        }
+
         private static List<RemoteRepository> clone( List<RemoteRepository> repositories )
         {
             List<RemoteRepository> clones = new ArrayList<RemoteRepository>( repositories.size() );
@@ -246,6 +495,11 @@ final class DataPool
             return NO_DESCRIPTOR;
         }
 
+        public int getWeight()
+        {
+            return 16;
+        }
+
     }
 
     static class Constraint
@@ -456,4 +710,39 @@ final class DataPool
 
     }
 
+    /**
+     * Records the files of the artifacts resolved while reading a descriptor and passes all events on to the original
+     * listener of the session.
+     */
+    static final class ResolvedFilesRecorder
+        extends ChainedRepositoryListener
+    {
+
+        private final Collection<File> files = Collections.synchronizedList( new ArrayList<File>() );
+
+        public ResolvedFilesRecorder( RepositoryListener listener )
+        {
+            super( listener );
+        }
+
+        @Override
+        public void artifactResolved( RepositoryEvent event )
+        {
+            if ( event.getFile() != null && event.getException() == null )
+            {
+                files.add( event.getFile() );
+            }
+            super.artifactResolved( event );
+        }
+
+        public Collection<File> getFiles()
+        {
+            synchronized ( files )
+            {
+                return new ArrayList<File>( files );
+            }
+        }
+
+    }
+
 }
@@ -13,8 +13,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.codehaus.plexus.component.annotations.Component;
@@ -27,6 +35,7 @@ import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.impl.ArtifactResolver;
 import org.sonatype.aether.impl.RemoteRepositoryManager;
 import org.sonatype.aether.impl.RepositoryEventDispatcher;
+import org.sonatype.aether.impl.StreamingArtifactResolver;
 import org.sonatype.aether.impl.SyncContextFactory;
 import org.sonatype.aether.impl.UpdateCheck;
 import org.sonatype.aether.impl.UpdateCheckManager;
@@ -42,12 +51,14 @@ import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.repository.WorkspaceReader;
 import org.sonatype.aether.resolution.ArtifactRequest;
 import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResolutionListener;
 import org.sonatype.aether.resolution.ArtifactResult;
 import org.sonatype.aether.resolution.VersionRequest;
 import org.sonatype.aether.resolution.VersionResolutionException;
 import org.sonatype.aether.resolution.VersionResult;
 import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
 import org.sonatype.aether.spi.io.FileProcessor;
 import org.sonatype.aether.spi.locator.Service;
 import org.sonatype.aether.spi.locator.ServiceLocator;
@@ -59,14 +70,19 @@ import org.sonatype.aether.transfer.NoRepositoryConnectorException;
 import org.sonatype.aether.util.ConfigUtils;
 import org.sonatype.aether.util.DefaultRequestTrace;
 import org.sonatype.aether.util.artifact.ArtifactProperties;
+import org.sonatype.aether.util.concurrency.RunnableErrorForwarder;
 import org.sonatype.aether.util.listener.DefaultRepositoryEvent;
 
 /**
+ * <em>Note:</em> The resolution of an artifact waits for other threads and processes working on the same artifact via
+ * the {@link SyncContextFactory} and fails with an {@link IllegalStateException} if the lock cannot be acquired within
+ * the timeout of the sync context, e.g. 5 minutes by default for the {@link DefaultSyncContextFactory}.
+ * 
  * @author Benjamin Bentmann
  */
 @Component( role = ArtifactResolver.class )
 public class DefaultArtifactResolver
-    implements ArtifactResolver, Service
+    implements StreamingArtifactResolver, Service
 {
 
     @Requirement
@@ -90,6 +106,8 @@ public class DefaultArtifactResolver
     @Requirement
     private SyncContextFactory syncContextFactory;
 
+    private volatile SeedRepository seedRepository;
+
     public DefaultArtifactResolver()
     {
         // enables default constructor
@@ -124,6 +142,7 @@ public class DefaultArtifactResolver
     public DefaultArtifactResolver setLogger( Logger logger )
     {
         this.logger = ( logger != null ) ? logger : NullLogger.INSTANCE;
+        seedRepository = null;
         return this;
     }
 
@@ -134,6 +153,7 @@ public class DefaultArtifactResolver
             throw new IllegalArgumentException( "file processor has not been specified" );
         }
         this.fileProcessor = fileProcessor;
+        seedRepository = null;
         return this;
     }
 
@@ -196,6 +216,14 @@ public class DefaultArtifactResolver
     public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
                                                   Collection<? extends ArtifactRequest> requests )
         throws ArtifactResolutionException
+    {
+        return resolveArtifacts( session, requests, null );
+    }
+
+    public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                                  Collection<? extends ArtifactRequest> requests,
+                                                  ArtifactResolutionListener listener )
+        throws ArtifactResolutionException
     {
         SyncContext syncContext = syncContextFactory.newInstance( session, false );
 
@@ -213,7 +241,19 @@ public class DefaultArtifactResolver
 
             syncContext.acquire( artifacts, null );
 
-            return resolve( session, requests );
+            // coalesce the updates of the resolution tracking files, e.g. for all classifiers of an artifact
+            TrackingFileBatch batch = TrackingFileBatch.begin( session );
+            try
+            {
+                return resolve( session, requests, new ResultDispatcher( listener ) );
+            }
+            finally
+            {
+                if ( batch != null )
+                {
+                    batch.end();
+                }
+            }
         }
         finally
         {
@@ -222,7 +262,8 @@ public class DefaultArtifactResolver
     }
 
     private List<ArtifactResult> resolve( RepositorySystemSession session,
-                                          Collection<? extends ArtifactRequest> requests )
+                                          Collection<? extends ArtifactRequest> requests,
+                                          ResultDispatcher dispatcher )
         throws ArtifactResolutionException
     {
         List<ArtifactResult> results = new ArrayList<ArtifactResult>( requests.size() );
@@ -231,8 +272,12 @@ public class DefaultArtifactResolver
         LocalRepositoryManager lrm = session.getLocalRepositoryManager();
         WorkspaceReader workspace = session.getWorkspaceReader();
 
+        SeedRepository seed = getSeedRepository( session );
+
         List<ResolutionGroup> groups = new ArrayList<ResolutionGroup>();
 
+        List<List<ResolutionItem>> chains = new ArrayList<List<ResolutionItem>>();
+
         for ( ArtifactRequest request : requests )
         {
             RequestTrace trace = DefaultRequestTrace.newChild( request.getTrace(), request );
@@ -261,6 +306,7 @@ public class DefaultArtifactResolver
                     result.setArtifact( artifact );
                     artifactResolved( session, trace, artifact, null, result.getExceptions() );
                 }
+                dispatcher.dispatch( result );
                 continue;
             }
 
@@ -274,6 +320,7 @@ public class DefaultArtifactResolver
             catch ( VersionResolutionException e )
             {
                 result.addException( e );
+                dispatcher.dispatch( result );
                 continue;
             }
 
@@ -300,12 +347,18 @@ public class DefaultArtifactResolver
                     result.setArtifact( artifact );
                     result.setRepository( workspace.getRepository() );
                     artifactResolved( session, trace, artifact, result.getRepository(), null );
+                    dispatcher.dispatch( result );
                     continue;
                 }
             }
 
-            LocalArtifactResult local =
-                lrm.find( session, new LocalArtifactRequest( artifact, repos, request.getRequestContext() ) );
+            LocalArtifactRequest localRequest =
+                new LocalArtifactRequest( artifact, repos, request.getRequestContext() );
+            LocalArtifactResult local = lrm.find( session, localRequest );
+            if ( !local.isAvailable() && seed != null )
+            {
+                local = seed( session, seed, localRequest, local );
+            }
             if ( isLocallyInstalled( local, versionResult ) )
             {
                 if ( local.getRepository() != null )
@@ -336,6 +389,7 @@ public class DefaultArtifactResolver
                      */
                     lrm.add( session, new LocalArtifactRegistration( artifact ) );
                 }
+                dispatcher.dispatch( result );
                 continue;
             }
             else if ( local.getFile() != null )
@@ -350,10 +404,13 @@ public class DefaultArtifactResolver
                         + artifact + " is not available in the local repository." );
                 result.addException( exception );
                 artifactResolved( session, trace, artifact, null, result.getExceptions() );
+                dispatcher.dispatch( result );
                 continue;
             }
 
             AtomicBoolean resolved = new AtomicBoolean( false );
+            List<ResolutionItem> chain = new ArrayList<ResolutionItem>( repos.size() );
+            chains.add( chain );
             Iterator<ResolutionGroup> groupIt = groups.iterator();
             for ( RemoteRepository repo : repos )
             {
@@ -377,167 +434,442 @@ public class DefaultArtifactResolver
                     groups.add( group );
                     groupIt = Collections.<ResolutionGroup> emptyList().iterator();
                 }
-                group.items.add( new ResolutionItem( trace, artifact, resolved, result, local, repo ) );
+                ResolutionItem item = new ResolutionItem( trace, artifact, resolved, result, local, repo );
+                group.items.add( item );
+                chain.add( item );
+            }
+            if ( !chain.isEmpty() )
+            {
+                chain.get( chain.size() - 1 ).last = true;
             }
         }
 
-        for ( ResolutionGroup group : groups )
+        int threads = ConfigUtils.getInteger( session, 1, "aether.artifactResolver.threads" );
+        if ( threads > 1 && groups.size() > 1 )
+        {
+            download( session, chains, Math.min( groups.size(), threads ), dispatcher );
+        }
+        else
         {
-            List<ArtifactDownload> downloads = new ArrayList<ArtifactDownload>();
-            for ( ResolutionItem item : group.items )
+            for ( ResolutionGroup group : groups )
             {
-                Artifact artifact = item.artifact;
+                download( session, group, dispatcher );
+            }
+        }
 
-                if ( item.resolved.get() )
+        for ( ArtifactResult result : results )
+        {
+            ArtifactRequest request = result.getRequest();
+
+            Artifact artifact = result.getArtifact();
+            if ( artifact == null || artifact.getFile() == null )
+            {
+                failures = true;
+                if ( result.getExceptions().isEmpty() )
                 {
-                    // resolved in previous resolution group
-                    continue;
+                    Exception exception = new ArtifactNotFoundException( request.getArtifact(), null );
+                    result.addException( exception );
                 }
+                RequestTrace trace = DefaultRequestTrace.newChild( request.getTrace(), request );
+                artifactResolved( session, trace, request.getArtifact(), null, result.getExceptions() );
+            }
+            dispatcher.dispatch( result );
+        }
+
+        if ( failures )
+        {
+            throw new ArtifactResolutionException( results );
+        }
+
+        return results;
+    }
 
-                ArtifactDownload download = new ArtifactDownload();
-                download.setArtifact( artifact );
-                download.setRequestContext( item.request.getRequestContext() );
-                download.setTrace( item.trace );
-                if ( item.local.getFile() != null )
+    /**
+     * Downloads the artifacts from several repositories at once. The items are processed in waves where each wave
+     * tries each artifact still missing from the next repository of its own list. The groups of a wave talk to
+     * different repositories and hence run concurrently, but an artifact is only requested from a repository once all
+     * repositories preceding it have missed, just like the sequential processing does. Items that would download to a
+     * local file already claimed by another item of the wave are deferred to the next wave, such that no two chains
+     * write the same file at once.
+     */
+    private void download( final RepositorySystemSession session, List<List<ResolutionItem>> chains, int threads,
+                           final ResultDispatcher dispatcher )
+    {
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+
+        int[] positions = new int[chains.size()];
+
+        TrackingFileBatch batch = TrackingFileBatch.get( session );
+
+        Executor executor = getExecutor( threads );
+        try
+        {
+            while ( true )
+            {
+                List<ResolutionGroup> groups = new ArrayList<ResolutionGroup>();
+                Collection<File> files = new HashSet<File>();
+                List<Integer> advanced = new ArrayList<Integer>();
+                for ( int i = 0; i < chains.size(); i++ )
                 {
-                    download.setFile( item.local.getFile() );
-                    download.setExistenceCheck( true );
+                    List<ResolutionItem> chain = chains.get( i );
+                    if ( positions[i] >= chain.size() )
+                    {
+                        continue;
+                    }
+                    ResolutionItem item = chain.get( positions[i] );
+                    if ( item.resolved.get() )
+                    {
+                        positions[i] = chain.size();
+                        continue;
+                    }
+                    if ( !files.add( getDownloadFile( lrm, item, item.repository ) ) )
+                    {
+                        continue;
+                    }
+                    advanced.add( Integer.valueOf( i ) );
+                    ResolutionGroup group = null;
+                    for ( ResolutionGroup t : groups )
+                    {
+                        if ( t.matches( item.repository ) )
+                        {
+                            group = t;
+                            break;
+                        }
+                    }
+                    if ( group == null )
+                    {
+                        group = new ResolutionGroup( item.repository );
+                        groups.add( group );
+                    }
+                    group.items.add( item );
                 }
-                else
+
+                if ( groups.isEmpty() )
                 {
-                    String path =
-                        lrm.getPathForRemoteArtifact( artifact, group.repository, item.request.getRequestContext() );
-                    download.setFile( new File( lrm.getRepository().getBasedir(), path ) );
+                    break;
                 }
 
-                boolean snapshot = artifact.isSnapshot();
-                RepositoryPolicy policy =
-                    remoteRepositoryManager.getPolicy( session, group.repository, !snapshot, snapshot );
+                RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
 
-                if ( session.isNotFoundCachingEnabled() || session.isTransferErrorCachingEnabled() )
+                for ( final ResolutionGroup group : groups )
                 {
-                    UpdateCheck<Artifact, ArtifactTransferException> check =
-                        new UpdateCheck<Artifact, ArtifactTransferException>();
-                    check.setItem( artifact );
-                    check.setFile( download.getFile() );
-                    check.setRepository( group.repository );
-                    check.setPolicy( policy.getUpdatePolicy() );
-                    item.updateCheck = check;
-                    updateCheckManager.checkArtifact( session, check );
-                    if ( !check.isRequired() && check.getException() != null )
+                    Runnable task = new Runnable()
                     {
-                        item.result.addException( check.getException() );
-                        continue;
+                        public void run()
+                        {
+                            download( session, group, dispatcher );
+                        }
+                    };
+                    if ( batch != null )
+                    {
+                        task = batch.bind( task );
                     }
+                    executor.execute( errorForwarder.wrap( task ) );
                 }
 
-                download.setChecksumPolicy( policy.getChecksumPolicy() );
-                download.setRepositories( item.repository.getMirroredRepositories() );
-                downloads.add( download );
-                item.download = download;
-            }
+                errorForwarder.await();
 
-            if ( downloads.isEmpty() )
-            {
-                continue;
+                for ( Integer i : advanced )
+                {
+                    positions[i.intValue()]++;
+                }
             }
+        }
+        finally
+        {
+            shutdown( executor );
+        }
+    }
 
-            for ( ArtifactDownload download : downloads )
+    private File getDownloadFile( LocalRepositoryManager lrm, ResolutionItem item, RemoteRepository repository )
+    {
+        if ( item.local.getFile() != null )
+        {
+            return item.local.getFile();
+        }
+        String path = lrm.getPathForRemoteArtifact( item.artifact, repository, item.request.getRequestContext() );
+        return new File( lrm.getRepository().getBasedir(), path );
+    }
+
+    private void download( final RepositorySystemSession session, final ResolutionGroup group,
+                           final ResultDispatcher dispatcher )
+    {
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+
+        List<ArtifactDownload> downloads = new ArrayList<ArtifactDownload>();
+        for ( ResolutionItem item : group.items )
+        {
+            Artifact artifact = item.artifact;
+
+            if ( item.resolved.get() )
             {
-                artifactDownloading( session, download.getTrace(), download.getArtifact(), group.repository );
+                // resolved in previous resolution group
+                continue;
             }
 
-            try
+            ArtifactDownload download;
+            if ( dispatcher.isStreaming() )
             {
-                RepositoryConnector connector =
-                    remoteRepositoryManager.getRepositoryConnector( session, group.repository );
-                try
-                {
-                    connector.get( downloads, null );
-                }
-                finally
+                final ResolutionItem streamed = item;
+                download = new ArtifactDownload()
                 {
-                    connector.close();
-                }
+                    @Override
+                    public Transfer setState( State state )
+                    {
+                        super.setState( state );
+                        if ( State.DONE.equals( state ) )
+                        {
+                            /*
+                             * Report the artifact right away instead of waiting for the rest of the batch. This runs
+                             * on the thread of the connector that finished the transfer, i.e. the registration with
+                             * the local repository and the repository events are issued from that thread, too.
+                             */
+                            downloaded( session, group, streamed, dispatcher );
+                        }
+                        return this;
+                    }
+                };
             }
-            catch ( NoRepositoryConnectorException e )
+            else
             {
-                for ( ArtifactDownload download : downloads )
-                {
-                    download.setException( new ArtifactTransferException( download.getArtifact(), group.repository, e ) );
-                }
+                download = new ArtifactDownload();
             }
+            download.setArtifact( artifact );
+            download.setRequestContext( item.request.getRequestContext() );
+            download.setTrace( item.trace );
+            download.setFile( getDownloadFile( lrm, item, group.repository ) );
+            download.setExistenceCheck( item.local.getFile() != null );
 
-            for ( ResolutionItem item : group.items )
+            boolean snapshot = artifact.isSnapshot();
+            RepositoryPolicy policy =
+                remoteRepositoryManager.getPolicy( session, group.repository, !snapshot, snapshot );
+
+            if ( session.isNotFoundCachingEnabled() || session.isTransferErrorCachingEnabled() )
             {
-                ArtifactDownload download = item.download;
-                if ( download == null )
+                UpdateCheck<Artifact, ArtifactTransferException> check =
+                    new UpdateCheck<Artifact, ArtifactTransferException>();
+                check.setItem( artifact );
+                check.setFile( download.getFile() );
+                check.setRepository( group.repository );
+                check.setPolicy( policy.getUpdatePolicy() );
+                item.updateCheck = check;
+                updateCheckManager.checkArtifact( session, check );
+                if ( !check.isRequired() && check.getException() != null )
                 {
+                    item.result.addException( check.getException() );
                     continue;
                 }
+            }
 
-                if ( item.updateCheck != null )
-                {
-                    item.updateCheck.setException( download.getException() );
-                    updateCheckManager.touchArtifact( session, item.updateCheck );
-                }
+            download.setChecksumPolicy( policy.getChecksumPolicy() );
+            download.setRepositories( item.repository.getMirroredRepositories() );
+            downloads.add( download );
+            item.download = download;
+        }
 
-                if ( download.getException() == null )
-                {
-                    item.resolved.set( true );
-                    item.result.setRepository( group.repository );
-                    Artifact artifact = download.getArtifact();
-                    try
-                    {
-                        artifact = artifact.setFile( getFile( session, artifact, download.getFile() ) );
-                        item.result.setArtifact( artifact );
-                    }
-                    catch ( ArtifactTransferException e )
-                    {
-                        item.result.addException( e );
-                        continue;
-                    }
-                    lrm.add( session,
-                             new LocalArtifactRegistration( artifact, group.repository, download.getSupportedContexts() ) );
+        if ( downloads.isEmpty() )
+        {
+            return;
+        }
 
-                    artifactDownloaded( session, download.getTrace(), artifact, group.repository, null );
+        for ( ArtifactDownload download : downloads )
+        {
+            artifactDownloading( session, download.getTrace(), download.getArtifact(), group.repository );
+        }
 
-                    artifactResolved( session, download.getTrace(), artifact, group.repository, null );
-                }
-                else
-                {
-                    item.result.addException( download.getException() );
+        try
+        {
+            RepositoryConnector connector =
+                remoteRepositoryManager.getRepositoryConnector( session, group.repository );
+            try
+            {
+                connector.get( downloads, null );
+            }
+            finally
+            {
+                connector.close();
+            }
+        }
+        catch ( NoRepositoryConnectorException e )
+        {
+            for ( ArtifactDownload download : downloads )
+            {
+                download.setException( new ArtifactTransferException( download.getArtifact(), group.repository, e ) );
+            }
+        }
 
-                    artifactDownloaded( session, download.getTrace(), download.getArtifact(), group.repository,
-                                        download.getException() );
-                }
+        for ( ResolutionItem item : group.items )
+        {
+            if ( item.download != null )
+            {
+                downloaded( session, group, item, dispatcher );
+            }
+            else if ( item.last )
+            {
+                dispatcher.dispatch( item.result );
             }
         }
+    }
 
-        for ( ArtifactResult result : results )
+    private void downloaded( RepositorySystemSession session, ResolutionGroup group, ResolutionItem item,
+                             ResultDispatcher dispatcher )
+    {
+        synchronized ( item )
         {
-            ArtifactRequest request = result.getRequest();
+            if ( item.downloaded )
+            {
+                return;
+            }
+            item.downloaded = true;
+        }
 
-            Artifact artifact = result.getArtifact();
-            if ( artifact == null || artifact.getFile() == null )
+        process( session, group, item );
+
+        if ( item.resolved.get() || item.last )
+        {
+            dispatcher.dispatch( item.result );
+        }
+    }
+
+    private void process( RepositorySystemSession session, ResolutionGroup group, ResolutionItem item )
+    {
+        ArtifactDownload download = item.download;
+
+        if ( item.updateCheck != null )
+        {
+            item.updateCheck.setException( download.getException() );
+            updateCheckManager.touchArtifact( session, item.updateCheck );
+        }
+
+        if ( download.getException() == null )
+        {
+            item.resolved.set( true );
+            item.result.setRepository( group.repository );
+            Artifact artifact = download.getArtifact();
+            try
             {
-                failures = true;
-                if ( result.getExceptions().isEmpty() )
+                artifact = artifact.setFile( getFile( session, artifact, download.getFile() ) );
+                item.result.setArtifact( artifact );
+            }
+            catch ( ArtifactTransferException e )
+            {
+                item.result.addException( e );
+                return;
+            }
+            LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+            lrm.add( session,
+                     new LocalArtifactRegistration( artifact, group.repository, download.getSupportedContexts() ) );
+
+            artifactDownloaded( session, download.getTrace(), artifact, group.repository, null );
+
+            artifactResolved( session, download.getTrace(), artifact, group.repository, null );
+        }
+        else
+        {
+            item.result.addException( download.getException() );
+
+            artifactDownloaded( session, download.getTrace(), download.getArtifact(), group.repository,
+                                download.getException() );
+        }
+    }
+
+    private Executor getExecutor( int threads )
+    {
+        if ( threads <= 1 )
+        {
+            return new Executor()
+            {
+                public void execute( Runnable command )
                 {
-                    Exception exception = new ArtifactNotFoundException( request.getArtifact(), null );
-                    result.addException( exception );
+                    command.run();
                 }
-                RequestTrace trace = DefaultRequestTrace.newChild( request.getTrace(), request );
-                artifactResolved( session, trace, request.getArtifact(), null, result.getExceptions() );
-            }
+            };
+        }
+        else
+        {
+            return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>() );
         }
+    }
 
-        if ( failures )
+    private void shutdown( Executor executor )
+    {
+        if ( executor instanceof ExecutorService )
         {
-            throw new ArtifactResolutionException( results );
+            ( (ExecutorService) executor ).shutdown();
         }
+    }
 
-        return results;
+    /**
+     * Gets the seed repository configured for the session. The seed repository is reused by subsequent calls as long
+     * as its configuration does not change.
+     */
+    private SeedRepository getSeedRepository( RepositorySystemSession session )
+    {
+        String dir = ConfigUtils.getString( session, null, "aether.localRepository.seed" );
+        if ( dir == null || dir.length() <= 0 )
+        {
+            return null;
+        }
+        String mode =
+            ConfigUtils.getString( session, FileLinker.COPY, "aether.localRepository.seed.strategy",
+                                   "aether.installer.strategy" );
+
+        SeedRepository seed = seedRepository;
+        if ( seed == null || !seed.dir.equals( dir ) || !seed.mode.equals( mode ) )
+        {
+            seed = new SeedRepository( dir, mode, logger, fileProcessor );
+            seedRepository = seed;
+        }
+        return seed;
+    }
+
+    /**
+     * Populates the local repository with the artifact from the (read-only) seed repository if available there. The
+     * artifact keeps the origin recorded by the seed repository.
+     */
+    private LocalArtifactResult seed( RepositorySystemSession session, SeedRepository seed,
+                                      LocalArtifactRequest request, LocalArtifactResult local )
+    {
+        LocalArtifactResult seeded = seed.manager.find( session, request );
+        if ( !seeded.isAvailable() )
+        {
+            return local;
+        }
+
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+        Artifact artifact = request.getArtifact();
+        RemoteRepository repository = seeded.getRepository();
+
+        String path;
+        LocalArtifactRegistration registration;
+        if ( repository != null )
+        {
+            path = lrm.getPathForRemoteArtifact( artifact, repository, request.getContext() );
+            registration =
+                new LocalArtifactRegistration( artifact, repository, Collections.singleton( request.getContext() ) );
+        }
+        else
+        {
+            path = lrm.getPathForLocalArtifact( artifact );
+            registration = new LocalArtifactRegistration( artifact );
+        }
+
+        File file = new File( lrm.getRepository().getBasedir(), path );
+        try
+        {
+            seed.linker.link( seeded.getFile(), file );
+            file.setLastModified( seeded.getFile().lastModified() );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Failed to populate " + file + " from seed repository: " + e.getMessage() );
+            return local;
+        }
+
+        logger.debug( "Populated " + file + " from seed repository " + seed.manager.getRepository() );
+        lrm.add( session, registration );
+
+        return lrm.find( session, request );
     }
 
     private boolean isLocallyInstalled( LocalArtifactResult lar, VersionResult vr )
@@ -576,6 +908,11 @@ public class DefaultArtifactResolver
             {
                 try
                 {
+                    // replace rather than overwrite the file, it might be a hard link into a seed repository
+                    if ( dst.isFile() )
+                    {
+                        dst.delete();
+                    }
                     fileProcessor.copy( file, dst, null );
                     dst.setLastModified( file.lastModified() );
                 }
@@ -639,6 +976,60 @@ public class DefaultArtifactResolver
         repositoryEventDispatcher.dispatch( event );
     }
 
+    /**
+     * The read-only repository from which missing artifacts are linked into the local repository.
+     */
+    static class SeedRepository
+    {
+
+        final String dir;
+
+        final String mode;
+
+        final LocalRepositoryManager manager;
+
+        final FileLinker linker;
+
+        SeedRepository( String dir, String mode, Logger logger, FileProcessor fileProcessor )
+        {
+            this.dir = dir;
+            this.mode = mode;
+            manager = new EnhancedLocalRepositoryManager( new File( dir ) ).setLogger( logger );
+            linker = new FileLinker( mode, fileProcessor, logger );
+        }
+
+    }
+
+    /**
+     * Hands each final result over to the listener exactly once.
+     */
+    static class ResultDispatcher
+    {
+
+        private final ArtifactResolutionListener listener;
+
+        private final Map<ArtifactResult, Boolean> dispatched = new IdentityHashMap<ArtifactResult, Boolean>();
+
+        ResultDispatcher( ArtifactResolutionListener listener )
+        {
+            this.listener = listener;
+        }
+
+        boolean isStreaming()
+        {
+            return listener != null;
+        }
+
+        synchronized void dispatch( ArtifactResult result )
+        {
+            if ( listener != null && dispatched.put( result, Boolean.TRUE ) == null )
+            {
+                listener.artifactResolved( result );
+            }
+        }
+
+    }
+
     static class ResolutionGroup
     {
 
@@ -681,6 +1072,10 @@ public class DefaultArtifactResolver
 
         UpdateCheck<Artifact, ArtifactTransferException> updateCheck;
 
+        boolean last;
+
+        boolean downloaded;
+
         ResolutionItem( RequestTrace trace, Artifact artifact, AtomicBoolean resolved, ArtifactResult result,
                         LocalArtifactResult local, RemoteRepository repository )
         {
@@ -8,11 +8,20 @@ package org.sonatype.aether.impl.internal;
  *   http://www.eclipse.org/legal/epl-v10.html
  *******************************************************************************/
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
@@ -45,6 +54,7 @@ import org.sonatype.aether.spi.locator.Service;
 import org.sonatype.aether.spi.locator.ServiceLocator;
 import org.sonatype.aether.spi.log.Logger;
 import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.util.ConfigUtils;
 import org.sonatype.aether.util.DefaultRepositorySystemSession;
 import org.sonatype.aether.util.DefaultRequestTrace;
 import org.sonatype.aether.util.artifact.ArtifactProperties;
@@ -130,6 +140,47 @@ public class DefaultDependencyCollector
         return this;
     }
 
+    /**
+     * Gets the number of artifact descriptor lookups that were answered from the descriptor cache of the specified
+     * session since that cache was created. The count spans all dependency collections that shared the cache, i.e.
+     * all collections of a session with a repository cache. Lookups made while reading ahead are not counted.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @return The number of cache hits.
+     */
+    public long getDescriptorCacheHits( RepositorySystemSession session )
+    {
+        CacheStatistics statistics = DataPool.getDescriptorStatistics( session );
+        return ( statistics != null ) ? statistics.getHits() : 0;
+    }
+
+    /**
+     * Gets the number of artifact descriptor lookups that could not be answered from the descriptor cache of the
+     * specified session since that cache was created. The count spans all dependency collections that shared the
+     * cache. Lookups made while reading ahead are not counted.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @return The number of cache misses.
+     */
+    public long getDescriptorCacheMisses( RepositorySystemSession session )
+    {
+        CacheStatistics statistics = DataPool.getDescriptorStatistics( session );
+        return ( statistics != null ) ? statistics.getMisses() : 0;
+    }
+
+    /**
+     * Gets the number of artifact descriptors that were evicted from the descriptor cache of the specified session
+     * since that cache was created. The count spans all dependency collections that shared the cache.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @return The number of evicted descriptors.
+     */
+    public long getDescriptorCacheEvictions( RepositorySystemSession session )
+    {
+        CacheStatistics statistics = DataPool.getDescriptorStatistics( session );
+        return ( statistics != null ) ? statistics.getEvictions() : 0;
+    }
+
     public CollectResult collectDependencies( RepositorySystemSession session, CollectRequest request )
         throws DependencyCollectionException
     {
@@ -235,10 +286,27 @@ public class DefaultDependencyCollector
             DefaultDependencyCollectionContext context =
                 new DefaultDependencyCollectionContext( session, root, managedDependencies );
 
-            Args args = new Args( result, session, trace, pool, edges, context );
+            int threads = ConfigUtils.getInteger( session, 1, "aether.dependencyCollector.threads" );
+            boolean prefetch = ConfigUtils.getBoolean( session, true, "aether.dependencyCollector.prefetch" );
+            Args args = new Args( result, session, trace, pool, edges, context, getExecutor( threads ), prefetch );
+            try
+            {
+                process( args, dependencies, repositories, depSelector.deriveChildSelector( context ),
+                         depManager.deriveChildManager( context ), depTraverser.deriveChildTraverser( context ) );
+            }
+            finally
+            {
+                shutdown( args );
+            }
 
-            process( args, dependencies, repositories, depSelector.deriveChildSelector( context ),
-                     depManager.deriveChildManager( context ), depTraverser.deriveChildTraverser( context ) );
+            try
+            {
+                pool.save();
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Failed to save dependency collection cache", e );
+            }
         }
 
         DependencyGraphTransformer transformer = session.getDependencyGraphTransformer();
@@ -308,6 +376,11 @@ public class DefaultDependencyCollector
                           DependencySelector depSelector, DependencyManager depManager, DependencyTraverser depTraverser )
         throws DependencyCollectionException
     {
+        if ( args.executor != null )
+        {
+            resolveAhead( args, dependencies, new Branch( repositories, depSelector, depManager, depTraverser ) );
+        }
+
         nextDependency: for ( Dependency dependency : dependencies )
         {
             boolean disableVersionManagement = false;
@@ -367,7 +440,7 @@ public class DefaultDependencyCollector
                     rangeResult = args.pool.getConstraint( key, rangeRequest );
                     if ( rangeResult == null )
                     {
-                        rangeResult = versionRangeResolver.resolveVersionRange( args.session, rangeRequest );
+                        rangeResult = resolveVersionRange( args, key, rangeRequest );
                         args.pool.putConstraint( key, rangeResult );
                     }
 
@@ -409,8 +482,7 @@ public class DefaultDependencyCollector
                             {
                                 try
                                 {
-                                    descriptorResult =
-                                        descriptorReader.readArtifactDescriptor( args.session, descriptorRequest );
+                                    descriptorResult = readArtifactDescriptor( args, key, descriptorRequest );
                                     args.pool.putDescriptor( key, descriptorResult );
                                 }
                                 catch ( ArtifactDescriptorException e )
@@ -553,6 +625,235 @@ public class DefaultDependencyCollector
         }
     }
 
+    /**
+     * Schedules the version range resolution and the reading of the artifact descriptors for the specified sibling
+     * dependencies on the executor. This merely warms up the data pool that {@link #process} will subsequently consume
+     * in its usual order, the structure of the dependency graph is not affected by this. If prefetching is enabled,
+     * the children of each sibling are in turn scheduled as soon as its descriptor has been read so the read-ahead
+     * runs down the tree independently of the graph walk.
+     */
+    private void resolveAhead( Args args, List<Dependency> dependencies, Branch branch )
+    {
+        for ( Dependency dependency : dependencies )
+        {
+            if ( !branch.depSelector.selectDependency( dependency ) )
+            {
+                continue;
+            }
+
+            DependencyManagement depMngt = branch.depManager.manageDependency( dependency );
+            if ( depMngt != null )
+            {
+                if ( depMngt.getVersion() != null )
+                {
+                    Artifact artifact = dependency.getArtifact();
+                    dependency = dependency.setArtifact( artifact.setVersion( depMngt.getVersion() ) );
+                }
+                if ( depMngt.getProperties() != null )
+                {
+                    Artifact artifact = dependency.getArtifact();
+                    dependency = dependency.setArtifact( artifact.setProperties( depMngt.getProperties() ) );
+                }
+                if ( depMngt.getScope() != null )
+                {
+                    dependency = dependency.setScope( depMngt.getScope() );
+                }
+                if ( depMngt.getExclusions() != null )
+                {
+                    dependency = dependency.setExclusions( depMngt.getExclusions() );
+                }
+            }
+
+            VersionRangeRequest rangeRequest = new VersionRangeRequest();
+            rangeRequest.setArtifact( dependency.getArtifact() );
+            rangeRequest.setRepositories( branch.repositories );
+            rangeRequest.setRequestContext( args.result.getRequest().getRequestContext() );
+            rangeRequest.setTrace( args.trace );
+
+            Object key = args.pool.toKey( rangeRequest );
+            VersionRangeResult rangeResult = args.pool.getConstraint( key, rangeRequest );
+            if ( rangeResult != null )
+            {
+                readAhead( args, dependency, rangeResult.getVersions(), branch );
+            }
+            else
+            {
+                FutureTask<VersionRangeResult> task =
+                    new FutureTask<VersionRangeResult>( new RangeTask( args, dependency, rangeRequest, branch ) );
+                if ( args.pool.putPendingConstraint( key, task ) )
+                {
+                    args.executor.execute( task );
+                }
+            }
+        }
+    }
+
+    private void readAhead( Args args, Dependency dependency, List<Version> versions, Branch branch )
+    {
+        if ( isLackingDescriptor( dependency.getArtifact() ) )
+        {
+            return;
+        }
+
+        for ( Version version : versions )
+        {
+            ArtifactDescriptorRequest descriptorRequest = new ArtifactDescriptorRequest();
+            descriptorRequest.setArtifact( dependency.getArtifact().setVersion( version.toString() ) );
+            descriptorRequest.setRepositories( branch.repositories );
+            descriptorRequest.setRequestContext( args.result.getRequest().getRequestContext() );
+            descriptorRequest.setTrace( args.trace );
+
+            Object key = args.pool.toKey( descriptorRequest );
+            if ( !args.pool.hasDescriptor( key, descriptorRequest ) )
+            {
+                FutureTask<ArtifactDescriptorResult> task =
+                    new FutureTask<ArtifactDescriptorResult>( new DescriptorTask( args, dependency,
+                                                                                  descriptorRequest, branch ) );
+                if ( args.pool.putPendingDescriptor( key, task ) )
+                {
+                    args.executor.execute( task );
+                }
+            }
+        }
+    }
+
+    private void prefetchChildren( Args args, Dependency dependency, ArtifactDescriptorResult descriptorResult,
+                                   Branch branch )
+    {
+        if ( !descriptorResult.getRelocations().isEmpty() || descriptorResult.getDependencies().isEmpty()
+            || !branch.depTraverser.traverseDependency( dependency ) )
+        {
+            return;
+        }
+
+        Dependency d = dependency.setArtifact( descriptorResult.getArtifact() );
+
+        DefaultDependencyCollectionContext context =
+            new DefaultDependencyCollectionContext( args.session, d, descriptorResult.getManagedDependencies() );
+
+        List<RemoteRepository> childRepos =
+            remoteRepositoryManager.aggregateRepositories( args.session, branch.repositories,
+                                                           descriptorResult.getRepositories(), true );
+
+        Branch child =
+            new Branch( childRepos, branch.depSelector.deriveChildSelector( context ),
+                        branch.depManager.deriveChildManager( context ),
+                        branch.depTraverser.deriveChildTraverser( context ) );
+
+        resolveAhead( args, descriptorResult.getDependencies(), child );
+    }
+
+    private VersionRangeResult resolveVersionRange( Args args, Object key, VersionRangeRequest rangeRequest )
+        throws VersionRangeResolutionException
+    {
+        FutureTask<VersionRangeResult> task = args.pool.getPendingConstraint( key );
+        if ( task == null )
+        {
+            return versionRangeResolver.resolveVersionRange( args.session, rangeRequest );
+        }
+
+        try
+        {
+            return await( task );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof VersionRangeResolutionException )
+            {
+                throw (VersionRangeResolutionException) e.getCause();
+            }
+            throw rethrow( e );
+        }
+    }
+
+    private ArtifactDescriptorResult readArtifactDescriptor( Args args, Object key,
+                                                             ArtifactDescriptorRequest descriptorRequest )
+        throws ArtifactDescriptorException
+    {
+        FutureTask<ArtifactDescriptorResult> task = args.pool.getPendingDescriptor( key );
+        if ( task == null )
+        {
+            return args.pool.readDescriptor( descriptorReader, args.session, descriptorRequest );
+        }
+
+        try
+        {
+            return await( task );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof ArtifactDescriptorException )
+            {
+                throw (ArtifactDescriptorException) e.getCause();
+            }
+            throw rethrow( e );
+        }
+    }
+
+    private static <T> T await( FutureTask<T> task )
+        throws ExecutionException
+    {
+        // the task might still be queued, in which case we run it ourselves instead of waiting for a worker
+        task.run();
+
+        boolean interrupted = false;
+        try
+        {
+            while ( true )
+            {
+                try
+                {
+                    return task.get();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static RuntimeException rethrow( ExecutionException e )
+    {
+        Throwable cause = e.getCause();
+        if ( cause instanceof RuntimeException )
+        {
+            return (RuntimeException) cause;
+        }
+        else if ( cause instanceof Error )
+        {
+            throw (Error) cause;
+        }
+        return new IllegalStateException( cause );
+    }
+
+    private Executor getExecutor( int threads )
+    {
+        if ( threads <= 1 )
+        {
+            return null;
+        }
+        return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>() );
+    }
+
+    private void shutdown( Args args )
+    {
+        // data read ahead but never consumed by the graph walk is of no further interest
+        args.pool.cancelPending();
+
+        if ( args.executor instanceof ExecutorService )
+        {
+            ( (ExecutorService) args.executor ).shutdown();
+        }
+    }
+
     private boolean isLackingDescriptor( Artifact artifact )
     {
         return artifact.getProperty( ArtifactProperties.LOCAL_PATH, null ) != null;
@@ -581,8 +882,13 @@ public class DefaultDependencyCollector
 
         final DefaultDependencyCollectionContext collectionContext;
 
+        final Executor executor;
+
+        final boolean prefetch;
+
         public Args( CollectResult result, RepositorySystemSession session, RequestTrace trace, DataPool pool,
-                     EdgeStack edges, DefaultDependencyCollectionContext collectionContext )
+                     EdgeStack edges, DefaultDependencyCollectionContext collectionContext, Executor executor,
+                     boolean prefetch )
         {
             this.result = result;
             this.session = session;
@@ -590,6 +896,107 @@ public class DefaultDependencyCollector
             this.pool = pool;
             this.edges = edges;
             this.collectionContext = collectionContext;
+            this.executor = executor;
+            this.prefetch = prefetch;
+        }
+
+    }
+
+    static class Branch
+    {
+
+        final List<RemoteRepository> repositories;
+
+        final DependencySelector depSelector;
+
+        final DependencyManager depManager;
+
+        final DependencyTraverser depTraverser;
+
+        public Branch( List<RemoteRepository> repositories, DependencySelector depSelector,
+                       DependencyManager depManager, DependencyTraverser depTraverser )
+        {
+            this.repositories = repositories;
+            this.depSelector = depSelector;
+            this.depManager = depManager;
+            this.depTraverser = depTraverser;
+        }
+
+    }
+
+    class RangeTask
+        implements Callable<VersionRangeResult>
+    {
+
+        private final Args args;
+
+        private final Dependency dependency;
+
+        private final VersionRangeRequest request;
+
+        private final Branch branch;
+
+        public RangeTask( Args args, Dependency dependency, VersionRangeRequest request, Branch branch )
+        {
+            this.args = args;
+            this.dependency = dependency;
+            this.request = request;
+            this.branch = branch;
+        }
+
+        public VersionRangeResult call()
+            throws VersionRangeResolutionException
+        {
+            VersionRangeResult result = versionRangeResolver.resolveVersionRange( args.session, request );
+            try
+            {
+                readAhead( args, dependency, result.getVersions(), branch );
+            }
+            catch ( RuntimeException e )
+            {
+                // ignored, e.g. rejected after the executor was shut down, the graph walk reads what it needs itself
+            }
+            return result;
+        }
+
+    }
+
+    class DescriptorTask
+        implements Callable<ArtifactDescriptorResult>
+    {
+
+        private final Args args;
+
+        private final Dependency dependency;
+
+        private final ArtifactDescriptorRequest request;
+
+        private final Branch branch;
+
+        public DescriptorTask( Args args, Dependency dependency, ArtifactDescriptorRequest request, Branch branch )
+        {
+            this.args = args;
+            this.dependency = dependency;
+            this.request = request;
+            this.branch = branch;
+        }
+
+        public ArtifactDescriptorResult call()
+            throws ArtifactDescriptorException
+        {
+            ArtifactDescriptorResult result = args.pool.readDescriptor( descriptorReader, args.session, request );
+            if ( args.prefetch )
+            {
+                try
+                {
+                    prefetchChildren( args, dependency, result, branch );
+                }
+                catch ( RuntimeException e )
+                {
+                    // ignored, the graph walk will encounter the problem itself and deal with it
+                }
+            }
+            return result;
         }
 
     }
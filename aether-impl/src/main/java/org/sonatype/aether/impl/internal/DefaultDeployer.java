@@ -58,6 +58,10 @@ import org.sonatype.aether.util.DefaultRequestTrace;
 import org.sonatype.aether.util.listener.DefaultRepositoryEvent;
 
 /**
+ * <em>Note:</em> The deployment waits for other threads and processes working on the same artifacts and metadata via
+ * the {@link SyncContextFactory} and fails with an {@link IllegalStateException} if the locks cannot be acquired
+ * within the timeout of the sync context, e.g. 5 minutes by default for the {@link DefaultSyncContextFactory}.
+ * 
  * @author Benjamin Bentmann
  */
 @Component( role = Deployer.class )
@@ -16,8 +16,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.codehaus.plexus.component.annotations.Component;
+import org.sonatype.aether.spi.io.CoarseProgressListener;
 import org.sonatype.aether.spi.io.FileProcessor;
 
 /**
@@ -31,6 +33,8 @@ public class DefaultFileProcessor
     implements FileProcessor
 {
 
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
     private static void close( Closeable closeable )
     {
         if ( closeable != null )
@@ -109,6 +113,11 @@ public class DefaultFileProcessor
     public long copy( File source, File target, ProgressListener listener )
         throws IOException
     {
+        if ( listener == null || listener instanceof CoarseProgressListener )
+        {
+            return transfer( source, target, (CoarseProgressListener) listener );
+        }
+
         long total = 0;
 
         FileInputStream fis = null;
@@ -160,6 +169,61 @@ public class DefaultFileProcessor
         return total;
     }
 
+    /**
+     * Copies the file via {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} which
+     * allows the operating system to move the data without staging it in the Java heap. Progress is reported per chunk.
+     */
+    private long transfer( File source, File target, CoarseProgressListener listener )
+        throws IOException
+    {
+        long total = 0;
+
+        FileInputStream fis = null;
+        FileOutputStream fos = null;
+        try
+        {
+            fis = new FileInputStream( source );
+
+            mkdirs( target.getParentFile() );
+
+            fos = new FileOutputStream( target );
+
+            FileChannel in = fis.getChannel();
+            FileChannel out = fos.getChannel();
+
+            for ( long size = in.size(); total < size; )
+            {
+                long bytes = in.transferTo( total, Math.min( size - total, TRANSFER_CHUNK_SIZE ), out );
+                if ( bytes <= 0 )
+                {
+                    // source was truncated concurrently
+                    break;
+                }
+
+                total += bytes;
+
+                if ( listener != null )
+                {
+                    try
+                    {
+                        listener.transferred( bytes );
+                    }
+                    catch ( Exception e )
+                    {
+                        // too bad
+                    }
+                }
+            }
+        }
+        finally
+        {
+            close( fis );
+            close( fos );
+        }
+
+        return total;
+    }
+
     public void move( File source, File target )
         throws IOException
     {
@@ -38,10 +38,15 @@ import org.sonatype.aether.spi.locator.Service;
 import org.sonatype.aether.spi.locator.ServiceLocator;
 import org.sonatype.aether.spi.log.Logger;
 import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.util.ConfigUtils;
 import org.sonatype.aether.util.DefaultRequestTrace;
 import org.sonatype.aether.util.listener.DefaultRepositoryEvent;
 
 /**
+ * <em>Note:</em> The installation waits for other threads and processes working on the same artifacts and metadata via
+ * the {@link SyncContextFactory} and fails with an {@link IllegalStateException} if the locks cannot be acquired
+ * within the timeout of the sync context, e.g. 5 minutes by default for the {@link DefaultSyncContextFactory}.
+ * 
  * @author Benjamin Bentmann
  */
 @Component( role = Installer.class )
@@ -263,7 +268,11 @@ public class DefaultInstaller
 
             if ( copy )
             {
-                fileProcessor.copy( srcFile, dstFile, null );
+                // a POM is usually edited in place, never share its contents with the local repository
+                String mode =
+                    "pom".equals( artifact.getExtension() ) ? FileLinker.COPY
+                                    : ConfigUtils.getString( session, FileLinker.COPY, "aether.installer.strategy" );
+                new FileLinker( mode, fileProcessor, logger ).link( srcFile, dstFile );
                 dstFile.setLastModified( srcFile.lastModified() );
             }
             else
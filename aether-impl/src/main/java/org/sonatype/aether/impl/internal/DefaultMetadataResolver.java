@@ -60,6 +60,10 @@ import org.sonatype.aether.spi.log.Logger;
 import org.sonatype.aether.spi.log.NullLogger;
 
 /**
+ * <em>Note:</em> The resolution of metadata waits for other threads and processes working on the same metadata via the
+ * {@link SyncContextFactory} and fails with an {@link IllegalStateException} if the lock cannot be acquired within the
+ * timeout of the sync context, e.g. 5 minutes by default for the {@link DefaultSyncContextFactory}.
+ * 
  * @author Benjamin Bentmann
  */
 @Component( role = MetadataResolver.class )
@@ -132,6 +132,28 @@ public class DefaultRemoteRepositoryManager
             return dominantRepositories;
         }
 
+        RepositoryAggregationCache cache = RepositoryAggregationCache.get( session );
+        if ( cache == null )
+        {
+            return aggregate( session, dominantRepositories, recessiveRepositories, recessiveIsRaw );
+        }
+
+        RepositoryAggregationCache.Key key =
+            RepositoryAggregationCache.newKey( session, dominantRepositories, recessiveRepositories, recessiveIsRaw );
+        List<RemoteRepository> result = cache.get( key );
+        if ( result == null )
+        {
+            result = aggregate( session, dominantRepositories, recessiveRepositories, recessiveIsRaw );
+            result = cache.put( key, result );
+        }
+        // the cached list is shared, hand out a copy the caller can keep and modify like an uncached result
+        return new ArrayList<RemoteRepository>( result );
+    }
+
+    private List<RemoteRepository> aggregate( RepositorySystemSession session,
+                                              List<RemoteRepository> dominantRepositories,
+                                              List<RemoteRepository> recessiveRepositories, boolean recessiveIsRaw )
+    {
         MirrorSelector mirrorSelector = session.getMirrorSelector();
         AuthenticationSelector authSelector = session.getAuthenticationSelector();
         ProxySelector proxySelector = session.getProxySelector();
@@ -173,6 +195,11 @@ public class DefaultRemoteRepositoryManager
 
             if ( recessiveIsRaw )
             {
+                if ( repository == recessiveRepository )
+                {
+                    // don't modify the input, the aggregated lists are cached and keyed by it
+                    repository = new RemoteRepository( recessiveRepository );
+                }
                 repository.setAuthentication( authSelector.getAuthentication( repository ) );
                 repository.setProxy( proxySelector.getProxy( repository ) );
             }
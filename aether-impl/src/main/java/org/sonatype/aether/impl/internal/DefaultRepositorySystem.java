@@ -16,6 +16,7 @@ import org.codehaus.plexus.component.annotations.Requirement;
 import org.sonatype.aether.RepositorySystem;
 import org.sonatype.aether.RepositorySystemSession;
 import org.sonatype.aether.RequestTrace;
+import org.sonatype.aether.StreamingRepositorySystem;
 import org.sonatype.aether.SyncContext;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.collection.CollectRequest;
@@ -34,6 +35,7 @@ import org.sonatype.aether.impl.Deployer;
 import org.sonatype.aether.impl.Installer;
 import org.sonatype.aether.impl.LocalRepositoryProvider;
 import org.sonatype.aether.impl.MetadataResolver;
+import org.sonatype.aether.impl.StreamingArtifactResolver;
 import org.sonatype.aether.impl.SyncContextFactory;
 import org.sonatype.aether.impl.VersionRangeResolver;
 import org.sonatype.aether.impl.VersionResolver;
@@ -48,6 +50,7 @@ import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
 import org.sonatype.aether.resolution.ArtifactDescriptorResult;
 import org.sonatype.aether.resolution.ArtifactRequest;
 import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResolutionListener;
 import org.sonatype.aether.resolution.ArtifactResult;
 import org.sonatype.aether.resolution.DependencyRequest;
 import org.sonatype.aether.resolution.DependencyResolutionException;
@@ -73,7 +76,7 @@ import org.sonatype.aether.util.graph.TreeDependencyVisitor;
  */
 @Component( role = RepositorySystem.class )
 public class DefaultRepositorySystem
-    implements RepositorySystem, Service
+    implements StreamingRepositorySystem, Service
 {
 
     @SuppressWarnings( "unused" )
@@ -294,6 +297,38 @@ public class DefaultRepositorySystem
         return artifactResolver.resolveArtifacts( session, requests );
     }
 
+    public List<ArtifactResult> resolveArtifacts( RepositorySystemSession session,
+                                                  Collection<? extends ArtifactRequest> requests,
+                                                  ArtifactResolutionListener listener )
+        throws ArtifactResolutionException
+    {
+        validateSession( session );
+        if ( artifactResolver instanceof StreamingArtifactResolver )
+        {
+            return ( (StreamingArtifactResolver) artifactResolver ).resolveArtifacts( session, requests, listener );
+        }
+
+        // a custom resolver, report the results once the entire batch is done
+        List<ArtifactResult> results;
+        try
+        {
+            results = artifactResolver.resolveArtifacts( session, requests );
+        }
+        catch ( ArtifactResolutionException e )
+        {
+            for ( ArtifactResult result : e.getResults() )
+            {
+                listener.artifactResolved( result );
+            }
+            throw e;
+        }
+        for ( ArtifactResult result : results )
+        {
+            listener.artifactResolved( result );
+        }
+        return results;
+    }
+
     public List<MetadataResult> resolveMetadata( RepositorySystemSession session,
                                                  Collection<? extends MetadataRequest> requests )
     {
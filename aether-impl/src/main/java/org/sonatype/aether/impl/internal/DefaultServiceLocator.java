@@ -71,6 +71,7 @@ public class DefaultServiceLocator
         addService( LocalRepositoryProvider.class, DefaultLocalRepositoryProvider.class );
         addService( LocalRepositoryManagerFactory.class, SimpleLocalRepositoryManagerFactory.class );
         addService( LocalRepositoryManagerFactory.class, EnhancedLocalRepositoryManagerFactory.class );
+        addService( LocalRepositoryManagerFactory.class, IndexedLocalRepositoryManagerFactory.class );
     }
 
     /**
@@ -8,39 +8,224 @@ package org.sonatype.aether.impl.internal;
  *   http://www.eclipse.org/legal/epl-v10.html
  *******************************************************************************/
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
 import org.sonatype.aether.RepositorySystemSession;
 import org.sonatype.aether.SyncContext;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.impl.SyncContextFactory;
 import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.spi.locator.Service;
+import org.sonatype.aether.spi.locator.ServiceLocator;
+import org.sonatype.aether.spi.log.Logger;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.util.ConfigUtils;
 
 /**
- * A factory to create synchronization contexts. This default implementation actually does not provide any real
- * synchronization but merely completes the repository system.
+ * A factory to create synchronization contexts. The contexts created by this implementation lock artifacts and
+ * metadata per {@code groupId:artifactId:version}, among the threads of this JVM and via lock files in the
+ * {@code .locks} directory of the local repository also among processes sharing the repository. The lock files can be
+ * disabled by setting the configuration property {@code aether.syncContext.fileLocks} to {@code false}, e.g. for a
+ * local repository that is used by a single process only, which saves opening and locking one file per GAV on each
+ * resolution, installation and deployment. The lock files are deliberately never deleted: another process may have
+ * opened a lock file without having locked it yet, deleting the file would let a third process create and lock a new
+ * file of the same name while the former still locks the old one. Each file is empty and created only once per GAV.
+ * Within one call to {@link SyncContext#acquire(Collection, Collection)}, the locks are taken in a global order to
+ * prevent deadlocks. As nested contexts can still acquire locks out of order, a context gives up after the number of
+ * milliseconds given by the configuration property {@code aether.syncContext.timeout} (default 5 minutes) and fails
+ * with an {@link IllegalStateException}.
  */
 @Component( role = SyncContextFactory.class )
 public class DefaultSyncContextFactory
-    implements SyncContextFactory
+    implements SyncContextFactory, Service
 {
 
+    @Requirement
+    private Logger logger = NullLogger.INSTANCE;
+
+    public DefaultSyncContextFactory()
+    {
+        // enables default constructor
+    }
+
+    public DefaultSyncContextFactory( Logger logger )
+    {
+        setLogger( logger );
+    }
+
+    public void initService( ServiceLocator locator )
+    {
+        setLogger( locator.getService( Logger.class ) );
+    }
+
+    public DefaultSyncContextFactory setLogger( Logger logger )
+    {
+        this.logger = ( logger != null ) ? logger : NullLogger.INSTANCE;
+        return this;
+    }
+
     public SyncContext newInstance( RepositorySystemSession session, boolean shared )
     {
-        return new DefaultSyncContext();
+        File lockDir = null;
+        LocalRepository localRepository = session.getLocalRepository();
+        if ( localRepository != null && localRepository.getBasedir() != null
+            && ConfigUtils.getBoolean( session, true, "aether.syncContext.fileLocks" ) )
+        {
+            lockDir = new File( localRepository.getBasedir(), ".locks" );
+        }
+
+        long timeout = ConfigUtils.getLong( session, 5 * 60 * 1000, "aether.syncContext.timeout" );
+
+        return new DefaultSyncContext( lockDir, shared, timeout, logger );
     }
 
     static class DefaultSyncContext
         implements SyncContext
     {
 
-        public void acquire( Collection<? extends Artifact> artifact, Collection<? extends Metadata> metadata )
+        private final File lockDir;
+
+        private final boolean shared;
+
+        private final long timeout;
+
+        private final Logger logger;
+
+        private final Map<String, SyncLocks.Lock> locks = new LinkedHashMap<String, SyncLocks.Lock>();
+
+        DefaultSyncContext( File lockDir, boolean shared, long timeout, Logger logger )
         {
+            this.lockDir = lockDir;
+            this.shared = shared;
+            this.timeout = timeout;
+            this.logger = logger;
+        }
+
+        public void acquire( Collection<? extends Artifact> artifacts, Collection<? extends Metadata> metadatas )
+        {
+            // sorted to have all contexts acquire their locks in the same order
+            Map<String, File> files = new TreeMap<String, File>();
+            if ( artifacts != null )
+            {
+                for ( Artifact artifact : artifacts )
+                {
+                    addLock( files, artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion() );
+                }
+            }
+            if ( metadatas != null )
+            {
+                for ( Metadata metadata : metadatas )
+                {
+                    addLock( files, metadata.getGroupId(), metadata.getArtifactId(), metadata.getVersion() );
+                }
+            }
+            files.keySet().removeAll( locks.keySet() );
+
+            long deadline = System.currentTimeMillis() + timeout;
+            List<String> acquired = new ArrayList<String>( files.size() );
+            boolean success = false;
+            try
+            {
+                for ( Map.Entry<String, File> entry : files.entrySet() )
+                {
+                    SyncLocks.Lock lock = SyncLocks.reserve( entry.getKey(), entry.getValue() );
+                    boolean locked = false;
+                    try
+                    {
+                        locked = lock.lock( shared, deadline, logger );
+                    }
+                    finally
+                    {
+                        if ( !locked )
+                        {
+                            SyncLocks.unreserve( lock );
+                        }
+                    }
+                    if ( !locked )
+                    {
+                        throw new IllegalStateException( "Could not acquire " + ( shared ? "shared" : "exclusive" )
+                            + " lock for " + entry.getKey() + " within " + timeout + " ms" );
+                    }
+                    locks.put( entry.getKey(), lock );
+                    acquired.add( entry.getKey() );
+                }
+                success = true;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "Interrupted while acquiring locks", e );
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    release( acquired );
+                }
+            }
+        }
+
+        private void addLock( Map<String, File> files, String groupId, String artifactId, String version )
+        {
+            String key = groupId + ':' + artifactId + ':' + version;
+            if ( lockDir != null )
+            {
+                File file = new File( lockDir, getFileName( key ) );
+                files.put( file.getAbsolutePath(), file );
+            }
+            else
+            {
+                files.put( key, null );
+            }
+        }
+
+        private static String getFileName( String key )
+        {
+            StringBuilder buffer = new StringBuilder( key.length() + 5 );
+            for ( int i = 0; i < key.length(); i++ )
+            {
+                char c = key.charAt( i );
+                if ( ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) || ( c >= '0' && c <= '9' ) || c == '.'
+                    || c == '-' || c == '_' )
+                {
+                    buffer.append( c );
+                }
+                else if ( c == ':' )
+                {
+                    buffer.append( '~' );
+                }
+                else
+                {
+                    buffer.append( '_' );
+                }
+            }
+            return buffer.append( ".lock" ).toString();
         }
 
         public void release()
         {
+            release( new ArrayList<String>( locks.keySet() ) );
+        }
+
+        private void release( List<String> ids )
+        {
+            Collections.reverse( ids );
+            for ( String id : ids )
+            {
+                SyncLocks.Lock lock = locks.remove( id );
+                lock.unlock( shared );
+                SyncLocks.unreserve( lock );
+            }
         }
 
     }
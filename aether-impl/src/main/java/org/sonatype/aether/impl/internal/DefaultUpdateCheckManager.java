@@ -38,8 +38,13 @@ import org.sonatype.aether.transfer.ArtifactNotFoundException;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataNotFoundException;
 import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.ConfigUtils;
 
 /**
+ * Checks the local repository for cached update information. Update checks that find an item to be missing without
+ * requiring a remote check are remembered for the remainder of the session, unless the configuration property
+ * {@code aether.updateCheckManager.sessionCache} is set to {@code false}.
+ * 
  * @author Benjamin Bentmann
  */
 @Component( role = UpdateCheckManager.class )
@@ -130,6 +135,22 @@ public class DefaultUpdateCheckManager
             throw new IllegalArgumentException( String.format( "The artifact '%s' has no file attached", artifact ) );
         }
 
+        UpdateCheckCache cache = getCache( session );
+        UpdateCheckCache.Result cached =
+            ( cache != null ) ? cache.get( artifactFile, repository, check.getPolicy() ) : null;
+        if ( cached != null )
+        {
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( "Skipped remote update check for " + check.getItem()
+                    + ", already known to be missing during this session." );
+            }
+
+            check.setRequired( false );
+            check.setException( newException( cached.error, artifact, repository ) );
+            return;
+        }
+
         boolean fileExists = artifactFile.exists();
 
         File touchFile = getTouchFile( artifact, artifactFile );
@@ -221,6 +242,11 @@ public class DefaultUpdateCheckManager
                 }
             }
         }
+
+        if ( cache != null && !fileExists && !check.isRequired() && check.getException() != null )
+        {
+            cache.put( artifactFile, repository, check.getPolicy(), new UpdateCheckCache.Result( error ) );
+        }
     }
 
     private ArtifactTransferException newException( String error, Artifact artifact, RemoteRepository repository )
@@ -265,6 +291,22 @@ public class DefaultUpdateCheckManager
             throw new IllegalArgumentException( String.format( "The metadata '%s' has no file attached", metadata ) );
         }
 
+        UpdateCheckCache cache = getCache( session );
+        UpdateCheckCache.Result cached =
+            ( cache != null ) ? cache.get( metadataFile, repository, check.getPolicy() ) : null;
+        if ( cached != null )
+        {
+            if ( logger.isDebugEnabled() )
+            {
+                logger.debug( "Skipped remote update check for " + check.getItem()
+                    + ", already known to be missing during this session." );
+            }
+
+            check.setRequired( false );
+            check.setException( newException( cached.error, metadata, repository ) );
+            return;
+        }
+
         boolean fileExists = metadataFile.exists();
 
         File touchFile = getTouchFile( metadata, metadataFile );
@@ -352,6 +394,11 @@ public class DefaultUpdateCheckManager
                 }
             }
         }
+
+        if ( cache != null && !fileExists && !check.isRequired() && check.getException() != null )
+        {
+            cache.put( metadataFile, repository, check.getPolicy(), new UpdateCheckCache.Result( error ) );
+        }
     }
 
     private MetadataTransferException newException( String error, Metadata metadata, RemoteRepository repository )
@@ -372,6 +419,40 @@ public class DefaultUpdateCheckManager
         }
     }
 
+    private UpdateCheckCache getCache( RepositorySystemSession session )
+    {
+        if ( !ConfigUtils.getBoolean( session, true, "aether.updateCheckManager.sessionCache" ) )
+        {
+            return null;
+        }
+        return UpdateCheckCache.get( session, true );
+    }
+
+    /**
+     * Gets the number of update checks during the specified session that were answered from the session cache without
+     * accessing the local repository.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @return The number of avoided disk checks.
+     */
+    public long getCacheHits( RepositorySystemSession session )
+    {
+        UpdateCheckCache cache = UpdateCheckCache.get( session, false );
+        return ( cache != null ) ? cache.getHits() : 0;
+    }
+
+    /**
+     * Gets the number of update checks during the specified session that could not be answered from the session cache.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @return The number of performed disk checks.
+     */
+    public long getCacheMisses( RepositorySystemSession session )
+    {
+        UpdateCheckCache cache = UpdateCheckCache.get( session, false );
+        return ( cache != null ) ? cache.getMisses() : 0;
+    }
+
     private long getLastUpdated( Properties props, String key )
     {
         String value = props.getProperty( key + UPDATED_KEY_SUFFIX, "" );
@@ -590,6 +671,7 @@ public class DefaultUpdateCheckManager
         String transferKey = getTransferKey( artifact, artifactFile, check.getRepository() );
 
         setUpdated( session.getData(), updateKey );
+        invalidate( session, artifactFile );
         Properties props = write( touchFile, dataKey, transferKey, check.getException() );
 
         if ( artifactFile.exists() && !hasErrors( props ) )
@@ -598,6 +680,15 @@ public class DefaultUpdateCheckManager
         }
     }
 
+    private void invalidate( RepositorySystemSession session, File file )
+    {
+        UpdateCheckCache cache = UpdateCheckCache.get( session, false );
+        if ( cache != null )
+        {
+            cache.invalidate( file );
+        }
+    }
+
     private boolean hasErrors( Properties props )
     {
         for ( Object key : props.keySet() )
@@ -621,6 +712,7 @@ public class DefaultUpdateCheckManager
         String transferKey = getTransferKey( metadata, metadataFile, check.getRepository() );
 
         setUpdated( session.getData(), updateKey );
+        invalidate( session, metadataFile );
         write( touchFile, dataKey, transferKey, check.getException() );
     }
 
@@ -0,0 +1,123 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.sonatype.aether.impl.internal.DataPool.Descriptor;
+
+/**
+ * The artifact descriptors remembered across dependency collections. Unless bounded by a maximum number of entries
+ * and/or an approximate memory budget, the cache weakly references its keys. Once bounded, the keys are strongly
+ * referenced and the least recently used entries get evicted when the bounds are exceeded.
+ * 
+ * @see DataPool
+ */
+final class DescriptorCache
+{
+
+    private final Map<Object, Descriptor> descriptors;
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    private long bytes;
+
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    public DescriptorCache( int maxEntries, long maxBytes )
+    {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        if ( maxEntries > 0 || maxBytes > 0 )
+        {
+            descriptors = new LinkedHashMap<Object, Descriptor>( 256, 0.75f, true );
+        }
+        else
+        {
+            descriptors = new WeakHashMap<Object, Descriptor>( 256 );
+        }
+    }
+
+    public CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    public synchronized Descriptor get( Object key )
+    {
+        Descriptor descriptor = descriptors.get( key );
+        if ( descriptor != null )
+        {
+            statistics.hit();
+        }
+        else
+        {
+            statistics.miss();
+        }
+        return descriptor;
+    }
+
+    /**
+     * Looks up the specified descriptor without counting the lookup as hit or miss, e.g. when reading ahead.
+     */
+    public synchronized Descriptor peek( Object key )
+    {
+        return descriptors.get( key );
+    }
+
+    public synchronized boolean containsKey( Object key )
+    {
+        return descriptors.containsKey( key );
+    }
+
+    public synchronized void put( Object key, Descriptor descriptor )
+    {
+        Descriptor old = descriptors.put( key, descriptor );
+        if ( maxBytes > 0 )
+        {
+            bytes += descriptor.getWeight();
+            if ( old != null )
+            {
+                bytes -= old.getWeight();
+            }
+        }
+        evict();
+    }
+
+    private void evict()
+    {
+        for ( Iterator<Descriptor> it = descriptors.values().iterator(); it.hasNext(); )
+        {
+            boolean overfull = maxEntries > 0 && descriptors.size() > maxEntries;
+            overfull |= maxBytes > 0 && bytes > maxBytes && descriptors.size() > 1;
+            if ( !overfull )
+            {
+                break;
+            }
+            Descriptor eldest = it.next();
+            it.remove();
+            if ( maxBytes > 0 )
+            {
+                bytes -= eldest.getWeight();
+            }
+            statistics.evicted();
+        }
+    }
+
+    public synchronized int size()
+    {
+        return descriptors.size();
+    }
+
+}
@@ -36,13 +36,18 @@ public class EnhancedLocalRepositoryManager
     extends SimpleLocalRepositoryManager
 {
 
-    private static final String LOCAL_REPO_ID = "";
+    static final String LOCAL_REPO_ID = "";
 
     private TrackingFileManager trackingFileManager;
 
     public EnhancedLocalRepositoryManager( File basedir )
     {
-        super( basedir, "enhanced" );
+        this( basedir, "enhanced" );
+    }
+
+    EnhancedLocalRepositoryManager( File basedir, String type )
+    {
+        super( basedir, type );
         trackingFileManager = new TrackingFileManager();
     }
 
@@ -66,7 +71,7 @@ public class EnhancedLocalRepositoryManager
         {
             result.setFile( file );
 
-            Properties props = readRepos( file );
+            Properties props = readRepos( session, file );
 
             if ( props.get( getKey( file, LOCAL_REPO_ID ) ) != null )
             {
@@ -103,15 +108,16 @@ public class EnhancedLocalRepositoryManager
     {
         if ( request.getRepository() == null )
         {
-            addArtifact( request.getArtifact(), Collections.singleton( LOCAL_REPO_ID ) );
+            addArtifact( session, request.getArtifact(), Collections.singleton( LOCAL_REPO_ID ) );
         }
         else
         {
-            addArtifact( request.getArtifact(), getRepositoryKeys( request.getRepository(), request.getContexts() ) );
+            addArtifact( session, request.getArtifact(),
+                         getRepositoryKeys( request.getRepository(), request.getContexts() ) );
         }
     }
 
-    private Collection<String> getRepositoryKeys( RemoteRepository repository, Collection<String> contexts )
+    Collection<String> getRepositoryKeys( RemoteRepository repository, Collection<String> contexts )
     {
         Collection<String> keys = new HashSet<String>();
 
@@ -126,7 +132,7 @@ public class EnhancedLocalRepositoryManager
         return keys;
     }
 
-    private void addArtifact( Artifact artifact, Collection<String> repositories )
+    private void addArtifact( RepositorySystemSession session, Artifact artifact, Collection<String> repositories )
     {
         if ( artifact == null )
         {
@@ -134,18 +140,29 @@ public class EnhancedLocalRepositoryManager
         }
         String path = getPathForLocalArtifact( artifact );
         File file = new File( getRepository().getBasedir(), path );
-        addRepo( file, repositories );
+        addRepo( session, file, repositories );
     }
 
-    private Properties readRepos( File artifactFile )
+    private Properties readRepos( RepositorySystemSession session, File artifactFile )
     {
         File trackingFile = getTrackingFile( artifactFile );
 
         Properties props = trackingFileManager.read( trackingFile );
-        return ( props != null ) ? props : new Properties();
+        if ( props == null )
+        {
+            props = new Properties();
+        }
+
+        TrackingFileBatch batch = TrackingFileBatch.get( session );
+        if ( batch != null )
+        {
+            batch.apply( trackingFile, props );
+        }
+
+        return props;
     }
 
-    private void addRepo( File artifactFile, Collection<String> repositories )
+    private void addRepo( RepositorySystemSession session, File artifactFile, Collection<String> repositories )
     {
         Map<String, String> updates = new HashMap<String, String>();
         for ( String repository : repositories )
@@ -155,7 +172,11 @@ public class EnhancedLocalRepositoryManager
 
         File trackingFile = getTrackingFile( artifactFile );
 
-        trackingFileManager.update( trackingFile, updates );
+        TrackingFileBatch batch = TrackingFileBatch.get( session );
+        if ( batch == null || !batch.add( trackingFileManager, trackingFile, updates ) )
+        {
+            trackingFileManager.update( trackingFile, updates );
+        }
     }
 
     private File getTrackingFile( File artifactFile )
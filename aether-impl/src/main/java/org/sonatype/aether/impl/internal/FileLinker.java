@@ -0,0 +1,219 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.sonatype.aether.spi.io.FileProcessor;
+import org.sonatype.aether.spi.log.Logger;
+
+/**
+ * Places a file at a new location by linking to it rather than copying its contents where possible. Supported modes
+ * are {@link #COPY}, {@link #HARDLINK} which requires Java 7 and {@link #REFLINK} which creates a copy-on-write clone
+ * via {@code cp --reflink=always} on file systems like Btrfs or XFS, respectively via {@code cp -c} on APFS. Whenever
+ * linking fails, the file is copied. A file store that failed to clone a file is not asked again.
+ * <em>Note:</em> A hard link shares its contents with the source file, i.e. neither file must be modified in place
+ * afterwards. For this reason, an existing target is always replaced rather than overwritten.
+ */
+final class FileLinker
+{
+
+    static final String COPY = "copy";
+
+    static final String HARDLINK = "hardlink";
+
+    static final String REFLINK = "reflink";
+
+    private static final Method TO_PATH;
+
+    private static final Method CREATE_LINK;
+
+    private static final Method GET_FILE_STORE;
+
+    private static final String OS_NAME = System.getProperty( "os.name", "" ).toLowerCase( Locale.ENGLISH );
+
+    private static final String[] REFLINK_COMMAND =
+        OS_NAME.contains( "mac" ) ? new String[] { "cp", "-c", "-f" } : new String[] { "cp", "--reflink=always", "-f" };
+
+    /**
+     * The file stores on which cloning failed, keyed by {@code java.nio.file.FileStore} or by {@link #ANY_STORE} if
+     * file stores cannot be told apart.
+     */
+    private static final ConcurrentMap<Object, Boolean> REFLINK_UNSUPPORTED = new ConcurrentHashMap<Object, Boolean>();
+
+    private static final Object ANY_STORE = "*";
+
+    private static volatile boolean reflinkUnsupported = OS_NAME.contains( "windows" );
+
+    static
+    {
+        Method toPath = null;
+        Method createLink = null;
+        Method getFileStore = null;
+        try
+        {
+            Class<?> pathClass = Class.forName( "java.nio.file.Path" );
+            Class<?> filesClass = Class.forName( "java.nio.file.Files" );
+            toPath = File.class.getMethod( "toPath" );
+            createLink = filesClass.getMethod( "createLink", pathClass, pathClass );
+            getFileStore = filesClass.getMethod( "getFileStore", pathClass );
+        }
+        catch ( Exception e )
+        {
+            // pre Java 7, hard links are not supported
+            toPath = null;
+            createLink = null;
+            getFileStore = null;
+        }
+        TO_PATH = toPath;
+        CREATE_LINK = createLink;
+        GET_FILE_STORE = getFileStore;
+    }
+
+    private final String mode;
+
+    private final FileProcessor fileProcessor;
+
+    private final Logger logger;
+
+    public FileLinker( String mode, FileProcessor fileProcessor, Logger logger )
+    {
+        this.mode = ( mode != null ) ? mode.toLowerCase( Locale.ENGLISH ) : COPY;
+        this.fileProcessor = fileProcessor;
+        this.logger = logger;
+    }
+
+    /**
+     * Places the contents of the source file at the target file, overwriting any existing target.
+     *
+     * @param source The file to link or copy, must not be {@code null}.
+     * @param target The file to create, must not be {@code null}.
+     * @throws IOException If the file could neither be linked nor copied.
+     */
+    public void link( File source, File target )
+        throws IOException
+    {
+        // a directory in the way is left to the copy to report
+        if ( HARDLINK.equals( mode ) && CREATE_LINK != null && !target.isDirectory() )
+        {
+            if ( hardlink( source, target ) )
+            {
+                return;
+            }
+        }
+        else if ( REFLINK.equals( mode ) && !reflinkUnsupported && !target.isDirectory() )
+        {
+            if ( reflink( source, target ) )
+            {
+                return;
+            }
+        }
+
+        // never write into an existing target, it might be a hard link whose contents are shared with another file
+        if ( target.isFile() )
+        {
+            target.delete();
+        }
+        fileProcessor.copy( source, target, null );
+    }
+
+    private boolean hardlink( File source, File target )
+    {
+        fileProcessor.mkdirs( target.getParentFile() );
+        target.delete();
+        try
+        {
+            CREATE_LINK.invoke( null, TO_PATH.invoke( target ), TO_PATH.invoke( source ) );
+            return true;
+        }
+        catch ( InvocationTargetException e )
+        {
+            // e.g. different file systems or link count exhausted
+            logger.debug( "Failed to link " + target + " to " + source + ": " + e.getCause() );
+        }
+        catch ( Exception e )
+        {
+            logger.debug( "Failed to link " + target + " to " + source + ": " + e );
+        }
+        return false;
+    }
+
+    private boolean reflink( File source, File target )
+    {
+        fileProcessor.mkdirs( target.getParentFile() );
+        Object store = getFileStore( target.getParentFile() );
+        if ( REFLINK_UNSUPPORTED.containsKey( store ) )
+        {
+            return false;
+        }
+        try
+        {
+            String[] command = new String[REFLINK_COMMAND.length + 2];
+            System.arraycopy( REFLINK_COMMAND, 0, command, 0, REFLINK_COMMAND.length );
+            command[command.length - 2] = source.getAbsolutePath();
+            command[command.length - 1] = target.getAbsolutePath();
+            Process process = new ProcessBuilder( command ).redirectErrorStream( true ).start();
+            InputStream is = process.getInputStream();
+            try
+            {
+                byte[] buffer = new byte[1024];
+                while ( is.read( buffer ) >= 0 )
+                {
+                    // drain
+                }
+            }
+            finally
+            {
+                is.close();
+            }
+            if ( process.waitFor() == 0 )
+            {
+                return true;
+            }
+            // most likely the file system cannot clone, don't fork for every further file
+            REFLINK_UNSUPPORTED.put( store, Boolean.TRUE );
+            logger.debug( "Failed to clone " + source + " to " + target + ", copying files on " + store );
+        }
+        catch ( IOException e )
+        {
+            // no cp command
+            reflinkUnsupported = true;
+            logger.debug( "Cloning files is not supported: " + e );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static Object getFileStore( File directory )
+    {
+        if ( GET_FILE_STORE != null )
+        {
+            try
+            {
+                return GET_FILE_STORE.invoke( null, TO_PATH.invoke( directory ) );
+            }
+            catch ( Exception e )
+            {
+                // fall through and treat all directories alike
+            }
+        }
+        return ANY_STORE;
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.LocalArtifactRegistration;
+import org.sonatype.aether.repository.LocalArtifactRequest;
+import org.sonatype.aether.repository.LocalArtifactResult;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.log.Logger;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.util.ConfigUtils;
+
+/**
+ * An enhanced local repository manager that additionally records the size, the modification time and the source
+ * repositories of each cached artifact in a single index file at the repository root, saving the per-directory
+ * tracking file access for artifacts already known to the index. The tracking files are still written such that the
+ * repository remains usable with the {@link EnhancedLocalRepositoryManager}. Unless the configuration property
+ * {@code aether.localRepository.index.verify} is set to {@code false}, the size and modification time of an indexed
+ * artifact are checked against the actual file before the index entry is trusted.
+ */
+public class IndexedLocalRepositoryManager
+    extends EnhancedLocalRepositoryManager
+{
+
+    private final LocalRepositoryIndex index;
+
+    private Logger logger = NullLogger.INSTANCE;
+
+    public IndexedLocalRepositoryManager( File basedir )
+    {
+        super( basedir, "indexed" );
+        index = LocalRepositoryIndex.forRepository( getRepository().getBasedir() );
+    }
+
+    @Override
+    public IndexedLocalRepositoryManager setLogger( Logger logger )
+    {
+        super.setLogger( logger );
+        this.logger = ( logger != null ) ? logger : NullLogger.INSTANCE;
+        return this;
+    }
+
+    @Override
+    public LocalArtifactResult find( RepositorySystemSession session, LocalArtifactRequest request )
+    {
+        String path = getPathForArtifact( request.getArtifact(), false );
+        File file = new File( getRepository().getBasedir(), path );
+
+        LocalRepositoryIndex.Entry entry = null;
+        try
+        {
+            entry = index.get( path );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Failed to read local repository index: " + e.getMessage() );
+        }
+
+        if ( entry != null && ( !isVerify( session ) || isUnchanged( file, entry ) ) )
+        {
+            LocalArtifactResult result = new LocalArtifactResult( request );
+            result.setFile( file );
+
+            if ( entry.repositories.contains( LOCAL_REPO_ID ) )
+            {
+                result.setAvailable( true );
+                return result;
+            }
+
+            String context = request.getContext();
+            for ( RemoteRepository repository : request.getRepositories() )
+            {
+                if ( entry.repositories.contains( getRepositoryKey( repository, context ) ) )
+                {
+                    result.setAvailable( true );
+                    result.setRepository( repository );
+                    return result;
+                }
+            }
+
+            // not known to the index for the requested repositories, the tracking file has the final word
+        }
+
+        LocalArtifactResult result = super.find( session, request );
+
+        if ( result.isAvailable() )
+        {
+            RemoteRepository repository = result.getRepository();
+            if ( repository == null )
+            {
+                index( path, file, Collections.singleton( LOCAL_REPO_ID ) );
+            }
+            else
+            {
+                index( path, file, Collections.singleton( getRepositoryKey( repository, request.getContext() ) ) );
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void add( RepositorySystemSession session, LocalArtifactRegistration request )
+    {
+        super.add( session, request );
+
+        String path = getPathForLocalArtifact( request.getArtifact() );
+        File file = new File( getRepository().getBasedir(), path );
+
+        if ( request.getRepository() == null )
+        {
+            index( path, file, Collections.singleton( LOCAL_REPO_ID ) );
+        }
+        else
+        {
+            index( path, file, getRepositoryKeys( request.getRepository(), request.getContexts() ) );
+        }
+    }
+
+    private void index( String path, File file, Collection<String> repositories )
+    {
+        long modified = file.lastModified();
+        if ( modified == 0 || repositories.isEmpty() )
+        {
+            return;
+        }
+        try
+        {
+            index.put( path, file.length(), modified, repositories );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Failed to update local repository index: " + e.getMessage() );
+        }
+    }
+
+    private boolean isVerify( RepositorySystemSession session )
+    {
+        return session == null || ConfigUtils.getBoolean( session, true, "aether.localRepository.index.verify" );
+    }
+
+    private boolean isUnchanged( File file, LocalRepositoryIndex.Entry entry )
+    {
+        return file.lastModified() == entry.modified && file.length() == entry.size;
+    }
+
+}
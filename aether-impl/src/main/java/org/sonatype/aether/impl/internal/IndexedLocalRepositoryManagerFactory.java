@@ -0,0 +1,44 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.repository.LocalRepositoryManager;
+import org.sonatype.aether.repository.NoLocalRepositoryManagerException;
+import org.sonatype.aether.spi.localrepo.LocalRepositoryManagerFactory;
+
+/**
+ * Creates {@link IndexedLocalRepositoryManager}s for repository type {@code "indexed"}. The index is opt-in, the
+ * repository layout itself stays compatible with the {@code "default"} type.
+ */
+@Component( role = LocalRepositoryManagerFactory.class, hint = "indexed" )
+public class IndexedLocalRepositoryManagerFactory
+    implements LocalRepositoryManagerFactory
+{
+
+    public LocalRepositoryManager newInstance( LocalRepository repository )
+        throws NoLocalRepositoryManagerException
+    {
+        if ( "indexed".equals( repository.getContentType() ) )
+        {
+            return new IndexedLocalRepositoryManager( repository.getBasedir() );
+        }
+        else
+        {
+            throw new NoLocalRepositoryManagerException( repository );
+        }
+    }
+
+    public int getPriority()
+    {
+        return 10;
+    }
+
+}
@@ -0,0 +1,378 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An append-only index of the artifacts in a local repository, recording the size, the modification time and the
+ * source repositories of each artifact file. The index is a single file which is read into memory for lookups.
+ * Records appended by other processes are picked up on a lookup miss. Once the file holds mostly superseded records,
+ * the next update rewrites it with one record per artifact and bumps the generation in the file header, which makes
+ * the other processes read the file again from the start. All instances for the same file within one JVM are shared
+ * while in use.
+ */
+final class LocalRepositoryIndex
+{
+
+    private static final int MAGIC = 0x414c5249;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The minimum number of records in the file before it is considered for compaction.
+     */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private static final Map<File, WeakReference<LocalRepositoryIndex>> INDEXES =
+        new HashMap<File, WeakReference<LocalRepositoryIndex>>();
+
+    private final File file;
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private long generation;
+
+    private long position;
+
+    private int records;
+
+    private boolean invalid;
+
+    /**
+     * Gets the index for the specified local repository.
+     *
+     * @param basedir The base directory of the local repository, must not be {@code null}.
+     * @return The index, never {@code null}.
+     */
+    public static LocalRepositoryIndex forRepository( File basedir )
+    {
+        File file = new File( new File( basedir, ".aether" ), "local-repository.index" ).getAbsoluteFile();
+        synchronized ( INDEXES )
+        {
+            WeakReference<LocalRepositoryIndex> ref = INDEXES.get( file );
+            LocalRepositoryIndex index = ( ref != null ) ? ref.get() : null;
+            if ( index == null )
+            {
+                for ( Iterator<WeakReference<LocalRepositoryIndex>> it = INDEXES.values().iterator(); it.hasNext(); )
+                {
+                    if ( it.next().get() == null )
+                    {
+                        it.remove();
+                    }
+                }
+                index = new LocalRepositoryIndex( file );
+                INDEXES.put( file, new WeakReference<LocalRepositoryIndex>( index ) );
+            }
+            return index;
+        }
+    }
+
+    LocalRepositoryIndex( File file )
+    {
+        this.file = file;
+    }
+
+    /**
+     * Looks up the specified artifact path, reading any records appended since the last read if the path is unknown.
+     *
+     * @param path The path of the artifact relative to the repository base directory, must not be {@code null}.
+     * @return The index entry or {@code null} if the path is not indexed.
+     * @throws IOException If the index could not be read.
+     */
+    public synchronized Entry get( String path )
+        throws IOException
+    {
+        Entry entry = entries.get( path );
+        // another instance either appended records (longer file) or compacted the index (shorter file)
+        if ( entry == null && !invalid && file.length() != position )
+        {
+            RandomAccessFile raf = new RandomAccessFile( file, "r" );
+            try
+            {
+                FileChannel channel = raf.getChannel();
+                FileLock lock = channel.lock( 0, Long.MAX_VALUE, true );
+                try
+                {
+                    load( channel );
+                }
+                finally
+                {
+                    lock.release();
+                }
+            }
+            finally
+            {
+                raf.close();
+            }
+            entry = entries.get( path );
+        }
+        return entry;
+    }
+
+    /**
+     * Records the specified artifact file. Nothing is written if the index already holds the same information.
+     *
+     * @param path The path of the artifact relative to the repository base directory, must not be {@code null}.
+     * @param size The size of the artifact file in bytes.
+     * @param modified The modification time of the artifact file.
+     * @param repositories The keys of the repositories the artifact is available from, must not be {@code null}.
+     * @throws IOException If the index could not be updated.
+     */
+    public synchronized void put( String path, long size, long modified, Collection<String> repositories )
+        throws IOException
+    {
+        if ( invalid || isIndexed( path, size, modified, repositories ) )
+        {
+            return;
+        }
+
+        file.getParentFile().mkdirs();
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            FileLock lock = channel.lock();
+            try
+            {
+                if ( channel.size() < HEADER_SIZE )
+                {
+                    writeHeader( channel, System.currentTimeMillis() );
+                }
+
+                load( channel );
+                if ( invalid || isIndexed( path, size, modified, repositories ) )
+                {
+                    return;
+                }
+
+                if ( records >= COMPACT_THRESHOLD && records > 2 * entries.size() )
+                {
+                    merge( path, size, modified, repositories );
+                    compact( channel );
+                    return;
+                }
+
+                if ( channel.size() > position )
+                {
+                    // incomplete record left behind by a crashed process
+                    channel.truncate( position );
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream( 128 );
+                writeRecord( new DataOutputStream( bytes ), path, size, modified, repositories );
+                position += write( channel, ByteBuffer.wrap( bytes.toByteArray() ), position );
+                records++;
+
+                merge( path, size, modified, repositories );
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    private boolean isIndexed( String path, long size, long modified, Collection<String> repositories )
+    {
+        Entry entry = entries.get( path );
+        return entry != null && entry.size == size && entry.modified == modified
+            && entry.repositories.containsAll( repositories );
+    }
+
+    private void writeHeader( FileChannel channel, long generation )
+        throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        header.putInt( MAGIC ).putInt( VERSION ).putLong( generation ).flip();
+        write( channel, header, 0 );
+    }
+
+    private static void writeRecord( DataOutputStream out, String path, long size, long modified,
+                                     Collection<String> repositories )
+        throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( 128 );
+        DataOutputStream body = new DataOutputStream( bytes );
+        body.writeUTF( path );
+        body.writeLong( size );
+        body.writeLong( modified );
+        body.writeShort( repositories.size() );
+        for ( String repository : repositories )
+        {
+            body.writeUTF( repository );
+        }
+        body.close();
+
+        out.writeInt( bytes.size() );
+        bytes.writeTo( out );
+        out.flush();
+    }
+
+    private static int write( FileChannel channel, ByteBuffer buffer, long offset )
+        throws IOException
+    {
+        int length = buffer.remaining();
+        while ( buffer.hasRemaining() )
+        {
+            channel.write( buffer, offset + length - buffer.remaining() );
+        }
+        return length;
+    }
+
+    /**
+     * Rewrites the index file with one record per entry under a new generation.
+     */
+    private void compact( FileChannel channel )
+        throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( entries.size() * 128 );
+        DataOutputStream out = new DataOutputStream( bytes );
+        long gen = Math.max( generation + 1, System.currentTimeMillis() );
+        out.writeInt( MAGIC );
+        out.writeInt( VERSION );
+        out.writeLong( gen );
+        for ( Map.Entry<String, Entry> entry : entries.entrySet() )
+        {
+            Entry e = entry.getValue();
+            writeRecord( out, entry.getKey(), e.size, e.modified, e.repositories );
+        }
+        out.close();
+
+        write( channel, ByteBuffer.wrap( bytes.toByteArray() ), 0 );
+        channel.truncate( bytes.size() );
+
+        generation = gen;
+        position = bytes.size();
+        records = entries.size();
+    }
+
+    private void load( FileChannel channel )
+        throws IOException
+    {
+        long size = channel.size();
+        if ( size < HEADER_SIZE )
+        {
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        while ( header.hasRemaining() && channel.read( header, header.position() ) >= 0 )
+        {
+            // read fully
+        }
+        header.flip();
+        if ( header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION )
+        {
+            // unknown format, leave it alone
+            invalid = true;
+            return;
+        }
+        long gen = header.getLong();
+        if ( position <= 0 || gen != generation )
+        {
+            // new file or compacted by someone else, start over
+            entries.clear();
+            records = 0;
+            generation = gen;
+            position = HEADER_SIZE;
+        }
+        if ( size <= position )
+        {
+            return;
+        }
+
+        // read into the heap rather than mapping the file, a live mapping would prevent truncation on Windows
+        ByteBuffer buffer = ByteBuffer.allocate( (int) Math.min( size - position, Integer.MAX_VALUE ) );
+        while ( buffer.hasRemaining() && channel.read( buffer, position + buffer.position() ) >= 0 )
+        {
+            // read fully
+        }
+        buffer.flip();
+
+        while ( buffer.remaining() >= 4 )
+        {
+            int length = buffer.getInt( buffer.position() );
+            if ( length <= 0 || buffer.remaining() - 4 < length )
+            {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.position( buffer.position() + 4 );
+            buffer.get( body );
+
+            DataInputStream in = new DataInputStream( new ByteArrayInputStream( body ) );
+            String path = in.readUTF();
+            long fileSize = in.readLong();
+            long modified = in.readLong();
+            int count = in.readUnsignedShort();
+            Collection<String> repositories = new HashSet<String>();
+            for ( int i = 0; i < count; i++ )
+            {
+                repositories.add( in.readUTF() );
+            }
+            merge( path, fileSize, modified, repositories );
+
+            position += 4 + length;
+            records++;
+        }
+    }
+
+    private void merge( String path, long size, long modified, Collection<String> repositories )
+    {
+        Set<String> merged = new HashSet<String>( repositories );
+        Entry entry = entries.get( path );
+        if ( entry != null )
+        {
+            merged.addAll( entry.repositories );
+        }
+        entries.put( path, new Entry( size, modified, merged ) );
+    }
+
+    static final class Entry
+    {
+
+        final long size;
+
+        final long modified;
+
+        final Set<String> repositories;
+
+        Entry( long size, long modified, Set<String> repositories )
+        {
+            this.size = size;
+            this.modified = modified;
+            this.repositories = Collections.unmodifiableSet( repositories );
+        }
+
+    }
+
+}
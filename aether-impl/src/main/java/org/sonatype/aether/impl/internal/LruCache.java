@@ -0,0 +1,110 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded cache that evicts the least recently used entries. The entries are spread over independently locked
+ * segments, each of which enforces its share of the maximum size on its own, so concurrent threads rarely contend and
+ * the eviction order only approximates a global LRU order.
+ */
+class LruCache<K, V>
+{
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+
+    @SuppressWarnings( "unchecked" )
+    public LruCache( int maxSize )
+    {
+        int segmentSize = Math.max( 1, ( maxSize + SEGMENTS - 1 ) / SEGMENTS );
+        segments = new Segment[SEGMENTS];
+        for ( int i = 0; i < segments.length; i++ )
+        {
+            segments[i] = new Segment<K, V>( segmentSize );
+        }
+    }
+
+    public V get( K key )
+    {
+        Segment<K, V> segment = segmentFor( key );
+        synchronized ( segment )
+        {
+            return segment.get( key );
+        }
+    }
+
+    public void put( K key, V value )
+    {
+        Segment<K, V> segment = segmentFor( key );
+        synchronized ( segment )
+        {
+            segment.put( key, value );
+        }
+    }
+
+    public void remove( K key )
+    {
+        Segment<K, V> segment = segmentFor( key );
+        synchronized ( segment )
+        {
+            segment.remove( key );
+        }
+    }
+
+    /**
+     * Removes the entry for the specified key only if it still maps to the given value, i.e. leaves alone a value that
+     * another thread put in the meantime.
+     */
+    public void remove( K key, V value )
+    {
+        Segment<K, V> segment = segmentFor( key );
+        synchronized ( segment )
+        {
+            if ( segment.get( key ) == value )
+            {
+                segment.remove( key );
+            }
+        }
+    }
+
+    private Segment<K, V> segmentFor( Object key )
+    {
+        int hash = key.hashCode();
+        hash ^= ( hash >>> 20 ) ^ ( hash >>> 12 );
+        hash ^= ( hash >>> 7 ) ^ ( hash >>> 4 );
+        return segments[hash & ( SEGMENTS - 1 )];
+    }
+
+    static class Segment<K, V>
+        extends LinkedHashMap<K, V>
+    {
+
+        private static final long serialVersionUID = 1;
+
+        private final int maxSize;
+
+        Segment( int maxSize )
+        {
+            super( 16, 0.75f, true );
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<K, V> eldest )
+        {
+            return size() > maxSize;
+        }
+
+    }
+
+}
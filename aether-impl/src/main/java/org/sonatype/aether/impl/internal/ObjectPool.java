@@ -15,29 +15,62 @@ import java.util.WeakHashMap;
 
 /**
  * Pool of immutable object instances, used to avoid excessive memory consumption of (dirty) dependency graph which
- * tends to have many duplicate artifacts/dependencies.
+ * tends to have many duplicate artifacts/dependencies. The pool is shared by all threads using the same session so
+ * its entries are spread over independently locked segments to keep contention low.
  * 
  * @author Benjamin Bentmann
  */
 class ObjectPool<T>
 {
 
-    private final Map<Object, Reference<T>> objects = new WeakHashMap<Object, Reference<T>>( 256 );
+    private static final int SEGMENTS = 16;
 
-    public synchronized T intern( T object )
+    private final Segment<T>[] segments;
+
+    @SuppressWarnings( "unchecked" )
+    public ObjectPool()
     {
-        Reference<T> pooledRef = objects.get( object );
-        if ( pooledRef != null )
+        segments = new Segment[SEGMENTS];
+        for ( int i = 0; i < segments.length; i++ )
         {
-            T pooled = pooledRef.get();
-            if ( pooled != null )
+            segments[i] = new Segment<T>();
+        }
+    }
+
+    public T intern( T object )
+    {
+        return segmentFor( object ).intern( object );
+    }
+
+    private Segment<T> segmentFor( Object object )
+    {
+        int hash = object.hashCode();
+        hash ^= ( hash >>> 20 ) ^ ( hash >>> 12 );
+        hash ^= ( hash >>> 7 ) ^ ( hash >>> 4 );
+        return segments[hash & ( SEGMENTS - 1 )];
+    }
+
+    static class Segment<T>
+    {
+
+        private final Map<Object, Reference<T>> objects = new WeakHashMap<Object, Reference<T>>( 32 );
+
+        public synchronized T intern( T object )
+        {
+            Reference<T> pooledRef = objects.get( object );
+            if ( pooledRef != null )
             {
-                return pooled;
+                T pooled = pooledRef.get();
+                if ( pooled != null )
+                {
+                    return pooled;
+                }
             }
+
+            objects.put( object, new WeakReference<T>( object ) );
+            return object;
         }
 
-        objects.put( object, new WeakReference<T>( object ) );
-        return object;
     }
 
 }
@@ -0,0 +1,926 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileLock;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.Exclusion;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.ArtifactRepository;
+import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.repository.LocalRepositoryManager;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
+import org.sonatype.aether.resolution.ArtifactDescriptorResult;
+import org.sonatype.aether.resolution.VersionRangeRequest;
+import org.sonatype.aether.resolution.VersionRangeResult;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.metadata.DefaultMetadata;
+import org.sonatype.aether.util.version.GenericVersionScheme;
+import org.sonatype.aether.version.InvalidVersionSpecificationException;
+import org.sonatype.aether.version.Version;
+import org.sonatype.aether.version.VersionConstraint;
+import org.sonatype.aether.version.VersionScheme;
+
+/**
+ * A cache of artifact descriptors and version range results that is persisted in the local repository and as such
+ * survives the JVM. Each entry remembers a fingerprint (size and timestamp) of the local files it was derived from,
+ * i.e. the POM of a descriptor along with all files resolved while reading it (parent POMs, imported POMs) and the
+ * {@code maven-metadata*.xml} files of a version range, and is ignored once those files changed or the entry exceeded
+ * its maximum age. As the system and user properties of a session can alter a descriptor (e.g. by activating
+ * profiles), descriptors are additionally keyed by a {@link #newContext(RepositorySystemSession) context} derived from
+ * those properties. Entries are not used for repositories whose update policy is {@code always}. Descriptors obtained
+ * from a workspace or involving repositories with authentication/proxies are never persisted. The cache file is read
+ * once and rewritten after each dependency collection that added entries, keeping only the most recently written
+ * entries, and concurrent writers are serialized via a lock file.
+ *
+ * @see DataPool
+ */
+final class PersistentCollectionCache
+{
+
+    private static final int MAGIC = 0x41434332;
+
+    private static final byte DESCRIPTOR = 1;
+
+    private static final byte CONSTRAINT = 2;
+
+    private static final int NO_REPO = -1;
+
+    private static final int LOCAL_REPO = -2;
+
+    /**
+     * System properties that differ between invocations without affecting the interpretation of a POM.
+     */
+    private static final Set<String> VOLATILE_PROPERTIES =
+        new HashSet<String>( Arrays.asList( "user.dir", "sun.java.command", "maven.multiModuleProjectDirectory",
+                                            "env.PWD", "env.OLDPWD", "env.SHLVL", "env._",
+                                            "env.MAVEN_PROJECTBASEDIR", "env.MAVEN_CMD_LINE_ARGS" ) );
+
+    private final VersionScheme versionScheme = new GenericVersionScheme();
+
+    private final File file;
+
+    private final long maxAge;
+
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries;
+
+    private final Map<String, Entry> added = new LinkedHashMap<String, Entry>();
+
+    public PersistentCollectionCache( File file, long maxAge, int maxEntries )
+    {
+        this.file = file;
+        this.maxAge = maxAge;
+        this.maxEntries = maxEntries;
+        this.entries = read( file );
+        trim( entries );
+    }
+
+    /**
+     * Creates the context for the descriptors read with the specified session, i.e. a digest of the system and user
+     * properties that are visible to the descriptor reader.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @return The context, never {@code null}.
+     */
+    public static String newContext( RepositorySystemSession session )
+    {
+        Map<String, String> properties = new TreeMap<String, String>();
+        for ( Map.Entry<String, String> property : session.getSystemProperties().entrySet() )
+        {
+            if ( !VOLATILE_PROPERTIES.contains( property.getKey() ) )
+            {
+                properties.put( property.getKey(), property.getValue() );
+            }
+        }
+        StringBuilder buffer = new StringBuilder( 4096 );
+        buffer.append( properties ).append( new TreeMap<String, String>( session.getUserProperties() ) );
+
+        try
+        {
+            byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( buffer.toString().getBytes( "UTF-8" ) );
+            StringBuilder hex = new StringBuilder( digest.length * 2 );
+            for ( byte b : digest )
+            {
+                hex.append( Character.forDigit( ( b >> 4 ) & 0x0F, 16 ) ).append( Character.forDigit( b & 0x0F, 16 ) );
+            }
+            return hex.toString();
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            return Integer.toHexString( buffer.toString().hashCode() );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            return Integer.toHexString( buffer.toString().hashCode() );
+        }
+    }
+
+    public synchronized DataPool.Descriptor getDescriptor( RepositorySystemSession session, String context,
+                                                           Artifact artifact, ArtifactDescriptorRequest request )
+    {
+        if ( isAlwaysUpdated( request.getRepositories(), artifact.isSnapshot(), !artifact.isSnapshot() ) )
+        {
+            return null;
+        }
+
+        String key = toKey( artifact, context );
+        Entry entry = entries.get( key );
+        if ( entry == null || entry.type != DESCRIPTOR || !isValid( entry ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            DataInputStream in = new DataInputStream( new ByteArrayInputStream( entry.payload ) );
+            ArtifactDescriptorResult result = new ArtifactDescriptorResult( request );
+            result.setArtifact( readArtifact( in ) );
+            result.setProperties( new HashMap<String, Object>( readProperties( in ) ) );
+            result.setRelocations( readArtifacts( in ) );
+            result.setDependencies( readDependencies( in ) );
+            result.setManagedDependencies( readDependencies( in ) );
+            int repos = in.readInt();
+            for ( int i = 0; i < repos; i++ )
+            {
+                result.addRepository( readRepository( in ) );
+            }
+            return new DataPool.GoodDescriptor( result );
+        }
+        catch ( IOException e )
+        {
+            entries.remove( key );
+            return null;
+        }
+    }
+
+    /**
+     * Persists the specified descriptor.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @param context The context of the descriptor, must not be {@code null}.
+     * @param artifact The artifact whose descriptor was read, must not be {@code null}.
+     * @param result The descriptor to persist, must not be {@code null}.
+     * @param files The files that were resolved while reading the descriptor, must not be {@code null}.
+     */
+    public synchronized void putDescriptor( RepositorySystemSession session, String context, Artifact artifact,
+                                            ArtifactDescriptorResult result, Collection<File> files )
+    {
+        if ( !( result.getRepository() instanceof RemoteRepository )
+            && !( result.getRepository() instanceof LocalRepository ) )
+        {
+            return;
+        }
+
+        File pomFile = getPomFile( session, artifact );
+        if ( !pomFile.isFile() )
+        {
+            return;
+        }
+
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream( 1024 );
+            DataOutputStream out = new DataOutputStream( bytes );
+            writeArtifact( out, result.getArtifact() );
+            Map<String, String> properties = new HashMap<String, String>();
+            for ( Map.Entry<String, Object> property : result.getProperties().entrySet() )
+            {
+                if ( !( property.getValue() instanceof String ) )
+                {
+                    return;
+                }
+                properties.put( property.getKey(), (String) property.getValue() );
+            }
+            writeProperties( out, properties );
+            writeArtifacts( out, result.getRelocations() );
+            writeDependencies( out, result.getDependencies() );
+            writeDependencies( out, result.getManagedDependencies() );
+            out.writeInt( result.getRepositories().size() );
+            for ( RemoteRepository repository : result.getRepositories() )
+            {
+                if ( !writeRepository( out, repository ) )
+                {
+                    return;
+                }
+            }
+            out.flush();
+
+            Collection<File> sources = new ArrayList<File>( files );
+            sources.add( pomFile );
+            put( new Entry( DESCRIPTOR, toKey( artifact, context ), System.currentTimeMillis(),
+                            fingerprint( sources ), bytes.toByteArray() ) );
+        }
+        catch ( IOException e )
+        {
+            // a string exceeding the limit of modified UTF-8, don't persist the entry
+        }
+    }
+
+    public synchronized DataPool.Constraint getConstraint( RepositorySystemSession session,
+                                                           VersionRangeRequest request )
+    {
+        if ( isAlwaysUpdated( request.getRepositories(), true, true ) )
+        {
+            return null;
+        }
+
+        String key = toKey( request );
+        Entry entry = entries.get( key );
+        if ( entry == null || entry.type != CONSTRAINT
+            || !isValid( entry, getMetadataDirectory( session, request.getArtifact() ) ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            DataInputStream in = new DataInputStream( new ByteArrayInputStream( entry.payload ) );
+            VersionRangeResult result = new VersionRangeResult( request );
+            String constraint = readString( in );
+            if ( constraint != null )
+            {
+                result.setVersionConstraint( versionScheme.parseVersionConstraint( constraint ) );
+            }
+            int versions = in.readInt();
+            for ( int i = 0; i < versions; i++ )
+            {
+                Version version = versionScheme.parseVersion( in.readUTF() );
+                int repo = in.readInt();
+                result.addVersion( version );
+                if ( repo == LOCAL_REPO )
+                {
+                    result.setRepository( version, session.getLocalRepository() );
+                }
+                else if ( repo >= 0 && repo < request.getRepositories().size() )
+                {
+                    result.setRepository( version, request.getRepositories().get( repo ) );
+                }
+            }
+            return new DataPool.Constraint( result );
+        }
+        catch ( InvalidVersionSpecificationException e )
+        {
+            entries.remove( key );
+            return null;
+        }
+        catch ( IOException e )
+        {
+            entries.remove( key );
+            return null;
+        }
+    }
+
+    public synchronized void putConstraint( RepositorySystemSession session, VersionRangeResult result )
+    {
+        VersionRangeRequest request = result.getRequest();
+        if ( request == null || result.getVersions().isEmpty() )
+        {
+            return;
+        }
+
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+            DataOutputStream out = new DataOutputStream( bytes );
+            VersionConstraint constraint = result.getVersionConstraint();
+            writeString( out, ( constraint != null ) ? constraint.toString() : null );
+            out.writeInt( result.getVersions().size() );
+            for ( Version version : result.getVersions() )
+            {
+                out.writeUTF( version.toString() );
+                ArtifactRepository repo = result.getRepository( version );
+                if ( repo == null )
+                {
+                    out.writeInt( NO_REPO );
+                }
+                else if ( repo instanceof LocalRepository )
+                {
+                    out.writeInt( LOCAL_REPO );
+                }
+                else
+                {
+                    int index = request.getRepositories().indexOf( repo );
+                    if ( index < 0 )
+                    {
+                        return;
+                    }
+                    out.writeInt( index );
+                }
+            }
+            out.flush();
+
+            File dir = getMetadataDirectory( session, request.getArtifact() );
+            put( new Entry( CONSTRAINT, toKey( request ), System.currentTimeMillis(), fingerprint( dir ),
+                            bytes.toByteArray() ) );
+        }
+        catch ( IOException e )
+        {
+            // a string exceeding the limit of modified UTF-8, don't persist the entry
+        }
+    }
+
+    private void put( Entry entry )
+    {
+        // re-insert to keep the maps ordered by recency of the entries
+        entries.remove( entry.key );
+        entries.put( entry.key, entry );
+        trim( entries );
+        added.remove( entry.key );
+        added.put( entry.key, entry );
+        trim( added );
+    }
+
+    /**
+     * Evicts the oldest entries from the specified map until it complies with the configured maximum size.
+     */
+    private void trim( Map<String, Entry> entries )
+    {
+        if ( maxEntries > 0 )
+        {
+            for ( Iterator<Entry> it = entries.values().iterator(); entries.size() > maxEntries && it.hasNext(); )
+            {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Merges the entries added since the last save into the cache file. Those entries are discarded from the pending
+     * set even if the save fails so that a single unwritable entry cannot break all subsequent saves.
+     * 
+     * @throws IOException If the cache file could not be written.
+     */
+    public synchronized void save()
+        throws IOException
+    {
+        if ( added.isEmpty() )
+        {
+            return;
+        }
+
+        File lockFile = new File( file.getPath() + ".lock" );
+        RandomAccessFile raf = null;
+        FileLock lock = null;
+        try
+        {
+            file.getParentFile().mkdirs();
+            raf = new RandomAccessFile( lockFile, "rw" );
+            lock = raf.getChannel().lock();
+
+            Map<String, Entry> merged = read( file );
+            for ( Entry entry : added.values() )
+            {
+                merged.remove( entry.key );
+                merged.put( entry.key, entry );
+            }
+            trim( merged );
+
+            File tmp = new File( file.getPath() + ".tmp" );
+            write( tmp, merged.values() );
+            if ( !tmp.renameTo( file ) && !( file.delete() && tmp.renameTo( file ) ) )
+            {
+                throw new IOException( "Could not rename " + tmp + " to " + file );
+            }
+        }
+        finally
+        {
+            // the entries remain usable in memory, retrying a failed save would likely just fail again
+            added.clear();
+
+            if ( lock != null )
+            {
+                try
+                {
+                    lock.release();
+                }
+                catch ( IOException e )
+                {
+                    // ignored
+                }
+            }
+            if ( raf != null )
+            {
+                try
+                {
+                    raf.close();
+                }
+                catch ( IOException e )
+                {
+                    // ignored
+                }
+            }
+        }
+    }
+
+    private static boolean isAlwaysUpdated( List<RemoteRepository> repositories, boolean snapshots, boolean releases )
+    {
+        for ( RemoteRepository repository : repositories )
+        {
+            if ( ( snapshots && isAlwaysUpdated( repository.getPolicy( true ) ) )
+                || ( releases && isAlwaysUpdated( repository.getPolicy( false ) ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAlwaysUpdated( RepositoryPolicy policy )
+    {
+        return policy.isEnabled() && RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals( policy.getUpdatePolicy() );
+    }
+
+    private boolean isExpired( Entry entry )
+    {
+        return maxAge >= 0 && System.currentTimeMillis() - entry.timestamp > maxAge;
+    }
+
+    private boolean isValid( Entry entry, File directory )
+    {
+        return !isExpired( entry ) && entry.fingerprint.equals( fingerprint( directory ) );
+    }
+
+    private boolean isValid( Entry entry )
+    {
+        if ( isExpired( entry ) )
+        {
+            return false;
+        }
+        Collection<File> files = new ArrayList<File>();
+        for ( int start = 0, end; start < entry.fingerprint.length(); start = end + 1 )
+        {
+            end = entry.fingerprint.indexOf( '\n', start );
+            if ( end < 0 )
+            {
+                return false;
+            }
+            int path = entry.fingerprint.indexOf( ':', entry.fingerprint.indexOf( ':', start ) + 1 ) + 1;
+            if ( path <= 0 || path > end )
+            {
+                return false;
+            }
+            files.add( new File( entry.fingerprint.substring( path, end ) ) );
+        }
+        return entry.fingerprint.equals( fingerprint( files ) );
+    }
+
+    /**
+     * Creates the fingerprint of the specified files, a line of the form {@code <size>:<timestamp>:<path>} for each
+     * file.
+     */
+    private static String fingerprint( Collection<File> files )
+    {
+        Set<String> paths = new TreeSet<String>();
+        for ( File file : files )
+        {
+            paths.add( file.getAbsolutePath() );
+        }
+        StringBuilder buffer = new StringBuilder( 128 * paths.size() );
+        for ( String path : paths )
+        {
+            File file = new File( path );
+            buffer.append( file.length() ).append( ':' ).append( file.lastModified() ).append( ':' ).append( path );
+            buffer.append( '\n' );
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Creates the fingerprint of the {@code maven-metadata*.xml} files in the specified directory.
+     */
+    private static String fingerprint( File directory )
+    {
+        StringBuilder buffer = new StringBuilder( 128 );
+        File[] files = directory.listFiles();
+        if ( files == null )
+        {
+            files = new File[0];
+        }
+        Arrays.sort( files );
+        for ( File f : files )
+        {
+            String name = f.getName();
+            if ( !( name.startsWith( "maven-metadata" ) && name.endsWith( ".xml" ) ) )
+            {
+                continue;
+            }
+            buffer.append( name ).append( ':' ).append( f.length() ).append( ':' ).append( f.lastModified() );
+            buffer.append( ';' );
+        }
+        return buffer.toString();
+    }
+
+    private static File getPomFile( RepositorySystemSession session, Artifact artifact )
+    {
+        Artifact pom =
+            new DefaultArtifact( artifact.getGroupId(), artifact.getArtifactId(), "", "pom", artifact.getVersion() );
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+        return new File( lrm.getRepository().getBasedir(), lrm.getPathForLocalArtifact( pom ) );
+    }
+
+    private static File getMetadataDirectory( RepositorySystemSession session, Artifact artifact )
+    {
+        Metadata metadata =
+            new DefaultMetadata( artifact.getGroupId(), artifact.getArtifactId(), "maven-metadata.xml",
+                                 Metadata.Nature.RELEASE_OR_SNAPSHOT );
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+        return new File( lrm.getRepository().getBasedir(), lrm.getPathForLocalMetadata( metadata ) ).getParentFile();
+    }
+
+    private static String toKey( Artifact artifact )
+    {
+        StringBuilder buffer = new StringBuilder( 128 );
+        buffer.append( artifact );
+        if ( artifact.getClassifier().length() <= 0 )
+        {
+            buffer.append( ':' );
+        }
+        buffer.append( new TreeMap<String, String>( artifact.getProperties() ) );
+        if ( artifact.getFile() != null )
+        {
+            buffer.append( artifact.getFile().getAbsolutePath() );
+        }
+        return buffer.toString();
+    }
+
+    private static String toKey( Artifact artifact, String context )
+    {
+        return toKey( artifact ) + '#' + context;
+    }
+
+    private static String toKey( VersionRangeRequest request )
+    {
+        StringBuilder buffer = new StringBuilder( 256 );
+        buffer.append( toKey( request.getArtifact() ) );
+        appendRepositories( buffer, request.getRepositories() );
+        return buffer.toString();
+    }
+
+    private static void appendRepositories( StringBuilder buffer, List<RemoteRepository> repositories )
+    {
+        buffer.append( '@' );
+        for ( RemoteRepository repository : repositories )
+        {
+            if ( repository.isRepositoryManager() )
+            {
+                buffer.append( '(' );
+                appendRepositories( buffer, repository.getMirroredRepositories() );
+                buffer.append( ')' );
+            }
+            else
+            {
+                buffer.append( repository.getUrl() );
+                buffer.append( repository.getPolicy( false ).isEnabled() ? "+r" : "-r" );
+                buffer.append( repository.getPolicy( true ).isEnabled() ? "+s" : "-s" );
+            }
+            buffer.append( ',' );
+        }
+    }
+
+    private static Map<String, Entry> read( File file )
+    {
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), 64 * 1024 ) );
+            if ( in.readInt() != MAGIC )
+            {
+                return entries;
+            }
+            int count = in.readInt();
+            for ( int i = 0; i < count; i++ )
+            {
+                byte type = in.readByte();
+                String key = readText( in );
+                long timestamp = in.readLong();
+                String fingerprint = readText( in );
+                byte[] payload = new byte[in.readInt()];
+                in.readFully( payload );
+                entries.put( key, new Entry( type, key, timestamp, fingerprint, payload ) );
+            }
+        }
+        catch ( FileNotFoundException e )
+        {
+            // no cache yet
+        }
+        catch ( IOException e )
+        {
+            // corrupt cache, use what we have read so far and overwrite the rest on next save
+        }
+        finally
+        {
+            close( in );
+        }
+
+        return entries;
+    }
+
+    private void write( File file, Collection<Entry> entries )
+        throws IOException
+    {
+        List<Entry> live = new ArrayList<Entry>( entries.size() );
+        for ( Entry entry : entries )
+        {
+            if ( !isExpired( entry ) )
+            {
+                live.add( entry );
+            }
+        }
+
+        DataOutputStream out =
+            new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ), 64 * 1024 ) );
+        try
+        {
+            out.writeInt( MAGIC );
+            out.writeInt( live.size() );
+            for ( Entry entry : live )
+            {
+                out.writeByte( entry.type );
+                writeText( out, entry.key );
+                out.writeLong( entry.timestamp );
+                writeText( out, entry.fingerprint );
+                out.writeInt( entry.payload.length );
+                out.write( entry.payload );
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private static void close( DataInputStream in )
+    {
+        if ( in != null )
+        {
+            try
+            {
+                in.close();
+            }
+            catch ( IOException e )
+            {
+                // ignored
+            }
+        }
+    }
+
+    /**
+     * Writes the specified string as UTF-8 prefixed with its length. Unlike {@link DataOutputStream#writeUTF(String)},
+     * this is not limited to 64 KB which the fingerprint of a descriptor with many parents can exceed.
+     */
+    private static void writeText( DataOutputStream out, String value )
+        throws IOException
+    {
+        byte[] bytes = value.getBytes( "UTF-8" );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    private static String readText( DataInputStream in )
+        throws IOException
+    {
+        int length = in.readInt();
+        if ( length < 0 )
+        {
+            throw new IOException( "Invalid string length " + length );
+        }
+        byte[] bytes = new byte[length];
+        in.readFully( bytes );
+        return new String( bytes, "UTF-8" );
+    }
+
+    private static void writeString( DataOutputStream out, String value )
+        throws IOException
+    {
+        out.writeBoolean( value != null );
+        if ( value != null )
+        {
+            out.writeUTF( value );
+        }
+    }
+
+    private static String readString( DataInputStream in )
+        throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeProperties( DataOutputStream out, Map<String, String> properties )
+        throws IOException
+    {
+        out.writeInt( properties.size() );
+        for ( Map.Entry<String, String> property : properties.entrySet() )
+        {
+            out.writeUTF( property.getKey() );
+            out.writeUTF( property.getValue() );
+        }
+    }
+
+    private static Map<String, String> readProperties( DataInputStream in )
+        throws IOException
+    {
+        int count = in.readInt();
+        Map<String, String> properties = new HashMap<String, String>( count * 2 );
+        for ( int i = 0; i < count; i++ )
+        {
+            properties.put( in.readUTF(), in.readUTF() );
+        }
+        return properties;
+    }
+
+    private static void writeArtifact( DataOutputStream out, Artifact artifact )
+        throws IOException
+    {
+        out.writeUTF( artifact.getGroupId() );
+        out.writeUTF( artifact.getArtifactId() );
+        out.writeUTF( artifact.getClassifier() );
+        out.writeUTF( artifact.getExtension() );
+        out.writeUTF( artifact.getVersion() );
+        writeProperties( out, artifact.getProperties() );
+        writeString( out, ( artifact.getFile() != null ) ? artifact.getFile().getPath() : null );
+    }
+
+    private static Artifact readArtifact( DataInputStream in )
+        throws IOException
+    {
+        String groupId = in.readUTF();
+        String artifactId = in.readUTF();
+        String classifier = in.readUTF();
+        String extension = in.readUTF();
+        String version = in.readUTF();
+        Map<String, String> properties = readProperties( in );
+        String file = readString( in );
+        return new DefaultArtifact( groupId, artifactId, classifier, extension, version, properties,
+                                    ( file != null ) ? new File( file ) : null );
+    }
+
+    private static void writeArtifacts( DataOutputStream out, List<Artifact> artifacts )
+        throws IOException
+    {
+        out.writeInt( artifacts.size() );
+        for ( Artifact artifact : artifacts )
+        {
+            writeArtifact( out, artifact );
+        }
+    }
+
+    private static List<Artifact> readArtifacts( DataInputStream in )
+        throws IOException
+    {
+        int count = in.readInt();
+        List<Artifact> artifacts = new ArrayList<Artifact>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            artifacts.add( readArtifact( in ) );
+        }
+        return artifacts;
+    }
+
+    private static void writeDependencies( DataOutputStream out, List<Dependency> dependencies )
+        throws IOException
+    {
+        out.writeInt( dependencies.size() );
+        for ( Dependency dependency : dependencies )
+        {
+            writeArtifact( out, dependency.getArtifact() );
+            out.writeUTF( dependency.getScope() );
+            out.writeBoolean( dependency.isOptional() );
+            out.writeInt( dependency.getExclusions().size() );
+            for ( Exclusion exclusion : dependency.getExclusions() )
+            {
+                out.writeUTF( exclusion.getGroupId() );
+                out.writeUTF( exclusion.getArtifactId() );
+                out.writeUTF( exclusion.getClassifier() );
+                out.writeUTF( exclusion.getExtension() );
+            }
+        }
+    }
+
+    private static List<Dependency> readDependencies( DataInputStream in )
+        throws IOException
+    {
+        int count = in.readInt();
+        List<Dependency> dependencies = new ArrayList<Dependency>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            Artifact artifact = readArtifact( in );
+            String scope = in.readUTF();
+            boolean optional = in.readBoolean();
+            int exclusionCount = in.readInt();
+            List<Exclusion> exclusions = new ArrayList<Exclusion>( exclusionCount );
+            for ( int j = 0; j < exclusionCount; j++ )
+            {
+                exclusions.add( new Exclusion( in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF() ) );
+            }
+            dependencies.add( new Dependency( artifact, scope, optional, exclusions ) );
+        }
+        return dependencies;
+    }
+
+    private static boolean writeRepository( DataOutputStream out, RemoteRepository repository )
+        throws IOException
+    {
+        if ( repository.getProxy() != null || repository.getAuthentication() != null
+            || repository.isRepositoryManager() || !repository.getMirroredRepositories().isEmpty() )
+        {
+            return false;
+        }
+        out.writeUTF( repository.getId() );
+        out.writeUTF( repository.getContentType() );
+        out.writeUTF( repository.getUrl() );
+        writePolicy( out, repository.getPolicy( false ) );
+        writePolicy( out, repository.getPolicy( true ) );
+        return true;
+    }
+
+    private static RemoteRepository readRepository( DataInputStream in )
+        throws IOException
+    {
+        RemoteRepository repository = new RemoteRepository( in.readUTF(), in.readUTF(), in.readUTF() );
+        repository.setPolicy( false, readPolicy( in ) );
+        repository.setPolicy( true, readPolicy( in ) );
+        return repository;
+    }
+
+    private static void writePolicy( DataOutputStream out, RepositoryPolicy policy )
+        throws IOException
+    {
+        out.writeBoolean( policy.isEnabled() );
+        out.writeUTF( policy.getUpdatePolicy() );
+        out.writeUTF( policy.getChecksumPolicy() );
+    }
+
+    private static RepositoryPolicy readPolicy( DataInputStream in )
+        throws IOException
+    {
+        return new RepositoryPolicy( in.readBoolean(), in.readUTF(), in.readUTF() );
+    }
+
+    static final class Entry
+    {
+
+        final byte type;
+
+        final String key;
+
+        final long timestamp;
+
+        final String fingerprint;
+
+        final byte[] payload;
+
+        public Entry( byte type, String key, long timestamp, String fingerprint, byte[] payload )
+        {
+            this.type = type;
+            this.key = key;
+            this.timestamp = timestamp;
+            this.fingerprint = fingerprint;
+            this.payload = payload;
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Remembers the results of repository aggregations, such that the many dependency nodes that declare the same
+ * repositories reuse one aggregation instead of computing their own. The cache is stored in the session data. The
+ * input repositories are keyed by value and the mirror, proxy and authentication selectors of the session by
+ * identity, i.e. the cache relies on the selectors not being reconfigured (e.g. via
+ * {@code DefaultMirrorSelector.add()}) once the session is in use.
+ */
+final class RepositoryAggregationCache
+{
+
+    private static final Object KEY = RepositoryAggregationCache.class.getName();
+
+    private static final int MAX_SIZE = 1024;
+
+    private final ConcurrentMap<Key, List<RemoteRepository>> results =
+        new ConcurrentHashMap<Key, List<RemoteRepository>>( 64 );
+
+    /**
+     * Gets the cache for the specified session, creating it if necessary.
+     *
+     * @param session The repository session, must not be {@code null}.
+     * @return The cache or {@code null} if the session cannot hold a cache.
+     */
+    public static RepositoryAggregationCache get( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        if ( data == null )
+        {
+            return null;
+        }
+        Object cache = data.get( KEY );
+        while ( !( cache instanceof RepositoryAggregationCache ) )
+        {
+            Object old = cache;
+            cache = new RepositoryAggregationCache();
+            if ( data.set( KEY, old, cache ) )
+            {
+                break;
+            }
+            cache = data.get( KEY );
+        }
+        return (RepositoryAggregationCache) cache;
+    }
+
+    public static Key newKey( RepositorySystemSession session, List<RemoteRepository> dominantRepositories,
+                              List<RemoteRepository> recessiveRepositories, boolean recessiveIsRaw )
+    {
+        return new Key( session, dominantRepositories, recessiveRepositories, recessiveIsRaw );
+    }
+
+    public List<RemoteRepository> get( Key key )
+    {
+        return results.get( key );
+    }
+
+    /**
+     * Caches the specified aggregation result.
+     *
+     * @return The cached result, an unmodifiable list that is shared with other callers.
+     */
+    public List<RemoteRepository> put( Key key, List<RemoteRepository> result )
+    {
+        List<RemoteRepository> shared = Collections.unmodifiableList( result );
+        if ( results.size() >= MAX_SIZE )
+        {
+            results.clear();
+        }
+        // the caller owns the repositories of the key, take a snapshot
+        List<RemoteRepository> existing = results.putIfAbsent( key.snapshot(), shared );
+        return ( existing != null ) ? existing : shared;
+    }
+
+    static final class Key
+    {
+
+        private final Object mirrorSelector;
+
+        private final Object authSelector;
+
+        private final Object proxySelector;
+
+        private final List<RemoteRepository> dominantRepositories;
+
+        private final List<RemoteRepository> recessiveRepositories;
+
+        private final boolean recessiveIsRaw;
+
+        private final int hashCode;
+
+        Key( RepositorySystemSession session, List<RemoteRepository> dominantRepositories,
+             List<RemoteRepository> recessiveRepositories, boolean recessiveIsRaw )
+        {
+            this( session.getMirrorSelector(), session.getAuthenticationSelector(), session.getProxySelector(),
+                  dominantRepositories, recessiveRepositories, recessiveIsRaw );
+        }
+
+        private Key( Object mirrorSelector, Object authSelector, Object proxySelector,
+                     List<RemoteRepository> dominantRepositories, List<RemoteRepository> recessiveRepositories,
+                     boolean recessiveIsRaw )
+        {
+            this.mirrorSelector = mirrorSelector;
+            this.authSelector = authSelector;
+            this.proxySelector = proxySelector;
+            this.dominantRepositories = dominantRepositories;
+            this.recessiveRepositories = recessiveRepositories;
+            this.recessiveIsRaw = recessiveIsRaw;
+
+            int hash = 17;
+            hash = hash * 31 + System.identityHashCode( mirrorSelector );
+            hash = hash * 31 + System.identityHashCode( authSelector );
+            hash = hash * 31 + System.identityHashCode( proxySelector );
+            hash = hash * 31 + dominantRepositories.hashCode();
+            hash = hash * 31 + recessiveRepositories.hashCode();
+            hash = hash * 31 + ( recessiveIsRaw ? 1 : 0 );
+            hashCode = hash;
+        }
+
+        /**
+         * Copies the repositories of this key such that later changes by the caller don't affect the cached key.
+         */
+        Key snapshot()
+        {
+            return new Key( mirrorSelector, authSelector, proxySelector, copy( dominantRepositories ),
+                            copy( recessiveRepositories ), recessiveIsRaw );
+        }
+
+        private static List<RemoteRepository> copy( List<RemoteRepository> repositories )
+        {
+            List<RemoteRepository> copies = new ArrayList<RemoteRepository>( repositories.size() );
+            for ( RemoteRepository repository : repositories )
+            {
+                RemoteRepository copy = new RemoteRepository( repository );
+                copy.setMirroredRepositories( copy( repository.getMirroredRepositories() ) );
+                copies.add( copy );
+            }
+            return copies;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key that = (Key) obj;
+            return hashCode == that.hashCode && recessiveIsRaw == that.recessiveIsRaw
+                && mirrorSelector == that.mirrorSelector && authSelector == that.authSelector
+                && proxySelector == that.proxySelector && dominantRepositories.equals( that.dominantRepositories )
+                && recessiveRepositories.equals( that.recessiveRepositories );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+    }
+
+}
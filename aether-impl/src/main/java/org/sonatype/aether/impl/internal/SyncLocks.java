@@ -0,0 +1,254 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.sonatype.aether.spi.log.Logger;
+
+/**
+ * The JVM-wide table of the named locks used by the {@link DefaultSyncContextFactory}. Each lock combines a fair
+ * read/write lock for the threads of this JVM with an optional file lock for other processes. The file lock is taken
+ * by the first thread of this JVM that acquires the named lock and released by the last one, in the mode of the first
+ * thread. As a writer only gets hold of the read/write lock once all readers have released the named lock, this mode is
+ * always sufficient for the threads holding the lock. The table itself is striped to reduce contention among threads
+ * working on unrelated locks.
+ */
+final class SyncLocks
+{
+
+    private static final int STRIPES = 32;
+
+    private static final Map<String, Lock>[] TABLE = newTable();
+
+    @SuppressWarnings( "unchecked" )
+    private static Map<String, Lock>[] newTable()
+    {
+        Map<String, Lock>[] table = new Map[STRIPES];
+        for ( int i = 0; i < table.length; i++ )
+        {
+            table[i] = new HashMap<String, Lock>();
+        }
+        return table;
+    }
+
+    private static Map<String, Lock> getStripe( String id )
+    {
+        return TABLE[( id.hashCode() & 0x7FFFFFFF ) % STRIPES];
+    }
+
+    /**
+     * Gets the named lock for the specified identifier, creating it if necessary. Each reservation must be matched by a
+     * call to {@link #unreserve(Lock)} once the caller is done with the lock.
+     *
+     * @param id The identifier of the lock, must not be {@code null}.
+     * @param file The file to lock for other processes, may be {@code null} to synchronize within this JVM only.
+     * @return The lock, never {@code null}.
+     */
+    public static Lock reserve( String id, File file )
+    {
+        Map<String, Lock> stripe = getStripe( id );
+        synchronized ( stripe )
+        {
+            Lock lock = stripe.get( id );
+            if ( lock == null )
+            {
+                lock = new Lock( id, file );
+                stripe.put( id, lock );
+            }
+            lock.refs++;
+            return lock;
+        }
+    }
+
+    /**
+     * Gives up a reservation of the specified lock, discarding the lock once it is no longer reserved.
+     *
+     * @param lock The lock to give up, must not be {@code null}.
+     */
+    public static void unreserve( Lock lock )
+    {
+        Map<String, Lock> stripe = getStripe( lock.id );
+        synchronized ( stripe )
+        {
+            if ( --lock.refs <= 0 )
+            {
+                stripe.remove( lock.id );
+            }
+        }
+    }
+
+    static final class Lock
+    {
+
+        final String id;
+
+        final File file;
+
+        final ReentrantReadWriteLock rw = new ReentrantReadWriteLock( true );
+
+        int refs;
+
+        private int holders;
+
+        private RandomAccessFile raf;
+
+        private FileLock fileLock;
+
+        Lock( String id, File file )
+        {
+            this.id = id;
+            this.file = file;
+        }
+
+        /**
+         * Acquires this lock for the calling thread.
+         *
+         * @return {@code true} if the lock was acquired, {@code false} if the deadline passed.
+         */
+        public boolean lock( boolean shared, long deadline, Logger logger )
+            throws InterruptedException
+        {
+            java.util.concurrent.locks.Lock lock = shared ? rw.readLock() : rw.writeLock();
+            long timeout = Math.max( 0, deadline - System.currentTimeMillis() );
+            if ( !lock.tryLock( timeout, TimeUnit.MILLISECONDS ) )
+            {
+                return false;
+            }
+            boolean locked = false;
+            try
+            {
+                locked = lockFile( shared, deadline, logger );
+            }
+            finally
+            {
+                if ( !locked )
+                {
+                    lock.unlock();
+                }
+            }
+            return locked;
+        }
+
+        /**
+         * Releases this lock for the calling thread.
+         */
+        public void unlock( boolean shared )
+        {
+            unlockFile();
+            if ( shared )
+            {
+                rw.readLock().unlock();
+            }
+            else
+            {
+                rw.writeLock().unlock();
+            }
+        }
+
+        private synchronized boolean lockFile( boolean shared, long deadline, Logger logger )
+            throws InterruptedException
+        {
+            if ( file == null || holders > 0 )
+            {
+                holders++;
+                return true;
+            }
+
+            try
+            {
+                file.getParentFile().mkdirs();
+                raf = new RandomAccessFile( file, "rw" );
+                while ( true )
+                {
+                    try
+                    {
+                        fileLock = raf.getChannel().tryLock( 0, Long.MAX_VALUE, shared );
+                    }
+                    catch ( OverlappingFileLockException e )
+                    {
+                        // held via another channel of this JVM, e.g. by a copy of this class in another class loader
+                        fileLock = null;
+                    }
+                    if ( fileLock != null )
+                    {
+                        break;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if ( remaining <= 0 )
+                    {
+                        close();
+                        return false;
+                    }
+                    Thread.sleep( Math.min( 100, remaining ) );
+                }
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Failed to lock " + file + ", synchronizing within this JVM only: " + e.getMessage() );
+                close();
+            }
+            catch ( InterruptedException e )
+            {
+                close();
+                throw e;
+            }
+
+            holders++;
+            return true;
+        }
+
+        private synchronized void unlockFile()
+        {
+            if ( file != null && --holders <= 0 )
+            {
+                holders = 0;
+                close();
+            }
+        }
+
+        private void close()
+        {
+            if ( fileLock != null )
+            {
+                try
+                {
+                    fileLock.release();
+                }
+                catch ( IOException e )
+                {
+                    // closing the file releases the lock as well
+                }
+                fileLock = null;
+            }
+            if ( raf != null )
+            {
+                try
+                {
+                    raf.close();
+                }
+                catch ( IOException e )
+                {
+                    // irrelevant
+                }
+                raf = null;
+            }
+        }
+
+    }
+
+}
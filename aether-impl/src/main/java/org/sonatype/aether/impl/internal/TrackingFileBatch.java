@@ -0,0 +1,180 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.sonatype.aether.RepositorySystemSession;
+
+/**
+ * Collects the updates to resolution tracking files during a batch operation like the resolution of several artifacts
+ * and writes them out with a single locked update per tracking file when the batch ends. The batch is bound to the
+ * thread that began it such that the local repository manager can find it, pending updates are visible to its
+ * lookups. Concurrent operations of the same session each use their own batch. Worker threads of the operation need
+ * to be bound to the batch explicitly via {@link #bind(Runnable)}, updates from other threads are written directly.
+ */
+final class TrackingFileBatch
+{
+
+    private static final ThreadLocal<TrackingFileBatch> CURRENT = new ThreadLocal<TrackingFileBatch>();
+
+    private final RepositorySystemSession session;
+
+    private final Map<File, Pending> pending = new LinkedHashMap<File, Pending>();
+
+    private boolean closed;
+
+    private TrackingFileBatch( RepositorySystemSession session )
+    {
+        this.session = session;
+    }
+
+    /**
+     * Starts a new batch for the specified session on the calling thread unless one is already in progress there.
+     *
+     * @param session The repository session, must not be {@code null}.
+     * @return The new batch which must be ended by the caller or {@code null} if a batch is already in progress.
+     */
+    public static TrackingFileBatch begin( RepositorySystemSession session )
+    {
+        if ( CURRENT.get() != null )
+        {
+            return null;
+        }
+        TrackingFileBatch batch = new TrackingFileBatch( session );
+        CURRENT.set( batch );
+        return batch;
+    }
+
+    /**
+     * Gets the batch currently in progress on the calling thread for the specified session.
+     *
+     * @param session The repository session, may be {@code null}.
+     * @return The batch in progress or {@code null} if none.
+     */
+    public static TrackingFileBatch get( RepositorySystemSession session )
+    {
+        TrackingFileBatch batch = CURRENT.get();
+        return ( batch != null && batch.session == session ) ? batch : null;
+    }
+
+    /**
+     * Wraps the specified task such that this batch is in progress on the thread running the task.
+     *
+     * @param task The task to wrap, must not be {@code null}.
+     * @return The wrapped task, never {@code null}.
+     */
+    public Runnable bind( final Runnable task )
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                TrackingFileBatch previous = CURRENT.get();
+                CURRENT.set( TrackingFileBatch.this );
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    if ( previous != null )
+                    {
+                        CURRENT.set( previous );
+                    }
+                    else
+                    {
+                        CURRENT.remove();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Queues the specified updates to a tracking file.
+     *
+     * @return {@code true} if the updates were queued, {@code false} if the batch has already ended and the caller
+     *         needs to write the updates itself.
+     */
+    public synchronized boolean add( TrackingFileManager manager, File file, Map<String, String> updates )
+    {
+        if ( closed )
+        {
+            return false;
+        }
+        Pending p = pending.get( file );
+        if ( p == null )
+        {
+            p = new Pending( manager );
+            pending.put( file, p );
+        }
+        p.updates.putAll( updates );
+        return true;
+    }
+
+    /**
+     * Applies the queued updates for a tracking file to the properties read from it.
+     */
+    public synchronized void apply( File file, Properties props )
+    {
+        Pending p = pending.get( file );
+        if ( p != null )
+        {
+            for ( Map.Entry<String, String> update : p.updates.entrySet() )
+            {
+                if ( update.getValue() == null )
+                {
+                    props.remove( update.getKey() );
+                }
+                else
+                {
+                    props.setProperty( update.getKey(), update.getValue() );
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends this batch and writes the queued updates. Must be called by the thread that began the batch.
+     */
+    public synchronized void end()
+    {
+        if ( CURRENT.get() == this )
+        {
+            CURRENT.remove();
+        }
+        closed = true;
+
+        for ( Map.Entry<File, Pending> entry : pending.entrySet() )
+        {
+            Pending p = entry.getValue();
+            p.manager.update( entry.getKey(), p.updates );
+        }
+        pending.clear();
+    }
+
+    static final class Pending
+    {
+
+        final TrackingFileManager manager;
+
+        final Map<String, String> updates = new LinkedHashMap<String, String>();
+
+        Pending( TrackingFileManager manager )
+        {
+            this.manager = manager;
+        }
+
+    }
+
+}
@@ -18,6 +18,8 @@ import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
@@ -25,13 +27,41 @@ import org.sonatype.aether.spi.log.Logger;
 import org.sonatype.aether.spi.log.NullLogger;
 
 /**
- * Manages potentially concurrent accesses to a properties file.
+ * Manages potentially concurrent accesses to a properties file. Parsed files are cached for the lifetime of the JVM and
+ * reused as long as their size and modification time are unchanged.
  * 
  * @author Benjamin Bentmann
  */
 class TrackingFileManager
 {
 
+    /**
+     * The coarsest timestamp resolution among common file systems, a file modified within this window could be changed
+     * again without a visible change of its timestamp and is therefore not cached.
+     */
+    private static final long MTIME_GRANULARITY = 2000;
+
+    private static final int MAX_CACHED_FILES = 4096;
+
+    private static final LruCache<String, Snapshot> CACHE = new LruCache<String, Snapshot>( MAX_CACHED_FILES );
+
+    private static final Object[] LOCKS = new Object[256];
+
+    static
+    {
+        for ( int i = 0; i < LOCKS.length; i++ )
+        {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    /**
+     * Canonical paths indexed by absolute path, saves the file system calls to resolve the canonical path each time.
+     * The least recently used paths are evicted. <em>Note:</em> If a symlink along a cached path is re-pointed while
+     * the JVM runs, the cached canonical path is stale until evicted.
+     */
+    private static final LruCache<String, String> CANONICAL_PATHS = new LruCache<String, String>( MAX_CACHED_FILES );
+
     private Logger logger = NullLogger.INSTANCE;
 
     public TrackingFileManager setLogger( Logger logger )
@@ -42,7 +72,18 @@ class TrackingFileManager
 
     public Properties read( File file )
     {
-        synchronized ( getLock( file ) )
+        String path = getPath( file );
+
+        long length = file.length();
+        long modified = file.lastModified();
+
+        Properties cached = getCached( path, length, modified );
+        if ( cached != null )
+        {
+            return cached;
+        }
+
+        synchronized ( getLock( path ) )
         {
             FileLock lock = null;
             FileInputStream stream = null;
@@ -60,6 +101,8 @@ class TrackingFileManager
                 Properties props = new Properties();
                 props.load( stream );
 
+                putCached( path, length, modified, props );
+
                 return props;
             }
             catch ( IOException e )
@@ -80,8 +123,12 @@ class TrackingFileManager
     {
         Properties props = new Properties();
 
-        synchronized ( getLock( file ) )
+        String path = getPath( file );
+
+        synchronized ( getLock( path ) )
         {
+            invalidate( path );
+
             File directory = file.getParentFile();
             if ( !directory.exists() && !directory.mkdirs() )
             {
@@ -145,6 +192,38 @@ class TrackingFileManager
         return props;
     }
 
+    private static Properties getCached( String path, long length, long modified )
+    {
+        Snapshot snapshot = CACHE.get( path );
+        if ( snapshot == null )
+        {
+            return null;
+        }
+        if ( snapshot.length != length || snapshot.modified != modified )
+        {
+            CACHE.remove( path, snapshot );
+            return null;
+        }
+        // the snapshot is immutable, i.e. the copy needs no lock
+        Properties props = new Properties();
+        props.putAll( snapshot.props );
+        return props;
+    }
+
+    private static void putCached( String path, long length, long modified, Properties props )
+    {
+        if ( modified <= 0 || modified > System.currentTimeMillis() - MTIME_GRANULARITY )
+        {
+            return;
+        }
+        CACHE.put( path, new Snapshot( length, modified, props ) );
+    }
+
+    private static void invalidate( String path )
+    {
+        CACHE.remove( path );
+    }
+
     private void release( FileLock lock, File file )
     {
         if ( lock != null )
@@ -175,22 +254,39 @@ class TrackingFileManager
         }
     }
 
-    private Object getLock( File file )
+    String getPath( File file )
+    {
+        String absolute = file.getAbsolutePath();
+
+        String canonical = CANONICAL_PATHS.get( absolute );
+        if ( canonical == null )
+        {
+            try
+            {
+                canonical = file.getCanonicalPath();
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Failed to canonicalize path " + file + ": " + e.getMessage() );
+                return absolute;
+            }
+            CANONICAL_PATHS.put( absolute, canonical );
+        }
+
+        return canonical;
+    }
+
+    Object getLock( String path )
     {
         /*
          * NOTE: Locks held by one JVM must not overlap and using the canonical path is our best bet, still another
          * piece of code might have locked the same file (unlikely though) or the canonical path fails to capture file
-         * identity sufficiently as is the case with Java 1.6 and symlinks on Windows.
+         * identity sufficiently as is the case with Java 1.6 and symlinks on Windows. Unrelated files may share a lock
+         * stripe which merely serializes their short accesses.
          */
-        try
-        {
-            return file.getCanonicalPath().intern();
-        }
-        catch ( IOException e )
-        {
-            logger.warn( "Failed to canonicalize path " + file + ": " + e.getMessage() );
-            return file.getAbsolutePath().intern();
-        }
+        int hash = path.hashCode();
+        hash ^= ( hash >>> 16 );
+        return LOCKS[hash & ( LOCKS.length - 1 )];
     }
 
     private FileLock lock( FileChannel channel, long size, boolean shared )
@@ -230,4 +326,22 @@ class TrackingFileManager
         return lock;
     }
 
+    static final class Snapshot
+    {
+
+        final long length;
+
+        final long modified;
+
+        final Map<Object, Object> props;
+
+        Snapshot( long length, long modified, Properties props )
+        {
+            this.length = length;
+            this.modified = modified;
+            this.props = Collections.unmodifiableMap( new HashMap<Object, Object>( props ) );
+        }
+
+    }
+
 }
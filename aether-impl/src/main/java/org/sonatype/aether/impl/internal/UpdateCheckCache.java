@@ -0,0 +1,173 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.SessionData;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Remembers the update checks that found an item to be missing locally without requiring a remote check, such that
+ * repeated checks for the same item within a session can be answered without reading the touch files again. Entries
+ * for an item are discarded when the item is touched. The cache is stored in the session data.
+ */
+final class UpdateCheckCache
+{
+
+    private static final Object KEY = UpdateCheckCache.class.getName();
+
+    private final ConcurrentMap<File, ConcurrentMap<Key, Result>> results =
+        new ConcurrentHashMap<File, ConcurrentMap<Key, Result>>( 256 );
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Gets the cache for the specified session.
+     *
+     * @param session The repository session, must not be {@code null}.
+     * @param create {@code true} to create the cache if the session has none yet, {@code false} otherwise.
+     * @return The cache or {@code null} if the session has none and {@code create} is {@code false} or the session
+     *         cannot hold a cache.
+     */
+    public static UpdateCheckCache get( RepositorySystemSession session, boolean create )
+    {
+        SessionData data = session.getData();
+        if ( data == null )
+        {
+            return null;
+        }
+        Object cache = data.get( KEY );
+        while ( create && !( cache instanceof UpdateCheckCache ) )
+        {
+            Object old = cache;
+            cache = new UpdateCheckCache();
+            if ( data.set( KEY, old, cache ) )
+            {
+                break;
+            }
+            cache = data.get( KEY );
+        }
+        return ( cache instanceof UpdateCheckCache ) ? (UpdateCheckCache) cache : null;
+    }
+
+    public Result get( File file, RemoteRepository repository, String policy )
+    {
+        Map<Key, Result> fileResults = results.get( file );
+        Result result = ( fileResults != null ) ? fileResults.get( new Key( repository, policy ) ) : null;
+        if ( result != null )
+        {
+            hits.incrementAndGet();
+        }
+        else
+        {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    public void put( File file, RemoteRepository repository, String policy, Result result )
+    {
+        ConcurrentMap<Key, Result> fileResults = results.get( file );
+        if ( fileResults == null )
+        {
+            fileResults = new ConcurrentHashMap<Key, Result>( 4 );
+            ConcurrentMap<Key, Result> existing = results.putIfAbsent( file, fileResults );
+            if ( existing != null )
+            {
+                fileResults = existing;
+            }
+        }
+        fileResults.put( new Key( repository, policy ), result );
+    }
+
+    public void invalidate( File file )
+    {
+        results.remove( file );
+    }
+
+    /**
+     * Gets the number of update checks answered from this cache, i.e. the number of avoided disk accesses.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of update checks that were not cached and had to consult the local repository.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    static final class Result
+    {
+
+        final String error;
+
+        Result( String error )
+        {
+            this.error = error;
+        }
+
+    }
+
+    static final class Key
+    {
+
+        private final RemoteRepository repository;
+
+        private final String policy;
+
+        private final int hashCode;
+
+        Key( RemoteRepository repository, String policy )
+        {
+            this.repository = repository;
+            this.policy = ( policy != null ) ? policy : "";
+
+            int hash = 17;
+            hash = hash * 31 + repository.hashCode();
+            hash = hash * 31 + this.policy.hashCode();
+            hashCode = hash;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key that = (Key) obj;
+            return repository.equals( that.repository ) && policy.equals( that.policy );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+    }
+
+}
@@ -13,6 +13,7 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 import org.sonatype.aether.RepositorySystem;
 import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.StreamingRepositorySystem;
 import org.sonatype.aether.impl.internal.DefaultServiceLocator;
 import org.sonatype.aether.resolution.ArtifactDescriptorException;
 import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
@@ -40,6 +41,7 @@ public class DefaultServiceLocatorTest
 
         RepositorySystem repoSys = locator.getService( RepositorySystem.class );
         assertNotNull( repoSys );
+        assertTrue( repoSys instanceof StreamingRepositorySystem );
     }
 
     public static class StubArtifactDescriptorReader
@@ -12,11 +12,15 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -39,12 +43,14 @@ import org.sonatype.aether.repository.WorkspaceReader;
 import org.sonatype.aether.repository.WorkspaceRepository;
 import org.sonatype.aether.resolution.ArtifactRequest;
 import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResolutionListener;
 import org.sonatype.aether.resolution.ArtifactResult;
 import org.sonatype.aether.resolution.VersionRequest;
 import org.sonatype.aether.resolution.VersionResolutionException;
 import org.sonatype.aether.resolution.VersionResult;
 import org.sonatype.aether.spi.connector.ArtifactDownload;
 import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
 import org.sonatype.aether.spi.log.NullLogger;
 import org.sonatype.aether.test.impl.RecordingRepositoryListener;
 import org.sonatype.aether.test.impl.RecordingRepositoryListener.EventWrapper;
@@ -56,6 +62,7 @@ import org.sonatype.aether.test.util.impl.StubArtifact;
 import org.sonatype.aether.transfer.ArtifactNotFoundException;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.util.artifact.ArtifactProperties;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
 
 /**
  * @author Benjamin Hanzelmann
@@ -807,4 +814,294 @@ public class DefaultArtifactResolverTest
         assertEquals( artifact, resolved );
     }
 
+    @Test
+    public void testConcurrentDownloadsKeepRepositoryPriority()
+        throws ArtifactResolutionException
+    {
+        final RemoteRepository repo1 = new RemoteRepository( "repo1", "default", "file:///repo1" );
+        final RemoteRepository repo2 = new RemoteRepository( "repo2", "default", "file:///repo2" );
+
+        final Artifact a1 = new StubArtifact( "gid", "a1", "", "ext", "ver" );
+        final Artifact a2 = new StubArtifact( "gid", "a2", "", "ext", "ver" );
+        final Artifact a3 = new StubArtifact( "gid", "a3", "", "ext", "ver" );
+
+        final Map<String, List<Artifact>> hosted = new HashMap<String, List<Artifact>>();
+        hosted.put( repo1.getUrl(), Arrays.asList( a1, a2 ) );
+        hosted.put( repo2.getUrl(), Arrays.asList( a3 ) );
+
+        final Map<String, RecordingRepositoryConnector> connectors =
+            new HashMap<String, RecordingRepositoryConnector>();
+        for ( final String url : hosted.keySet() )
+        {
+            connectors.put( url, new RecordingRepositoryConnector()
+            {
+
+                @Override
+                public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                                 Collection<? extends MetadataDownload> metadataDownloads )
+                {
+                    super.get( artifactDownloads, metadataDownloads );
+                    for ( ArtifactDownload download : artifactDownloads )
+                    {
+                        if ( !hosted.get( url ).contains( download.getArtifact() ) )
+                        {
+                            download.setException( new ArtifactNotFoundException( download.getArtifact(), null ) );
+                        }
+                    }
+                }
+
+            } );
+        }
+
+        resolver.setVersionResolver( new VersionResolver()
+        {
+
+            public VersionResult resolveVersion( RepositorySystemSession session, VersionRequest request )
+                throws VersionResolutionException
+            {
+                return new VersionResult( request ).setVersion( request.getArtifact().getVersion() );
+            }
+
+        } );
+        resolver.setRemoteRepositoryManager( new StubRemoteRepositoryManager()
+        {
+
+            @Override
+            public RepositoryConnector getRepositoryConnector( RepositorySystemSession session,
+                                                               RemoteRepository repository )
+            {
+                return connectors.get( repository.getUrl() );
+            }
+
+        } );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.artifactResolver.threads", 2 );
+        session.setConfigProperties( config );
+
+        List<ArtifactRequest> requests =
+            Arrays.asList( new ArtifactRequest( a1, Arrays.asList( repo1, repo2 ), "" ),
+                           new ArtifactRequest( a2, Arrays.asList( repo2, repo1 ), "" ),
+                           new ArtifactRequest( a3, Arrays.asList( repo1, repo2 ), "" ) );
+        List<ArtifactResult> results = resolver.resolveArtifacts( session, requests );
+
+        assertEquals( repo1, results.get( 0 ).getRepository() );
+        assertEquals( repo1, results.get( 1 ).getRepository() );
+        assertEquals( repo2, results.get( 2 ).getRepository() );
+
+        connectors.get( repo1.getUrl() ).setExpectGet( a1, a3, a2 );
+        connectors.get( repo1.getUrl() ).assertSeenExpected();
+        connectors.get( repo2.getUrl() ).setExpectGet( a2, a3 );
+        connectors.get( repo2.getUrl() ).assertSeenExpected();
+    }
+
+    @Test
+    public void testConcurrentChainsDoNotDownloadSameFileAtOnce()
+        throws ArtifactResolutionException
+    {
+        final RemoteRepository repo1 = new RemoteRepository( "repo1", "default", "file:///repo1" );
+        final RemoteRepository repo2 = new RemoteRepository( "repo2", "default", "file:///repo2" );
+
+        final Set<File> inflight = new HashSet<File>();
+        final List<File> overlaps = Collections.synchronizedList( new ArrayList<File>() );
+        connector = new RecordingRepositoryConnector()
+        {
+
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                for ( ArtifactDownload download : artifactDownloads )
+                {
+                    synchronized ( inflight )
+                    {
+                        if ( !inflight.add( download.getFile() ) )
+                        {
+                            overlaps.add( download.getFile() );
+                        }
+                    }
+                }
+                try
+                {
+                    Thread.sleep( 100 );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+                super.get( artifactDownloads, metadataDownloads );
+                for ( ArtifactDownload download : artifactDownloads )
+                {
+                    synchronized ( inflight )
+                    {
+                        inflight.remove( download.getFile() );
+                    }
+                }
+            }
+
+        };
+        remoteRepositoryManager.setConnector( connector );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.artifactResolver.threads", 2 );
+        session.setConfigProperties( config );
+
+        List<ArtifactRequest> requests =
+            Arrays.asList( new ArtifactRequest( artifact, Arrays.asList( repo1, repo2 ), "" ),
+                           new ArtifactRequest( artifact, Arrays.asList( repo2, repo1 ), "" ) );
+        List<ArtifactResult> results = resolver.resolveArtifacts( session, requests );
+
+        assertEquals( Collections.emptyList(), overlaps );
+        assertEquals( repo1, results.get( 0 ).getRepository() );
+        assertEquals( repo2, results.get( 1 ).getRepository() );
+    }
+
+    @Test
+    public void testResultsAreReportedAsSoonAsTheyAreFinal()
+        throws IOException
+    {
+        final Artifact missing = new StubArtifact( "gid", "missing", "", "ext", "ver" );
+        final boolean[] batchDone = { false };
+        connector = new RecordingRepositoryConnector()
+        {
+
+            @Override
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                for ( ArtifactDownload download : artifactDownloads )
+                {
+                    if ( download.getArtifact().equals( missing ) )
+                    {
+                        download.setException( new ArtifactNotFoundException( missing, null ) );
+                    }
+                }
+                super.get( artifactDownloads, metadataDownloads );
+                batchDone[0] = true;
+            }
+
+        };
+        remoteRepositoryManager.setConnector( connector );
+
+        File tmpFile = TestFileUtils.createTempFile( "tmp" );
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put( ArtifactProperties.LOCAL_PATH, tmpFile.getAbsolutePath() );
+        Artifact local = new StubArtifact( "gid", "local", "", "ext", "ver" ).setProperties( properties );
+
+        RemoteRepository repo = new RemoteRepository( "id", "default", "file:///" );
+        List<ArtifactRequest> requests =
+            Arrays.asList( new ArtifactRequest( artifact, Arrays.asList( repo ), "" ),
+                           new ArtifactRequest( missing, Arrays.asList( repo ), "" ),
+                           new ArtifactRequest( local, null, "" ) );
+
+        final List<ArtifactResult> reported = new ArrayList<ArtifactResult>();
+        final List<Boolean> reportedDuringBatch = new ArrayList<Boolean>();
+        try
+        {
+            resolver.resolveArtifacts( session, requests, new ArtifactResolutionListener()
+            {
+                public void artifactResolved( ArtifactResult result )
+                {
+                    reported.add( result );
+                    reportedDuringBatch.add( !batchDone[0] );
+                }
+            } );
+            fail( "expected exception" );
+        }
+        catch ( ArtifactResolutionException e )
+        {
+            assertEquals( 3, reported.size() );
+
+            assertSame( requests.get( 2 ), reported.get( 0 ).getRequest() );
+            assertNotNull( reported.get( 0 ).getArtifact().getFile() );
+
+            assertSame( requests.get( 0 ), reported.get( 1 ).getRequest() );
+            assertNotNull( reported.get( 1 ).getArtifact().getFile() );
+            assertEquals( Boolean.TRUE, reportedDuringBatch.get( 1 ) );
+
+            assertSame( requests.get( 1 ), reported.get( 2 ).getRequest() );
+            assertNull( reported.get( 2 ).getArtifact() );
+            assertFalse( reported.get( 2 ).getExceptions().isEmpty() );
+        }
+    }
+
+    @Test
+    public void testPopulateLocalRepositoryFromSeed()
+        throws Exception
+    {
+        RemoteRepository repo = new RemoteRepository( "id", "default", "file:///" );
+
+        File seedDir = TestFileUtils.createTempDir( "seed" );
+        try
+        {
+            EnhancedLocalRepositoryManager seed = new EnhancedLocalRepositoryManager( seedDir );
+            File seeded = new File( seedDir, seed.getPathForRemoteArtifact( artifact, repo, "" ) );
+            TestFileUtils.write( "seeded", seeded );
+            seed.add( session, new LocalArtifactRegistration( artifact, repo, Arrays.asList( "" ) ) );
+
+            Map<String, Object> config = new HashMap<String, Object>();
+            config.put( "aether.localRepository.seed", seedDir.getAbsolutePath() );
+            config.put( "aether.localRepository.seed.strategy", "hardlink" );
+            session.setConfigProperties( config );
+
+            ArtifactRequest request = new ArtifactRequest( artifact, Collections.singletonList( repo ), "" );
+            ArtifactResult result = resolver.resolveArtifact( session, request );
+
+            assertTrue( result.getExceptions().isEmpty() );
+            File file = result.getArtifact().getFile();
+            assertTrue( file.getAbsolutePath(),
+                        file.getAbsolutePath().startsWith( session.getLocalRepository().getBasedir().getAbsolutePath() ) );
+            TestFileUtils.assertContent( "seeded", file );
+            assertTrue( session.getLocalRepositoryManager().find( session, new LocalArtifactRequest( artifact, null,
+                                                                                                     "" ) ).isAvailable() );
+            connector.assertSeenExpected();
+        }
+        finally
+        {
+            TestFileUtils.delete( seedDir );
+        }
+    }
+
+    @Test
+    public void testNormalizedSnapshotDoesNotModifyHardlinkedSeed()
+        throws Exception
+    {
+        RemoteRepository repo = new RemoteRepository( "id", "default", "file:///" );
+        Artifact snapshot = new DefaultArtifact( "gid:aid:ext:1.0-SNAPSHOT" );
+        Artifact timestamped = new DefaultArtifact( "gid:aid:ext:1.0-20110329.221805-4" );
+
+        File localRepo = session.getLocalRepository().getBasedir();
+        session.setLocalRepositoryManager( new EnhancedLocalRepositoryManager( localRepo ) );
+
+        File seedDir = TestFileUtils.createTempDir( "seed" );
+        try
+        {
+            EnhancedLocalRepositoryManager seed = new EnhancedLocalRepositoryManager( seedDir );
+            File seeded = new File( seedDir, seed.getPathForRemoteArtifact( snapshot, repo, "" ) );
+            TestFileUtils.write( "seeded", seeded );
+            seed.add( session, new LocalArtifactRegistration( snapshot, repo, Arrays.asList( "" ) ) );
+
+            Map<String, Object> config = new HashMap<String, Object>();
+            config.put( "aether.localRepository.seed", seedDir.getAbsolutePath() );
+            config.put( "aether.localRepository.seed.strategy", "hardlink" );
+            session.setConfigProperties( config );
+
+            ArtifactRequest request = new ArtifactRequest( snapshot, Collections.singletonList( repo ), "" );
+            File file = resolver.resolveArtifact( session, request ).getArtifact().getFile();
+            TestFileUtils.assertContent( "seeded", file );
+
+            request = new ArtifactRequest( timestamped, Collections.singletonList( repo ), "" );
+            ArtifactResult result = resolver.resolveArtifact( session, request );
+
+            assertTrue( result.getExceptions().isEmpty() );
+            assertEquals( file, result.getArtifact().getFile() );
+            TestFileUtils.assertContent( timestamped.toString(), file );
+            TestFileUtils.assertContent( "seeded", seeded );
+        }
+        finally
+        {
+            TestFileUtils.delete( seedDir );
+        }
+    }
+
 }
@@ -10,17 +10,22 @@ package org.sonatype.aether.impl.internal;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sonatype.aether.RepositoryEvent.EventType;
 import org.sonatype.aether.RepositorySystemSession;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.collection.CollectRequest;
@@ -33,13 +38,17 @@ import org.sonatype.aether.graph.Dependency;
 import org.sonatype.aether.graph.DependencyNode;
 import org.sonatype.aether.impl.ArtifactDescriptorReader;
 import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.resolution.ArtifactDescriptorException;
 import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
 import org.sonatype.aether.resolution.ArtifactDescriptorResult;
 import org.sonatype.aether.test.impl.TestRepositorySystemSession;
 import org.sonatype.aether.test.util.DependencyGraphParser;
+import org.sonatype.aether.test.util.TestFileUtils;
 import org.sonatype.aether.util.artifact.ArtifactProperties;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
 import org.sonatype.aether.util.graph.manager.ClassicDependencyManager;
+import org.sonatype.aether.util.listener.DefaultRepositoryEvent;
 
 /**
  * @author Benjamin Hanzelmann
@@ -277,6 +286,274 @@ public class DefaultDependencyCollectorTest
         }
     }
 
+    @Test
+    public void testParallelCollectionYieldsSameGraph()
+        throws Exception
+    {
+        DependencyNode root = parser.parse( "expectedSubtreeComparisonResult.txt" );
+        CollectRequest request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.dependencyCollector.threads", 4 );
+        session.setConfigProperties( config );
+
+        CollectResult result = collector.collectDependencies( session, request );
+        assertEqualSubtree( root, result.getRoot() );
+
+        root = parser.parse( "cycle.txt" );
+        request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+        result = collector.collectDependencies( session, request );
+        assertEqualSubtree( root, result.getRoot() );
+    }
+
+    @Test
+    public void testParallelPartialResultOnError()
+        throws IOException
+    {
+        DependencyNode root = parser.parse( "expectedPartialSubtreeOnError.txt" );
+        CollectRequest request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.dependencyCollector.threads", 4 );
+        session.setConfigProperties( config );
+
+        try
+        {
+            collector.collectDependencies( session, request );
+            fail( "expected exception " );
+        }
+        catch ( DependencyCollectionException e )
+        {
+            CollectResult result = e.getResult();
+            assertEquals( 1, result.getExceptions().size() );
+            assertTrue( result.getExceptions().get( 0 ) instanceof ArtifactDescriptorException );
+            assertEqualSubtree( root, result.getRoot() );
+        }
+    }
+
+    @Test
+    public void testPrefetchReadsSameDescriptors()
+        throws Exception
+    {
+        final ArtifactDescriptorReader reader = new IniArtifactDescriptorReader( "artifact-descriptions/" );
+        final List<Artifact> reads = Collections.synchronizedList( new ArrayList<Artifact>() );
+        collector.setArtifactDescriptorReader( new ArtifactDescriptorReader()
+        {
+            public ArtifactDescriptorResult readArtifactDescriptor( RepositorySystemSession session,
+                                                                    ArtifactDescriptorRequest request )
+                throws ArtifactDescriptorException
+            {
+                reads.add( request.getArtifact() );
+                return reader.readArtifactDescriptor( session, request );
+            }
+        } );
+
+        DependencyNode root = parser.parse( "expectedSubtreeComparisonResult.txt" );
+        CollectRequest request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+
+        collector.collectDependencies( session, request );
+        Set<Artifact> serial = new HashSet<Artifact>( reads );
+        int serialReads = reads.size();
+        reads.clear();
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.dependencyCollector.threads", 4 );
+        session.setConfigProperties( config );
+
+        CollectResult result = collector.collectDependencies( session, request );
+        assertEqualSubtree( root, result.getRoot() );
+        assertEquals( serial, new HashSet<Artifact>( reads ) );
+        assertEquals( serialReads, reads.size() );
+    }
+
+    /**
+     * Creates a descriptor reader that records the artifacts it reads and resolves the specified parent POM.
+     */
+    private ArtifactDescriptorReader newPersistableReader( final List<Artifact> reads, final File parentPom )
+    {
+        final ArtifactDescriptorReader reader = new IniArtifactDescriptorReader( "artifact-descriptions/" );
+        return new ArtifactDescriptorReader()
+        {
+            public ArtifactDescriptorResult readArtifactDescriptor( RepositorySystemSession session,
+                                                                    ArtifactDescriptorRequest request )
+                throws ArtifactDescriptorException
+            {
+                reads.add( request.getArtifact() );
+                ArtifactDescriptorResult result = reader.readArtifactDescriptor( session, request );
+                result.setRepository( repository );
+                try
+                {
+                    File pom = getPom( request.getArtifact() );
+                    if ( !pom.exists() )
+                    {
+                        TestFileUtils.write( request.getArtifact().toString(), pom );
+                    }
+                }
+                catch ( IOException e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                if ( parentPom != null && session.getRepositoryListener() != null )
+                {
+                    DefaultRepositoryEvent event = new DefaultRepositoryEvent( EventType.ARTIFACT_RESOLVED, session );
+                    event.setArtifact( new DefaultArtifact( "gid:parent:pom:1" ) ).setFile( parentPom );
+                    session.getRepositoryListener().artifactResolved( event );
+                }
+                return result;
+            }
+        };
+    }
+
+    private void enablePersistentCache()
+    {
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.dependencyCollector.persistentCache", Boolean.TRUE );
+        session.setConfigProperties( config );
+        session.setUpdatePolicy( RepositoryPolicy.UPDATE_POLICY_DAILY );
+    }
+
+    @Test
+    public void testPersistentCacheSkipsDescriptorReading()
+        throws Exception
+    {
+        final List<Artifact> reads = Collections.synchronizedList( new ArrayList<Artifact>() );
+        collector.setArtifactDescriptorReader( newPersistableReader( reads, null ) );
+        enablePersistentCache();
+
+        DependencyNode root = parser.parse( "expectedSubtreeComparisonResult.txt" );
+        CollectRequest request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+
+        collector.collectDependencies( session, request );
+        assertFalse( reads.isEmpty() );
+        Artifact changed = reads.get( reads.size() - 1 );
+        reads.clear();
+
+        CollectResult result = collector.collectDependencies( session, request );
+        assertEqualSubtree( root, result.getRoot() );
+        assertEquals( Collections.singletonList( root.getDependency().getArtifact() ), reads );
+        reads.clear();
+
+        TestFileUtils.write( changed + " (modified)", getPom( changed ) );
+        result = collector.collectDependencies( session, request );
+        assertEqualSubtree( root, result.getRoot() );
+        assertEquals( Arrays.asList( root.getDependency().getArtifact(), changed ), reads );
+    }
+
+    @Test
+    public void testPersistentCacheTracksResolvedParent()
+        throws Exception
+    {
+        File parentPom = new File( session.getLocalRepository().getBasedir(), "gid/parent/1/parent-1.pom" );
+        TestFileUtils.write( "parent", parentPom );
+
+        final List<Artifact> reads = Collections.synchronizedList( new ArrayList<Artifact>() );
+        collector.setArtifactDescriptorReader( newPersistableReader( reads, parentPom ) );
+        enablePersistentCache();
+
+        DependencyNode root = parser.parse( "expectedSubtreeComparisonResult.txt" );
+        CollectRequest request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+
+        collector.collectDependencies( session, request );
+        int initialReads = reads.size();
+        reads.clear();
+
+        collector.collectDependencies( session, request );
+        assertEquals( 1, reads.size() );
+        reads.clear();
+
+        TestFileUtils.write( "parent (modified)", parentPom );
+        CollectResult result = collector.collectDependencies( session, request );
+        assertEqualSubtree( root, result.getRoot() );
+        assertEquals( initialReads, reads.size() );
+    }
+
+    @Test
+    public void testPersistentCacheDependsOnUserProperties()
+        throws Exception
+    {
+        final List<Artifact> reads = Collections.synchronizedList( new ArrayList<Artifact>() );
+        collector.setArtifactDescriptorReader( newPersistableReader( reads, null ) );
+        enablePersistentCache();
+
+        DependencyNode root = parser.parse( "expectedSubtreeComparisonResult.txt" );
+        CollectRequest request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+
+        collector.collectDependencies( session, request );
+        int initialReads = reads.size();
+        reads.clear();
+
+        session.setUserProperties( Collections.singletonMap( "profile", "on" ) );
+        collector.collectDependencies( session, request );
+        assertEquals( initialReads, reads.size() );
+        reads.clear();
+
+        collector.collectDependencies( session, request );
+        assertEquals( 1, reads.size() );
+    }
+
+    @Test
+    public void testPersistentCacheIgnoredForUpdatePolicyAlways()
+        throws Exception
+    {
+        final List<Artifact> reads = Collections.synchronizedList( new ArrayList<Artifact>() );
+        collector.setArtifactDescriptorReader( newPersistableReader( reads, null ) );
+        enablePersistentCache();
+
+        DependencyNode root = parser.parse( "expectedSubtreeComparisonResult.txt" );
+        CollectRequest request = new CollectRequest( root.getDependency(), Arrays.asList( repository ) );
+
+        collector.collectDependencies( session, request );
+        int initialReads = reads.size();
+        reads.clear();
+
+        session.setUpdatePolicy( RepositoryPolicy.UPDATE_POLICY_ALWAYS );
+        collector.collectDependencies( session, request );
+        assertEquals( initialReads, reads.size() );
+    }
+
+    @Test
+    public void testPersistentCacheSavesFingerprintsBeyondModifiedUtf8Limit()
+        throws Exception
+    {
+        enablePersistentCache();
+        Artifact artifact = new DefaultArtifact( "gid:aid:1" );
+        TestFileUtils.write( "pom", getPom( artifact ) );
+
+        StringBuilder name = new StringBuilder( 256 );
+        while ( name.length() < 200 )
+        {
+            name.append( "parent" );
+        }
+        File dir = TestFileUtils.createTempDir();
+        List<File> files = new ArrayList<File>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            files.add( new File( dir, name + "-" + i + ".pom" ) );
+        }
+
+        ArtifactDescriptorRequest request =
+            new ArtifactDescriptorRequest( artifact, Arrays.asList( repository ), null );
+        ArtifactDescriptorResult result = new ArtifactDescriptorResult( request );
+        result.setArtifact( artifact );
+        result.setRepository( repository );
+
+        File file = new File( TestFileUtils.createTempDir(), "collection-cache" );
+        PersistentCollectionCache cache = new PersistentCollectionCache( file, 60 * 60 * 1000, 100 );
+        cache.putDescriptor( session, "ctx", artifact, result, files );
+        cache.save();
+
+        cache = new PersistentCollectionCache( file, 60 * 60 * 1000, 100 );
+        assertNotNull( cache.getDescriptor( session, "ctx", artifact, request ) );
+    }
+
+    private File getPom( Artifact artifact )
+    {
+        Artifact pom =
+            new DefaultArtifact( artifact.getGroupId(), artifact.getArtifactId(), "", "pom", artifact.getVersion() );
+        return new File( session.getLocalRepository().getBasedir(),
+                         session.getLocalRepositoryManager().getPathForLocalArtifact( pom ) );
+    }
+
     @Test
     public void testCollectMultipleDependencies()
         throws IOException, DependencyCollectionException
@@ -13,13 +13,19 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonatype.aether.spi.io.CoarseProgressListener;
+import org.sonatype.aether.spi.io.DigestingProgressListener;
 import org.sonatype.aether.spi.io.FileProcessor.ProgressListener;
 import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.util.ChecksumUtils;
 
 /**
  * @author Benjamin Hanzelmann
@@ -112,4 +118,72 @@ public class DefaultFileProcessorTest
         target.delete();
     }
 
+    @Test
+    public void testCopyWithDigests()
+        throws Exception
+    {
+        File file = TestFileUtils.createTempFile( new byte[1024 * 100], 3 );
+        File target = new File( targetDir, "testCopyWithDigests" );
+        final AtomicInteger progressed = new AtomicInteger();
+        ProgressListener listener = new ProgressListener()
+        {
+            public void progressed( ByteBuffer buffer )
+                throws IOException
+            {
+                progressed.addAndGet( buffer.remaining() );
+            }
+        };
+        DigestingProgressListener digester =
+            new DigestingProgressListener( Arrays.asList( "SHA-1", "MD5", "unknown" ), listener );
+
+        long bytes = fileProcessor.copy( file, target, digester );
+
+        assertEquals( file.length(), bytes );
+        assertEquals( bytes, digester.getBytes() );
+        assertEquals( bytes, progressed.intValue() );
+        Map<String, Object> checksums = digester.getChecksums();
+        Map<String, Object> expected = ChecksumUtils.calc( file, Arrays.asList( "SHA-1", "MD5" ) );
+        assertEquals( expected.get( "SHA-1" ), checksums.get( "SHA-1" ) );
+        assertEquals( expected.get( "MD5" ), checksums.get( "MD5" ) );
+        assertTrue( checksums.get( "unknown" ) instanceof Exception );
+        assertEquals( checksums, digester.getChecksums() );
+
+        file.delete();
+    }
+
+    @Test
+    public void testCoarseProgress()
+        throws IOException
+    {
+        File file = TestFileUtils.createTempFile( new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, 1024 * 1024 + 1 );
+        File target = new File( targetDir, "testCoarseProgress" );
+        final AtomicLong transferred = new AtomicLong();
+        final AtomicInteger chunks = new AtomicInteger();
+        ProgressListener listener = new CoarseProgressListener()
+        {
+            public void progressed( ByteBuffer buffer )
+                throws IOException
+            {
+                fail( "fine-grained progress reported" );
+            }
+
+            public void transferred( long bytes )
+                throws IOException
+            {
+                transferred.addAndGet( bytes );
+                chunks.incrementAndGet();
+            }
+        };
+
+        long bytes = fileProcessor.copy( file, target, listener );
+
+        assertEquals( file.length(), bytes );
+        assertEquals( bytes, transferred.get() );
+        assertTrue( "too many notifications: " + chunks, chunks.intValue() <= 2 );
+        assertEquals( ChecksumUtils.calc( file, Arrays.asList( "SHA-1" ) ),
+                      ChecksumUtils.calc( target, Arrays.asList( "SHA-1" ) ) );
+
+        file.delete();
+    }
+
 }
@@ -14,7 +14,9 @@ import static org.sonatype.aether.test.impl.RecordingRepositoryListener.Type.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
@@ -131,6 +133,30 @@ public class DefaultInstallerTest
         assertTrue( lrm.getArtifactRegistration().contains( artifact ) );
     }
 
+    @Test
+    public void testInstallWithLinkStrategies()
+        throws Exception
+    {
+        File artifactFile =
+            new File( session.getLocalRepositoryManager().getRepository().getBasedir(), localArtifactPath );
+
+        for ( String mode : new String[] { "hardlink", "reflink", "copy" } )
+        {
+            artifactFile.delete();
+
+            Map<String, Object> config = new HashMap<String, Object>();
+            config.put( "aether.installer.strategy", mode );
+            session.setConfigProperties( config );
+
+            request = new InstallRequest();
+            request.addArtifact( artifact );
+            installer.install( session, request );
+
+            TestFileUtils.assertContent( "artifact", artifactFile );
+            assertEquals( mode, artifact.getFile().lastModified(), artifactFile.lastModified() );
+        }
+    }
+
     @Test( expected = InstallationException.class )
     public void testNullArtifactFile()
         throws InstallationException
@@ -27,6 +27,7 @@ import org.sonatype.aether.test.impl.SysoutLogger;
 import org.sonatype.aether.test.impl.TestRepositorySystemSession;
 import org.sonatype.aether.transfer.ArtifactTransferException;
 import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.util.repository.DefaultMirrorSelector;
 
 /**
  * 
@@ -45,6 +46,7 @@ public class DefaultRemoteRepositoryManagerTest
         session = new TestRepositorySystemSession();
         session.setChecksumPolicy( null );
         session.setUpdatePolicy( null );
+        session.setMirrorSelector( new DefaultMirrorSelector() );
         manager = new DefaultRemoteRepositoryManager( new SysoutLogger(), new StubUpdateCheckManager(), null );
     }
 
@@ -156,6 +158,89 @@ public class DefaultRemoteRepositoryManagerTest
         assertEquals( recessive2, result.get( 0 ).getMirroredRepositories().get( 1 ) );
     }
 
+    @Test
+    public void testAggregateReusesResultsWithinSession()
+        throws Exception
+    {
+        RemoteRepository dominant1 = newRepo( "a", "file://", false, "", "" );
+
+        List<RemoteRepository> result1 =
+            manager.aggregateRepositories( session, Arrays.asList( dominant1 ),
+                                           Arrays.asList( newRepo( "b", "http://", true, "", "" ) ), true );
+        List<RemoteRepository> result2 =
+            manager.aggregateRepositories( session, Arrays.asList( dominant1 ),
+                                           Arrays.asList( newRepo( "b", "http://", true, "", "" ) ), true );
+        assertNotSame( result1, result2 );
+        assertEquals( result1, result2 );
+        assertSame( result1.get( 1 ), result2.get( 1 ) );
+        assertEquals( 2, result1.size() );
+
+        List<RemoteRepository> result3 =
+            manager.aggregateRepositories( session, Arrays.asList( dominant1 ),
+                                           Arrays.asList( newRepo( "c", "http://", true, "", "" ) ), true );
+        assertNotSame( result1, result3 );
+        assertEquals( "c", result3.get( 1 ).getId() );
+
+        TestRepositorySystemSession otherSession = new TestRepositorySystemSession();
+        otherSession.setMirrorSelector( session.getMirrorSelector() );
+        List<RemoteRepository> result4 =
+            manager.aggregateRepositories( otherSession, Arrays.asList( dominant1 ),
+                                           Arrays.asList( newRepo( "b", "http://", true, "", "" ) ), true );
+        assertEquals( result1, result4 );
+        assertNotSame( result1.get( 1 ), result4.get( 1 ) );
+    }
+
+    @Test
+    public void testAggregateCacheIsNotAffectedByChangedOutput()
+    {
+        RemoteRepository dominant = newRepo( "a", "file://", false, "", "" );
+        RemoteRepository recessive = newRepo( "b", "http://", true, "", "" );
+
+        List<RemoteRepository> result1 =
+            manager.aggregateRepositories( session, Arrays.asList( dominant ), Arrays.asList( recessive ), true );
+        result1.remove( 0 );
+        result1.add( dominant );
+
+        List<RemoteRepository> result2 =
+            manager.aggregateRepositories( session, Arrays.asList( dominant ), Arrays.asList( recessive ), true );
+        assertEquals( 2, result2.size() );
+        assertEquals( dominant, result2.get( 0 ) );
+        assertEquals( "b", result2.get( 1 ).getId() );
+    }
+
+    @Test
+    public void testAggregateCacheIsNotAffectedByChangedInput()
+    {
+        RemoteRepository dominant = newRepo( "a", "file://", false, "", "" );
+        RemoteRepository recessive = newRepo( "b", "http://", true, "", "" );
+
+        List<RemoteRepository> result1 =
+            manager.aggregateRepositories( session, Arrays.asList( dominant ), Arrays.asList( recessive ), true );
+
+        recessive.setUrl( "http://other/" );
+        List<RemoteRepository> result2 =
+            manager.aggregateRepositories( session, Arrays.asList( dominant ), Arrays.asList( recessive ), true );
+        assertNotSame( result1, result2 );
+        assertEquals( "http://other/", result2.get( 1 ).getUrl() );
+    }
+
+    @Test
+    public void testAggregateDoesNotModifyRawRepositories()
+    {
+        RemoteRepository recessive1 = newRepo( "b", "http://", true, "", "" );
+        RemoteRepository expected = new RemoteRepository( recessive1 );
+
+        List<RemoteRepository> result =
+            manager.aggregateRepositories( session, Arrays.<RemoteRepository> asList(),
+                                           Arrays.asList( recessive1 ), true );
+
+        assertEquals( 1, result.size() );
+        assertEquals( expected, recessive1 );
+        assertEquals( session.getAuthenticationSelector().getAuthentication( recessive1 ),
+                      result.get( 0 ).getAuthentication() );
+        assertEquals( session.getProxySelector().getProxy( recessive1 ), result.get( 0 ).getProxy() );
+    }
+
     private static class StubUpdateCheckManager
         implements UpdateCheckManager
     {
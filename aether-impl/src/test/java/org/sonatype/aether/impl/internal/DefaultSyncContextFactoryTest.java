@@ -0,0 +1,589 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.SyncContext;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.spi.log.NullLogger;
+import org.sonatype.aether.test.impl.TestFileProcessor;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.transfer.ArtifactTransferException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+public class DefaultSyncContextFactoryTest
+{
+
+    private TestRepositorySystemSession session;
+
+    private DefaultSyncContextFactory factory;
+
+    private Artifact artifact;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        session = new TestRepositorySystemSession();
+        factory = new DefaultSyncContextFactory();
+        artifact = new DefaultArtifact( "gid:aid:ext:ver" );
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        TestFileUtils.delete( session.getLocalRepository().getBasedir() );
+    }
+
+    private File getLockFile()
+    {
+        return new File( session.getLocalRepository().getBasedir(), ".locks/gid~aid~ver.lock" );
+    }
+
+    private void setTimeout( long millis )
+    {
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.syncContext.timeout", String.valueOf( millis ) );
+        session.setConfigProperties( config );
+    }
+
+    /**
+     * Locks the specified file from a separate JVM, the lock is held until the standard input of the process is closed.
+     */
+    private Process lockInOtherProcess( File file, boolean shared )
+        throws IOException
+    {
+        file.getParentFile().mkdirs();
+        String java = new File( new File( System.getProperty( "java.home" ), "bin" ), "java" ).getAbsolutePath();
+        Process process =
+            new ProcessBuilder( java, "-cp", System.getProperty( "java.class.path" ), LockHolder.class.getName(),
+                                file.getAbsolutePath(), String.valueOf( shared ) ).redirectErrorStream( true ).start();
+        BufferedReader reader = new BufferedReader( new InputStreamReader( process.getInputStream(), "UTF-8" ) );
+        assertEquals( "locked", reader.readLine() );
+        return process;
+    }
+
+    private void unlockInOtherProcess( Process process )
+        throws Exception
+    {
+        process.getOutputStream().close();
+        assertEquals( 0, process.waitFor() );
+    }
+
+    @Test
+    public void testLockFileIsHeldUntilRelease()
+        throws Exception
+    {
+        SyncContext context = factory.newInstance( session, false );
+        context.acquire( Arrays.asList( artifact ), null );
+
+        File lockFile = getLockFile();
+        assertTrue( lockFile.isFile() );
+
+        RandomAccessFile raf = new RandomAccessFile( lockFile, "rw" );
+        try
+        {
+            try
+            {
+                raf.getChannel().tryLock();
+                fail( "lock file not locked" );
+            }
+            catch ( OverlappingFileLockException e )
+            {
+                // expected, the lock is held by this JVM
+            }
+
+            context.release();
+
+            FileLock lock = raf.getChannel().tryLock();
+            assertNotNull( lock );
+            lock.release();
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testLockFilesCanBeDisabled()
+    {
+        session.setConfigProperties( Collections.<String, Object> singletonMap( "aether.syncContext.fileLocks",
+                                                                                 Boolean.FALSE ) );
+
+        SyncContext context = factory.newInstance( session, false );
+        context.acquire( Arrays.asList( artifact ), null );
+        try
+        {
+            assertFalse( getLockFile().exists() );
+        }
+        finally
+        {
+            context.release();
+        }
+    }
+
+    @Test
+    public void testNestedContextsAreReentrant()
+    {
+        SyncContext outer = factory.newInstance( session, false );
+        SyncContext inner = factory.newInstance( session, false );
+        SyncContext shared = factory.newInstance( session, true );
+        try
+        {
+            outer.acquire( Arrays.asList( artifact ), null );
+            inner.acquire( Arrays.asList( artifact ), null );
+            shared.acquire( Arrays.asList( artifact ), null );
+            inner.release();
+            shared.release();
+            assertTrue( getLockFile().isFile() );
+        }
+        finally
+        {
+            outer.release();
+        }
+    }
+
+    @Test
+    public void testTimeout()
+        throws Exception
+    {
+        final CountDownLatch acquired = new CountDownLatch( 1 );
+        final CountDownLatch done = new CountDownLatch( 1 );
+        Thread holder = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                SyncContext context = factory.newInstance( session, false );
+                context.acquire( Arrays.asList( artifact ), null );
+                acquired.countDown();
+                try
+                {
+                    done.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    // exit
+                }
+                context.release();
+            }
+        };
+        holder.start();
+        acquired.await();
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.syncContext.timeout", "100" );
+        session.setConfigProperties( config );
+        SyncContext context = factory.newInstance( session, true );
+        try
+        {
+            context.acquire( Arrays.asList( artifact ), null );
+            fail( "lock acquired despite exclusive holder" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // expected
+        }
+        finally
+        {
+            context.release();
+            done.countDown();
+            holder.join();
+        }
+
+        context.acquire( Arrays.asList( artifact ), null );
+        context.release();
+    }
+
+    @Test
+    public void testConcurrentResolversUnderContention()
+        throws Exception
+    {
+        final List<Artifact> artifacts = new ArrayList<Artifact>();
+        final Map<String, AtomicInteger> readers = new HashMap<String, AtomicInteger>();
+        final Map<String, AtomicInteger> writers = new HashMap<String, AtomicInteger>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            Artifact a = new DefaultArtifact( "gid:aid" + i + ":jar:1" );
+            artifacts.add( a );
+            readers.put( a.getArtifactId(), new AtomicInteger() );
+            writers.put( a.getArtifactId(), new AtomicInteger() );
+        }
+
+        final AtomicInteger violations = new AtomicInteger();
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<Throwable>() );
+
+        Thread[] threads = new Thread[16];
+        for ( int t = 0; t < threads.length; t++ )
+        {
+            final long seed = t;
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    // a separate factory per thread, like independent repository systems
+                    DefaultSyncContextFactory factory = new DefaultSyncContextFactory();
+                    Random random = new Random( seed );
+                    try
+                    {
+                        for ( int i = 0; i < 200; i++ )
+                        {
+                            boolean shared = random.nextBoolean();
+                            List<Artifact> subset = new ArrayList<Artifact>( artifacts );
+                            Collections.shuffle( subset, random );
+                            subset = subset.subList( 0, 1 + random.nextInt( 4 ) );
+
+                            SyncContext context = factory.newInstance( session, shared );
+                            try
+                            {
+                                context.acquire( subset, null );
+                                for ( Artifact a : subset )
+                                {
+                                    if ( shared )
+                                    {
+                                        readers.get( a.getArtifactId() ).incrementAndGet();
+                                        if ( writers.get( a.getArtifactId() ).get() != 0 )
+                                        {
+                                            violations.incrementAndGet();
+                                        }
+                                    }
+                                    else if ( writers.get( a.getArtifactId() ).incrementAndGet() != 1
+                                        || readers.get( a.getArtifactId() ).get() != 0 )
+                                    {
+                                        violations.incrementAndGet();
+                                    }
+                                }
+                                Thread.yield();
+                                for ( Artifact a : subset )
+                                {
+                                    ( shared ? readers : writers ).get( a.getArtifactId() ).decrementAndGet();
+                                }
+                            }
+                            finally
+                            {
+                                context.release();
+                            }
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        errors.add( e );
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join( 60 * 1000 );
+            assertFalse( "deadlock", thread.isAlive() );
+        }
+
+        assertEquals( Collections.emptyList(), errors );
+        assertEquals( 0, violations.get() );
+    }
+
+    @Test
+    public void testConcurrentArtifactResolversShareLocalRepository()
+        throws Exception
+    {
+        File localRepo = session.getLocalRepository().getBasedir();
+        session.setLocalRepositoryManager( new EnhancedLocalRepositoryManager( localRepo ) );
+
+        final RemoteRepository repository = new RemoteRepository( "id", "default", "file:///" );
+        final List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>();
+        final Map<String, AtomicInteger> active = new HashMap<String, AtomicInteger>();
+        final Map<String, AtomicInteger> downloads = new HashMap<String, AtomicInteger>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            Artifact a = new DefaultArtifact( "gid:aid" + i + ":jar:1" );
+            requests.add( new ArtifactRequest( a, Arrays.asList( repository ), "" ) );
+            active.put( a.getArtifactId(), new AtomicInteger() );
+            downloads.put( a.getArtifactId(), new AtomicInteger() );
+        }
+
+        final AtomicInteger violations = new AtomicInteger();
+        final RepositoryConnector connector = new RepositoryConnector()
+        {
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads,
+                             Collection<? extends MetadataDownload> metadataDownloads )
+            {
+                if ( artifactDownloads == null )
+                {
+                    return;
+                }
+                for ( ArtifactDownload download : artifactDownloads )
+                {
+                    String id = download.getArtifact().getArtifactId();
+                    if ( active.get( id ).incrementAndGet() != 1 )
+                    {
+                        violations.incrementAndGet();
+                    }
+                    downloads.get( id ).incrementAndGet();
+                    try
+                    {
+                        Thread.sleep( 5 );
+                        TestFileUtils.write( download.getArtifact().toString(), download.getFile() );
+                    }
+                    catch ( Exception e )
+                    {
+                        download.setException( new ArtifactTransferException( download.getArtifact(), repository, e ) );
+                    }
+                    finally
+                    {
+                        active.get( id ).decrementAndGet();
+                    }
+                    download.setState( Transfer.State.DONE );
+                }
+            }
+
+            public void put( Collection<? extends ArtifactUpload> artifactUploads,
+                             Collection<? extends MetadataUpload> metadataUploads )
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            public void close()
+            {
+            }
+        };
+
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<Throwable>() );
+
+        Thread[] threads = new Thread[8];
+        for ( int t = 0; t < threads.length; t++ )
+        {
+            final long seed = t;
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    // independent resolvers that only share the local repository
+                    DefaultArtifactResolver resolver =
+                        new DefaultArtifactResolver( NullLogger.INSTANCE, TestFileProcessor.INSTANCE,
+                                                     new StubRepositoryEventDispatcher(), new StubVersionResolver(),
+                                                     new StaticUpdateCheckManager( true ),
+                                                     new StubRemoteRepositoryManager( connector ),
+                                                     new DefaultSyncContextFactory() );
+                    Random random = new Random( seed );
+                    try
+                    {
+                        for ( int i = 0; i < 20; i++ )
+                        {
+                            List<ArtifactRequest> subset = new ArrayList<ArtifactRequest>( requests );
+                            Collections.shuffle( subset, random );
+                            subset = subset.subList( 0, 1 + random.nextInt( 4 ) );
+                            for ( ArtifactResult result : resolver.resolveArtifacts( session, subset ) )
+                            {
+                                TestFileUtils.assertContent( result.getArtifact().toString(),
+                                                             result.getArtifact().getFile() );
+                            }
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        errors.add( e );
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join( 60 * 1000 );
+            assertFalse( "deadlock", thread.isAlive() );
+        }
+
+        assertEquals( Collections.emptyList(), errors );
+        assertEquals( 0, violations.get() );
+        for ( Map.Entry<String, AtomicInteger> entry : downloads.entrySet() )
+        {
+            assertTrue( entry.getKey() + " downloaded " + entry.getValue() + " times", entry.getValue().get() <= 1 );
+        }
+    }
+
+    @Test
+    public void testWaitsForExclusiveLockOfOtherProcess()
+        throws Exception
+    {
+        Process holder = lockInOtherProcess( getLockFile(), false );
+        final CountDownLatch acquired = new CountDownLatch( 1 );
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<Throwable>() );
+        Thread waiter = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                SyncContext context = factory.newInstance( session, true );
+                try
+                {
+                    context.acquire( Arrays.asList( artifact ), null );
+                    acquired.countDown();
+                }
+                catch ( Throwable e )
+                {
+                    errors.add( e );
+                }
+                finally
+                {
+                    context.release();
+                }
+            }
+        };
+        try
+        {
+            waiter.start();
+            assertFalse( "lock acquired despite exclusive holder", acquired.await( 500, TimeUnit.MILLISECONDS ) );
+        }
+        finally
+        {
+            unlockInOtherProcess( holder );
+        }
+        assertTrue( "lock not acquired after release", acquired.await( 10, TimeUnit.SECONDS ) );
+        waiter.join();
+        assertEquals( Collections.emptyList(), errors );
+    }
+
+    @Test
+    public void testSharesSharedLockOfOtherProcess()
+        throws Exception
+    {
+        setTimeout( 200 );
+        Process holder = lockInOtherProcess( getLockFile(), true );
+        try
+        {
+            SyncContext shared = factory.newInstance( session, true );
+            shared.acquire( Arrays.asList( artifact ), null );
+            shared.release();
+
+            SyncContext exclusive = factory.newInstance( session, false );
+            try
+            {
+                exclusive.acquire( Arrays.asList( artifact ), null );
+                fail( "exclusive lock acquired despite shared holder" );
+            }
+            catch ( IllegalStateException e )
+            {
+                // expected
+            }
+            finally
+            {
+                exclusive.release();
+            }
+        }
+        finally
+        {
+            unlockInOtherProcess( holder );
+        }
+
+        SyncContext exclusive = factory.newInstance( session, false );
+        exclusive.acquire( Arrays.asList( artifact ), null );
+        exclusive.release();
+    }
+
+    @Test
+    public void testTimeoutOnLockHeldByOtherChannel()
+        throws Exception
+    {
+        setTimeout( 200 );
+        File lockFile = getLockFile();
+        lockFile.getParentFile().mkdirs();
+        RandomAccessFile raf = new RandomAccessFile( lockFile, "rw" );
+        try
+        {
+            FileLock lock = raf.getChannel().lock();
+
+            SyncContext context = factory.newInstance( session, true );
+            long start = System.currentTimeMillis();
+            try
+            {
+                context.acquire( Arrays.asList( artifact ), null );
+                fail( "lock acquired despite foreign holder" );
+            }
+            catch ( IllegalStateException e )
+            {
+                // expected, the lock was polled until the timeout
+                assertTrue( System.currentTimeMillis() - start >= 200 );
+            }
+            finally
+            {
+                context.release();
+            }
+
+            lock.release();
+            context.acquire( Arrays.asList( artifact ), null );
+            context.release();
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Locks a file and holds the lock until its standard input is closed.
+     */
+    public static class LockHolder
+    {
+
+        public static void main( String[] args )
+            throws Exception
+        {
+            RandomAccessFile raf = new RandomAccessFile( args[0], "rw" );
+            FileLock lock = raf.getChannel().lock( 0, Long.MAX_VALUE, Boolean.valueOf( args[1] ).booleanValue() );
+            System.out.println( "locked" );
+            System.out.flush();
+            while ( System.in.read() >= 0 )
+            {
+                // wait for the test to close the stream
+            }
+            lock.release();
+            raf.close();
+        }
+
+    }
+
+}
@@ -14,6 +14,7 @@ import static org.sonatype.aether.repository.RepositoryPolicy.*;
 import java.io.File;
 import java.net.URI;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.TimeZone;
 
@@ -537,6 +538,65 @@ public class DefaultUpdateCheckManagerTest
         assertNull( check.getException() );
     }
 
+    @Test
+    public void testCheckArtifactNotFoundIsCachedInSession()
+        throws Exception
+    {
+        artifact.getFile().delete();
+        session.setNotFoundCachingEnabled( true );
+
+        UpdateCheck<Artifact, ArtifactTransferException> check = newArtifactCheck();
+        check.setException( new ArtifactNotFoundException( artifact, repository ) );
+        manager.touchArtifact( session, check );
+
+        check = newArtifactCheck();
+        manager.checkArtifact( session, check );
+        assertEquals( false, check.isRequired() );
+        assertTrue( check.getException() instanceof ArtifactNotFoundException );
+        assertEquals( 0, manager.getCacheHits( session ) );
+        assertEquals( 1, manager.getCacheMisses( session ) );
+
+        // answered without reading the touch file
+        new File( artifact.getFile().getPath() + ".lastUpdated" ).delete();
+        check = newArtifactCheck();
+        manager.checkArtifact( session, check );
+        assertEquals( false, check.isRequired() );
+        assertTrue( check.getException() instanceof ArtifactNotFoundException );
+        assertEquals( 1, manager.getCacheHits( session ) );
+
+        // touching the artifact discards the cached result
+        check = newArtifactCheck();
+        manager.touchArtifact( session, check );
+        TestFileUtils.write( "artifact", artifact.getFile() );
+        check = newArtifactCheck();
+        manager.checkArtifact( session, check );
+        assertEquals( false, check.isRequired() );
+        assertNull( check.getException() );
+        assertEquals( 1, manager.getCacheHits( session ) );
+        assertEquals( 2, manager.getCacheMisses( session ) );
+    }
+
+    @Test
+    public void testSessionCacheCanBeDisabled()
+        throws Exception
+    {
+        metadata.getFile().delete();
+        String key = "aether.updateCheckManager.sessionCache";
+        session.setConfigProperties( Collections.<String, Object> singletonMap( key, "false" ) );
+
+        UpdateCheck<Metadata, MetadataTransferException> check = newMetadataCheck();
+        check.setException( new MetadataNotFoundException( metadata, repository, "" ) );
+        manager.touchMetadata( session, check );
+
+        check = newMetadataCheck();
+        manager.checkMetadata( session, check );
+        manager.checkMetadata( session, check );
+        assertEquals( false, check.isRequired() );
+        assertTrue( check.getException() instanceof MetadataNotFoundException );
+        assertEquals( 0, manager.getCacheHits( session ) );
+        assertEquals( 0, manager.getCacheMisses( session ) );
+    }
+
     @Test
     public void testCheckArtifactAtMostOnceDuringSessionEvenIfUpdatePolicyAlways()
         throws Exception
@@ -0,0 +1,95 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.sonatype.aether.impl.internal.DataPool.BadDescriptor;
+import org.sonatype.aether.impl.internal.DataPool.Descriptor;
+import org.sonatype.aether.impl.internal.DataPool.GoodDescriptor;
+import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
+import org.sonatype.aether.resolution.ArtifactDescriptorResult;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+public class DescriptorCacheTest
+{
+
+    private static Descriptor newDescriptor()
+    {
+        return new GoodDescriptor( new ArtifactDescriptorResult( new ArtifactDescriptorRequest() ) );
+    }
+
+    @Test
+    public void testStatistics()
+    {
+        DescriptorCache cache = new DescriptorCache( 0, 0 );
+        Object key = new DefaultArtifact( "gid:aid:1" );
+
+        assertNull( cache.get( key ) );
+        cache.put( key, BadDescriptor.INSTANCE );
+        assertSame( BadDescriptor.INSTANCE, cache.get( key ) );
+        assertSame( BadDescriptor.INSTANCE, cache.get( key ) );
+
+        assertEquals( 2, cache.getStatistics().getHits() );
+        assertEquals( 1, cache.getStatistics().getMisses() );
+        assertEquals( 0, cache.getStatistics().getEvictions() );
+    }
+
+    @Test
+    public void testPeekIsNotCounted()
+    {
+        DescriptorCache cache = new DescriptorCache( 0, 0 );
+        Object key = new DefaultArtifact( "gid:aid:1" );
+
+        assertNull( cache.peek( key ) );
+        cache.put( key, BadDescriptor.INSTANCE );
+        assertSame( BadDescriptor.INSTANCE, cache.peek( key ) );
+
+        assertEquals( 0, cache.getStatistics().getHits() );
+        assertEquals( 0, cache.getStatistics().getMisses() );
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedEntry()
+    {
+        DescriptorCache cache = new DescriptorCache( 2, 0 );
+        Object a = new DefaultArtifact( "gid:a:1" );
+        Object b = new DefaultArtifact( "gid:b:1" );
+        Object c = new DefaultArtifact( "gid:c:1" );
+
+        cache.put( a, newDescriptor() );
+        cache.put( b, newDescriptor() );
+        assertNotNull( cache.get( a ) );
+        cache.put( c, newDescriptor() );
+
+        assertEquals( 2, cache.size() );
+        assertTrue( cache.containsKey( a ) );
+        assertFalse( cache.containsKey( b ) );
+        assertTrue( cache.containsKey( c ) );
+        assertEquals( 1, cache.getStatistics().getEvictions() );
+    }
+
+    @Test
+    public void testEvictByWeight()
+    {
+        Descriptor descriptor = newDescriptor();
+        DescriptorCache cache = new DescriptorCache( 0, descriptor.getWeight() * 3 );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            cache.put( new DefaultArtifact( "gid:aid:" + i ), descriptor );
+        }
+
+        assertEquals( 3, cache.size() );
+        assertEquals( 7, cache.getStatistics().getEvictions() );
+        assertTrue( cache.containsKey( new DefaultArtifact( "gid:aid:9" ) ) );
+    }
+
+}
@@ -307,4 +307,69 @@ public class EnhancedLocalRepositoryManagerTest
         assertFalse( result.toString(), result.isAvailable() );
     }
 
+    @Test
+    public void testBatchedRegistrationsAreWrittenOnceTheBatchEnds()
+        throws Exception
+    {
+        Artifact sources = new DefaultArtifact( "gid", "aid", "sources", "jar", "1-test" ).setFile( artifact.getFile() );
+        File trackingFile = new File( artifactFile.getParentFile(), "_maven.repositories" );
+
+        TrackingFileBatch batch = TrackingFileBatch.begin( session );
+        assertNotNull( batch );
+        assertNull( TrackingFileBatch.begin( session ) );
+
+        addRemoteArtifact( artifact );
+        addRemoteArtifact( sources );
+        assertFalse( trackingFile.exists() );
+
+        LocalArtifactRequest request = new LocalArtifactRequest( sources, Arrays.asList( repository ), testContext );
+        assertTrue( manager.find( session, request ).isAvailable() );
+
+        batch.end();
+        assertNull( TrackingFileBatch.get( session ) );
+        assertTrue( trackingFile.isFile() );
+        assertTrue( manager.find( session, request ).isAvailable() );
+
+        request = new LocalArtifactRequest( artifact, Arrays.asList( repository ), testContext );
+        assertTrue( manager.find( new TestRepositorySystemSession(), request ).isAvailable() );
+    }
+
+    @Test
+    public void testBatchIsScopedToThread()
+        throws Exception
+    {
+        final TrackingFileBatch batch = TrackingFileBatch.begin( session );
+        assertNotNull( batch );
+        try
+        {
+            final TrackingFileBatch[] seen = new TrackingFileBatch[2];
+            Thread other = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    seen[0] = TrackingFileBatch.get( session );
+                    batch.bind( new Runnable()
+                    {
+                        public void run()
+                        {
+                            seen[1] = TrackingFileBatch.get( session );
+                        }
+                    } ).run();
+                }
+            };
+            other.start();
+            other.join();
+
+            assertNull( seen[0] );
+            assertSame( batch, seen[1] );
+            assertNull( TrackingFileBatch.get( new TestRepositorySystemSession() ) );
+        }
+        finally
+        {
+            batch.end();
+        }
+        assertNull( TrackingFileBatch.get( session ) );
+    }
+
 }
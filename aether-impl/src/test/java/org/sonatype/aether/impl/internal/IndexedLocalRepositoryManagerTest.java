@@ -0,0 +1,216 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.LocalArtifactRegistration;
+import org.sonatype.aether.repository.LocalArtifactRequest;
+import org.sonatype.aether.repository.LocalArtifactResult;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.test.impl.TestRepositorySystemSession;
+import org.sonatype.aether.test.util.TestFileUtils;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+public class IndexedLocalRepositoryManagerTest
+{
+
+    private Artifact artifact;
+
+    private File basedir;
+
+    private IndexedLocalRepositoryManager manager;
+
+    private RemoteRepository repository;
+
+    private String testContext = "project/compile";
+
+    private TestRepositorySystemSession session;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        repository =
+            new RemoteRepository( "indexed-remote-repo", "default",
+                                  TestFileUtils.createTempDir( "indexed-remote-repo" ).toURI().toURL().toString() );
+
+        artifact =
+            new DefaultArtifact( "gid", "aid", "", "jar", "1-test", Collections.<String, String> emptyMap(),
+                                 TestFileUtils.createTempFile( "artifact" ) );
+
+        basedir = TestFileUtils.createTempDir( "indexed-repo" );
+        manager = new IndexedLocalRepositoryManager( basedir );
+
+        session = new TestRepositorySystemSession();
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        TestFileUtils.delete( basedir );
+        TestFileUtils.delete( new File( new URI( repository.getUrl() ) ) );
+
+        session = null;
+        manager = null;
+        repository = null;
+        artifact = null;
+    }
+
+    private File addRemoteArtifact( Artifact artifact )
+        throws Exception
+    {
+        File file = new File( basedir, manager.getPathForRemoteArtifact( artifact, repository, testContext ) );
+        TestFileUtils.copy( artifact.getFile(), file );
+        manager.add( session, new LocalArtifactRegistration( artifact, repository, Arrays.asList( testContext ) ) );
+        return file;
+    }
+
+    private LocalArtifactResult find( Artifact artifact )
+    {
+        LocalArtifactRequest request =
+            new LocalArtifactRequest( artifact, Arrays.asList( repository ), testContext );
+        return manager.find( session, request );
+    }
+
+    @Test
+    public void testFindUsesIndexWithoutTrackingFile()
+        throws Exception
+    {
+        File file = addRemoteArtifact( artifact );
+        assertTrue( new File( file.getParentFile(), "_maven.repositories" ).delete() );
+
+        LocalArtifactResult result = find( artifact );
+        assertTrue( result.isAvailable() );
+        assertEquals( repository, result.getRepository() );
+        assertEquals( file, result.getFile() );
+    }
+
+    @Test
+    public void testChangedFileIsVerifiedAgainstTrackingFile()
+        throws Exception
+    {
+        File file = addRemoteArtifact( artifact );
+        new File( file.getParentFile(), "_maven.repositories" ).delete();
+        file.setLastModified( file.lastModified() - 60 * 1000 );
+
+        // untracked, hence considered locally installed
+        LocalArtifactResult result = find( artifact );
+        assertTrue( result.isAvailable() );
+        assertNull( result.getRepository() );
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put( "aether.localRepository.index.verify", "false" );
+        session.setConfigProperties( config );
+        file.setLastModified( file.lastModified() - 60 * 1000 );
+
+        result = find( artifact );
+        assertTrue( result.isAvailable() );
+    }
+
+    @Test
+    public void testIndexIsReadBackAndSkipsIncompleteRecords()
+        throws Exception
+    {
+        addRemoteArtifact( artifact );
+        String path = manager.getPathForLocalArtifact( artifact );
+        File indexFile = new File( basedir, ".aether/local-repository.index" );
+        assertTrue( indexFile.isFile() );
+
+        RandomAccessFile raf = new RandomAccessFile( indexFile, "rw" );
+        try
+        {
+            raf.seek( raf.length() );
+            raf.writeInt( 1000 );
+            raf.writeUTF( "incomplete" );
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        LocalRepositoryIndex index = new LocalRepositoryIndex( indexFile );
+        LocalRepositoryIndex.Entry entry = index.get( path );
+        assertNotNull( entry );
+        assertEquals( artifact.getFile().length(), entry.size );
+        assertEquals( 1, entry.repositories.size() );
+        assertNull( index.get( "incomplete" ) );
+
+        index.put( "other/path", 1, 2, Collections.singleton( "" ) );
+        assertNotNull( new LocalRepositoryIndex( indexFile ).get( "other/path" ) );
+        assertNotNull( new LocalRepositoryIndex( indexFile ).get( path ) );
+    }
+
+    @Test
+    public void testUnchangedEntriesAreNotAppended()
+        throws Exception
+    {
+        File indexFile = new File( basedir, ".aether/local-repository.index" );
+        LocalRepositoryIndex index = new LocalRepositoryIndex( indexFile );
+        index.put( "some/path", 1, 2, Collections.singleton( "a" ) );
+        long length = indexFile.length();
+
+        index.put( "some/path", 1, 2, Collections.singleton( "a" ) );
+        assertEquals( length, indexFile.length() );
+
+        index.put( "some/path", 1, 2, Collections.singleton( "b" ) );
+        assertTrue( indexFile.length() > length );
+        assertEquals( 2, new LocalRepositoryIndex( indexFile ).get( "some/path" ).repositories.size() );
+    }
+
+    @Test
+    public void testIndexIsCompacted()
+        throws Exception
+    {
+        File indexFile = new File( basedir, ".aether/local-repository.index" );
+        LocalRepositoryIndex index = new LocalRepositoryIndex( indexFile );
+        LocalRepositoryIndex other = new LocalRepositoryIndex( indexFile );
+        index.put( "other/path", 1, 1, Collections.singleton( "" ) );
+        assertNotNull( other.get( "other/path" ) );
+
+        long length = 0;
+        for ( int i = 0; i < 3000; i++ )
+        {
+            index.put( "some/path", i, i, Collections.singleton( "" ) );
+            if ( i == 10 )
+            {
+                length = indexFile.length();
+            }
+        }
+        // at most one compaction threshold worth of records instead of all 3000
+        assertTrue( indexFile.length() < length * 150 );
+
+        index.put( "new/path", 1, 1, Collections.singleton( "" ) );
+        assertNotNull( other.get( "new/path" ) );
+        assertNotNull( other.get( "other/path" ) );
+        assertEquals( 2999, other.get( "some/path" ).size );
+        assertEquals( 2999, new LocalRepositoryIndex( indexFile ).get( "some/path" ).size );
+    }
+
+    @Test
+    public void testIndexesAreSharedWhileInUse()
+    {
+        LocalRepositoryIndex index = LocalRepositoryIndex.forRepository( basedir );
+        assertSame( index, LocalRepositoryIndex.forRepository( basedir ) );
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LruCacheTest
+{
+
+    @Test
+    public void testPutGetRemove()
+    {
+        LruCache<String, String> cache = new LruCache<String, String>( 64 );
+
+        cache.put( "a", "1" );
+        assertEquals( "1", cache.get( "a" ) );
+        assertNull( cache.get( "b" ) );
+
+        cache.remove( "a" );
+        assertNull( cache.get( "a" ) );
+    }
+
+    @Test
+    public void testConditionalRemoveKeepsNewerValue()
+    {
+        LruCache<String, String> cache = new LruCache<String, String>( 64 );
+
+        String stale = new String( "stale" );
+        cache.put( "a", stale );
+        cache.put( "a", "fresh" );
+        cache.remove( "a", stale );
+        assertEquals( "fresh", cache.get( "a" ) );
+
+        cache.remove( "a", cache.get( "a" ) );
+        assertNull( cache.get( "a" ) );
+    }
+
+    @Test
+    public void testSizeIsBounded()
+    {
+        LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>( 64 );
+
+        for ( int i = 0; i < 10000; i++ )
+        {
+            cache.put( Integer.valueOf( i ), Integer.valueOf( i ) );
+        }
+
+        int retained = 0;
+        for ( int i = 0; i < 10000; i++ )
+        {
+            if ( cache.get( Integer.valueOf( i ) ) != null )
+            {
+                retained++;
+            }
+        }
+        assertTrue( String.valueOf( retained ), retained > 0 && retained <= 64 );
+        assertNotNull( cache.get( Integer.valueOf( 9999 ) ) );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted()
+    {
+        // a segment holds two entries, all keys fall into the same segment
+        LruCache<Key, String> cache = new LruCache<Key, String>( 32 );
+
+        Key k0 = new Key( 0 );
+        Key k1 = new Key( 1 );
+        Key k2 = new Key( 2 );
+        cache.put( k0, "0" );
+        cache.put( k1, "1" );
+        assertEquals( "0", cache.get( k0 ) );
+        cache.put( k2, "2" );
+
+        assertEquals( "0", cache.get( k0 ) );
+        assertNull( cache.get( k1 ) );
+        assertEquals( "2", cache.get( k2 ) );
+    }
+
+    static final class Key
+    {
+
+        private final int id;
+
+        Key( int id )
+        {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            return obj instanceof Key && ( (Key) obj ).id == id;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.sonatype.aether.impl.internal;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+public class ObjectPoolTest
+{
+
+    @Test
+    public void testIntern()
+    {
+        ObjectPool<Artifact> pool = new ObjectPool<Artifact>();
+
+        Artifact a1 = new DefaultArtifact( "gid:aid:1" );
+        Artifact a2 = new DefaultArtifact( "gid:aid:1" );
+        Artifact b = new DefaultArtifact( "gid:aid:2" );
+
+        assertSame( a1, pool.intern( a1 ) );
+        assertSame( a1, pool.intern( a2 ) );
+        assertSame( b, pool.intern( b ) );
+    }
+
+    @Test
+    public void testConcurrentIntern()
+        throws Exception
+    {
+        final ObjectPool<Artifact> pool = new ObjectPool<Artifact>();
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final Artifact[][] interned = new Artifact[8][256];
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for ( int t = 0; t < interned.length; t++ )
+        {
+            final Artifact[] results = interned[t];
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        return;
+                    }
+                    for ( int i = 0; i < results.length; i++ )
+                    {
+                        results[i] = pool.intern( new DefaultArtifact( "gid:aid" + i + ":1" ) );
+                    }
+                }
+            };
+            thread.start();
+            threads.add( thread );
+        }
+
+        start.countDown();
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        for ( int t = 1; t < interned.length; t++ )
+        {
+            for ( int i = 0; i < interned[t].length; i++ )
+            {
+                assertSame( interned[0][i], interned[t][i] );
+            }
+        }
+    }
+
+}
@@ -153,4 +153,51 @@ public class TrackingFileManagerTest
         assertEquals( Collections.emptyList(), errors );
     }
 
+    @Test
+    public void testReadIsCachedUntilFileChanges()
+        throws Exception
+    {
+        TrackingFileManager tfm = new TrackingFileManager();
+
+        File propFile = TestFileUtils.createTempFile( "key=a" );
+        long modified = ( System.currentTimeMillis() - 60 * 1000 ) / 1000 * 1000;
+        propFile.setLastModified( modified );
+
+        Properties props = tfm.read( propFile );
+        assertEquals( "a", props.get( "key" ) );
+        props.setProperty( "key", "modified by caller" );
+
+        // same size and timestamp, the cached contents are used
+        TestFileUtils.write( "key=b", propFile );
+        propFile.setLastModified( modified );
+        assertEquals( "a", tfm.read( propFile ).get( "key" ) );
+
+        propFile.setLastModified( modified + 2000 );
+        assertEquals( "b", tfm.read( propFile ).get( "key" ) );
+
+        Map<String, String> updates = new HashMap<String, String>();
+        updates.put( "key", "c" );
+        tfm.update( propFile, updates );
+        propFile.setLastModified( modified + 2000 );
+        assertEquals( "c", tfm.read( propFile ).get( "key" ) );
+
+        propFile.delete();
+        assertNull( tfm.read( propFile ) );
+    }
+
+    @Test
+    public void testEquivalentPathsShareLock()
+        throws Exception
+    {
+        TrackingFileManager tfm = new TrackingFileManager();
+
+        File file = TestFileUtils.createTempFile( "" );
+        File alias = new File( file.getParentFile(), "./" + file.getName() );
+
+        assertEquals( tfm.getPath( file ), tfm.getPath( alias ) );
+        assertSame( tfm.getLock( tfm.getPath( file ) ), tfm.getLock( tfm.getPath( alias ) ) );
+
+        file.delete();
+    }
+
 }
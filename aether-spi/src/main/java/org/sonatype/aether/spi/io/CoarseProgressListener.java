@@ -0,0 +1,34 @@
+package org.sonatype.aether.spi.io;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.IOException;
+
+/**
+ * A progress listener that is only interested in the number of copied bytes but not in the copied data itself. A file
+ * processor that recognizes this listener is free to copy the data in large chunks without passing it through the
+ * Java heap and to report the progress once per chunk via {@link #transferred(long)}. File processors unaware of this
+ * listener will keep calling {@link #progressed(java.nio.ByteBuffer)} instead.
+ */
+public interface CoarseProgressListener
+    extends FileProcessor.ProgressListener
+{
+
+    /**
+     * Notifies the listener that another chunk of data has been copied. Like with
+     * {@link #progressed(java.nio.ByteBuffer)}, the file processor is not obliged to abort the copy when the listener
+     * fails, i.e. this method is not suitable to cancel a copy.
+     *
+     * @param bytes The number of bytes copied since the previous notification.
+     * @throws IOException If the listener failed to process the notification.
+     */
+    void transferred( long bytes )
+        throws IOException;
+
+}
@@ -0,0 +1,123 @@
+package org.sonatype.aether.spi.io;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A progress listener that calculates checksums of the data passing through
+ * {@link FileProcessor#copy(java.io.File, java.io.File, FileProcessor.ProgressListener)}, saving callers a second
+ * pass over the copied file. The progress is optionally forwarded to another listener.
+ */
+public class DigestingProgressListener
+    implements FileProcessor.ProgressListener
+{
+
+    private final Map<String, Object> checksums = new LinkedHashMap<String, Object>();
+
+    private final Map<String, MessageDigest> digests = new LinkedHashMap<String, MessageDigest>();
+
+    private final FileProcessor.ProgressListener delegate;
+
+    private long bytes;
+
+    /**
+     * Creates a new listener for the specified checksum algorithms.
+     *
+     * @param algos The names of checksum algorithms (cf. {@link MessageDigest#getInstance(String)} to use, must not be
+     *            {@code null}.
+     * @param delegate The listener to forward the progress to, may be {@code null}.
+     */
+    public DigestingProgressListener( Collection<String> algos, FileProcessor.ProgressListener delegate )
+    {
+        for ( String algo : algos )
+        {
+            try
+            {
+                digests.put( algo, MessageDigest.getInstance( algo ) );
+                checksums.put( algo, null );
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                checksums.put( algo, e );
+            }
+        }
+        this.delegate = delegate;
+    }
+
+    public void progressed( ByteBuffer buffer )
+        throws IOException
+    {
+        for ( MessageDigest digest : digests.values() )
+        {
+            digest.update( buffer.duplicate() );
+        }
+        bytes += buffer.remaining();
+
+        if ( delegate != null )
+        {
+            delegate.progressed( buffer );
+        }
+    }
+
+    /**
+     * Gets the number of bytes that passed through this listener.
+     *
+     * @return The number of digested bytes.
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Gets the checksums of the data that passed through this listener. The checksums are finalized by the first call
+     * to this method, i.e. this listener must not be used for further copies afterwards.
+     *
+     * @return The calculated checksums as hex strings, indexed by algorithm name, or the exception that occurred while
+     *         trying to calculate it, never {@code null}.
+     */
+    public Map<String, Object> getChecksums()
+    {
+        if ( !digests.isEmpty() )
+        {
+            for ( Map.Entry<String, MessageDigest> entry : digests.entrySet() )
+            {
+                checksums.put( entry.getKey(), toHexString( entry.getValue().digest() ) );
+            }
+            digests.clear();
+        }
+        return Collections.unmodifiableMap( checksums );
+    }
+
+    private static String toHexString( byte[] bytes )
+    {
+        StringBuilder buffer = new StringBuilder( bytes.length * 2 );
+
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            int b = bytes[i] & 0xFF;
+            if ( b < 0x10 )
+            {
+                buffer.append( '0' );
+            }
+            buffer.append( Integer.toHexString( b ) );
+        }
+
+        return buffer.toString();
+    }
+
+}
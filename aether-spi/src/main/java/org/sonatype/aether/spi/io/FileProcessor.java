@@ -49,7 +49,8 @@ public interface FileProcessor
      * 
      * @param source The file to copy from, must not be {@code null}.
      * @param target The file to copy to, must not be {@code null}.
-     * @param listener The listener to notify about the copy progress, may be {@code null}.
+     * @param listener The listener to notify about the copy progress, may be {@code null}. A
+     *            {@link CoarseProgressListener} may be notified once per chunk rather than with the copied data.
      * @return The number of copied bytes.
      * @throws IOException If an I/O error occurs.
      */
@@ -51,6 +51,8 @@ public class TestRepositorySystemSession
 
     private ProxySelector proxySelector = new TestProxySelector();
 
+    private MirrorSelector mirrorSelector;
+
     private LocalRepositoryManager localRepositoryManager;
 
     private boolean transferErrorCaching;
@@ -61,6 +63,8 @@ public class TestRepositorySystemSession
 
     private Map<String, Object> configProperties = new HashMap<String, Object>();
 
+    private Map<String, String> userProperties = Collections.emptyMap();
+
     private boolean offline;
 
     private String updatePolicy = RepositoryPolicy.UPDATE_POLICY_ALWAYS;
@@ -168,12 +172,24 @@ public class TestRepositorySystemSession
 
     public Map<String, String> getUserProperties()
     {
-        return Collections.emptyMap();
+        return Collections.unmodifiableMap( userProperties );
+    }
+
+    public void setUserProperties( Map<String, String> userProperties )
+    {
+        if ( userProperties == null )
+        {
+            this.userProperties = Collections.emptyMap();
+        }
+        else
+        {
+            this.userProperties = userProperties;
+        }
     }
 
     public MirrorSelector getMirrorSelector()
     {
-        return null;
+        return mirrorSelector;
     }
 
     public ProxySelector getProxySelector()
@@ -317,4 +333,9 @@ public class TestRepositorySystemSession
     {
         this.offline = offline;
     }
+
+    public void setMirrorSelector( MirrorSelector mirrorSelector )
+    {
+        this.mirrorSelector = mirrorSelector;
+    }
 }
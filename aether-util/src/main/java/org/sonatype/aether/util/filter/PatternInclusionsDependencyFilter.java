@@ -8,10 +8,13 @@ package org.sonatype.aether.util.filter;
  *   http://www.eclipse.org/legal/epl-v10.html
  *******************************************************************************/
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.graph.Dependency;
@@ -36,6 +39,10 @@ import org.sonatype.aether.version.VersionScheme;
  * For example, <code>org.apache.*</code> would match all artifacts whose group id started with <code>org.apache.</code>
  * , and <code>:::*-SNAPSHOT</code> would match all snapshot artifacts.
  * </p>
+ * <p>
+ * The patterns are compiled once when the filter is created, patterns with an exact group id are looked up by the group
+ * id of the artifact instead of being checked one by one.
+ * </p>
  * 
  * @author Alin Dreghiciu
  */
@@ -47,6 +54,16 @@ public class PatternInclusionsDependencyFilter
 
     private final VersionScheme versionScheme;
 
+    /**
+     * The compiled patterns whose group id segment is an exact match, keyed by that group id.
+     */
+    private final Map<String, List<CompiledPattern>> patternsByGroupId = new HashMap<String, List<CompiledPattern>>();
+
+    /**
+     * The compiled patterns that need to be checked against every artifact.
+     */
+    private final List<CompiledPattern> otherPatterns = new ArrayList<CompiledPattern>();
+
     /**
      * Creates a new filter using the specified patterns.
      * 
@@ -93,6 +110,10 @@ public class PatternInclusionsDependencyFilter
             this.patterns.addAll( patterns );
         }
         this.versionScheme = versionScheme;
+        for ( final String pattern : this.patterns )
+        {
+            compile( pattern );
+        }
     }
 
     public boolean accept( final DependencyNode node, List<DependencyNode> parents )
@@ -103,100 +124,154 @@ public class PatternInclusionsDependencyFilter
             return true;
         }
         final Artifact artifact = dependency.getArtifact();
-        for ( final String pattern : patterns )
+        final String[] tokens =
+            new String[] { artifact.getGroupId(), artifact.getArtifactId(), artifact.getExtension(),
+                artifact.getBaseVersion() };
+
+        final List<CompiledPattern> candidates = patternsByGroupId.get( tokens[0] );
+        if ( candidates != null && matches( tokens, candidates ) )
         {
-            final boolean matched = accept( artifact, pattern );
-            if ( matched )
-            {
-                return true;
-            }
+            return true;
         }
-        return false;
+        return matches( tokens, otherPatterns );
     }
 
-    private boolean accept( final Artifact artifact, final String pattern )
+    private void compile( final String pattern )
     {
-        final String[] tokens =
-            new String[] { artifact.getGroupId(), artifact.getArtifactId(), artifact.getExtension(),
-                artifact.getBaseVersion() };
-
         final String[] patternTokens = pattern.split( ":" );
 
-        // fail immediately if pattern tokens outnumber tokens to match
-        boolean matched = ( patternTokens.length <= tokens.length );
+        // patterns with more tokens than an artifact has never match
+        if ( patternTokens.length > 4 )
+        {
+            return;
+        }
 
-        for ( int i = 0; matched && i < patternTokens.length; i++ )
+        final Segment[] segments = new Segment[patternTokens.length];
+        for ( int i = 0; i < patternTokens.length; i++ )
         {
-            matched = matches( tokens[i], patternTokens[i] );
+            segments[i] = compileSegment( patternTokens[i] );
         }
+        final CompiledPattern compiled = new CompiledPattern( segments );
 
-        return matched;
+        if ( segments.length > 0 && segments[0].type == Segment.EXACT )
+        {
+            List<CompiledPattern> candidates = patternsByGroupId.get( segments[0].text );
+            if ( candidates == null )
+            {
+                candidates = new ArrayList<CompiledPattern>( 2 );
+                patternsByGroupId.put( segments[0].text, candidates );
+            }
+            candidates.add( compiled );
+        }
+        else
+        {
+            otherPatterns.add( compiled );
+        }
     }
 
-    private boolean matches( final String token, final String pattern )
+    private Segment compileSegment( final String pattern )
     {
-        boolean matches;
-
         // support full wildcard and implied wildcard
         if ( "*".equals( pattern ) || pattern.length() == 0 )
         {
-            matches = true;
+            return Segment.ANY_SEGMENT;
         }
         // support contains wildcard
         else if ( pattern.startsWith( "*" ) && pattern.endsWith( "*" ) )
         {
-            final String contains = pattern.substring( 1, pattern.length() - 1 );
-
-            matches = ( token.indexOf( contains ) != -1 );
+            return new Segment( Segment.CONTAINS, pattern.substring( 1, pattern.length() - 1 ), null );
         }
         // support leading wildcard
         else if ( pattern.startsWith( "*" ) )
         {
-            final String suffix = pattern.substring( 1, pattern.length() );
-
-            matches = token.endsWith( suffix );
+            return new Segment( Segment.SUFFIX, pattern.substring( 1, pattern.length() ), null );
         }
         // support trailing wildcard
         else if ( pattern.endsWith( "*" ) )
         {
-            final String prefix = pattern.substring( 0, pattern.length() - 1 );
-
-            matches = token.startsWith( prefix );
+            return new Segment( Segment.PREFIX, pattern.substring( 0, pattern.length() - 1 ), null );
         }
         // support versions range
         else if ( pattern.startsWith( "[" ) || pattern.startsWith( "(" ) )
         {
-            matches = isVersionIncludedInRange( token, pattern );
+            if ( versionScheme != null )
+            {
+                try
+                {
+                    return new Segment( Segment.RANGE, pattern, versionScheme.parseVersionRange( pattern ) );
+                }
+                catch ( final InvalidVersionSpecificationException e )
+                {
+                    // matches nothing
+                }
+            }
+            return Segment.NO_SEGMENT;
         }
         // support exact match
         else
         {
-            matches = token.equals( pattern );
+            return new Segment( Segment.EXACT, pattern, null );
         }
-
-        return matches;
     }
 
-    private boolean isVersionIncludedInRange( final String version, final String range )
+    private boolean matches( final String[] tokens, final List<CompiledPattern> patterns )
     {
-        if ( versionScheme == null )
-        {
-            return false;
-        }
-        else
+        for ( int i = 0, n = patterns.size(); i < n; i++ )
         {
-            try
+            if ( matches( tokens, patterns.get( i ) ) )
             {
-                final Version parsedVersion = versionScheme.parseVersion( version );
-                final VersionRange parsedRange = versionScheme.parseVersionRange( range );
-
-                return parsedRange.containsVersion( parsedVersion );
+                return true;
             }
-            catch ( final InvalidVersionSpecificationException e )
+        }
+        return false;
+    }
+
+    private boolean matches( final String[] tokens, final CompiledPattern pattern )
+    {
+        final Segment[] segments = pattern.segments;
+        for ( int i = 0; i < segments.length; i++ )
+        {
+            if ( !matches( tokens[i], segments[i] ) )
             {
                 return false;
             }
         }
+        return true;
+    }
+
+    private boolean matches( final String token, final Segment segment )
+    {
+        switch ( segment.type )
+        {
+            case Segment.ANY:
+                return true;
+            case Segment.CONTAINS:
+                return token.indexOf( segment.text ) != -1;
+            case Segment.SUFFIX:
+                return token.endsWith( segment.text );
+            case Segment.PREFIX:
+                return token.startsWith( segment.text );
+            case Segment.RANGE:
+                return isVersionIncludedInRange( token, segment.range );
+            case Segment.EXACT:
+                return token.equals( segment.text );
+            default:
+                return false;
+        }
+    }
+
+    private boolean isVersionIncludedInRange( final String version, final VersionRange range )
+    {
+        try
+        {
+            final Version parsedVersion = versionScheme.parseVersion( version );
+
+            return range.containsVersion( parsedVersion );
+        }
+        catch ( final InvalidVersionSpecificationException e )
+        {
+            return false;
+        }
     }
 
     @Override
@@ -228,4 +303,58 @@ public class PatternInclusionsDependencyFilter
         return hash;
     }
 
+    /**
+     * A pattern split into its segments, one per artifact coordinate.
+     */
+    private static final class CompiledPattern
+    {
+
+        final Segment[] segments;
+
+        CompiledPattern( Segment[] segments )
+        {
+            this.segments = segments;
+        }
+
+    }
+
+    /**
+     * A pattern segment with its kind of wildcard already determined and its version range already parsed.
+     */
+    private static final class Segment
+    {
+
+        static final int NONE = 0;
+
+        static final int ANY = 1;
+
+        static final int CONTAINS = 2;
+
+        static final int SUFFIX = 3;
+
+        static final int PREFIX = 4;
+
+        static final int RANGE = 5;
+
+        static final int EXACT = 6;
+
+        static final Segment ANY_SEGMENT = new Segment( ANY, "", null );
+
+        static final Segment NO_SEGMENT = new Segment( NONE, "", null );
+
+        final int type;
+
+        final String text;
+
+        final VersionRange range;
+
+        Segment( int type, String text, VersionRange range )
+        {
+            this.type = type;
+            this.text = text;
+            this.range = range;
+        }
+
+    }
+
 }
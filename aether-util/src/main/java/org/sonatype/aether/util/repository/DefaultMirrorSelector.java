@@ -10,13 +10,19 @@ package org.sonatype.aether.util.repository;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.sonatype.aether.repository.MirrorSelector;
 import org.sonatype.aether.repository.RemoteRepository;
 
 /**
- * A simple mirror selector that selects mirrors based on repository identifiers.
+ * A simple mirror selector that selects mirrors based on repository identifiers. The mirror definitions are parsed when
+ * added and the selected mirror is remembered per repository identifier, URL and content type, i.e. the selection is
+ * cheap even for many mirrors and repeated lookups.
  * 
  * @author Benjamin Bentmann
  */
@@ -28,8 +34,27 @@ public class DefaultMirrorSelector
 
     private static final String EXTERNAL_WILDCARD = "external:*";
 
+    private static final int MAX_DECISIONS = 4096;
+
+    private static final Object NO_MIRROR = new Object();
+
     private final List<MirrorDef> mirrors = new ArrayList<MirrorDef>();
 
+    /**
+     * The mirrors keyed by their complete repository id specification, for the lookup of exact matches.
+     */
+    private final Map<String, List<MirrorDef>> mirrorsByIds = new HashMap<String, List<MirrorDef>>();
+
+    /**
+     * The mirrors whose repository id specification is a list or contains a wildcard, in order of definition.
+     */
+    private final List<MirrorDef> mirrorRules = new ArrayList<MirrorDef>();
+
+    /**
+     * The previously selected mirrors (or {@link #NO_MIRROR}), keyed by repository id, URL and content type.
+     */
+    private final ConcurrentMap<Key, Object> decisions = new ConcurrentHashMap<Key, Object>();
+
     /**
      * Adds the specified mirror to this selector.
      * 
@@ -49,7 +74,24 @@ public class DefaultMirrorSelector
     public DefaultMirrorSelector add( String id, String url, String type, boolean repositoryManager,
                                       String mirrorOfIds, String mirrorOfTypes )
     {
-        mirrors.add( new MirrorDef( id, url, type, repositoryManager, mirrorOfIds, mirrorOfTypes ) );
+        MirrorDef mirror = new MirrorDef( id, url, type, repositoryManager, mirrorOfIds, mirrorOfTypes );
+
+        mirrors.add( mirror );
+
+        List<MirrorDef> exact = mirrorsByIds.get( mirrorOfIds );
+        if ( exact == null )
+        {
+            exact = new ArrayList<MirrorDef>( 1 );
+            mirrorsByIds.put( mirrorOfIds, exact );
+        }
+        exact.add( mirror );
+
+        if ( mirror.ids.isRule() )
+        {
+            mirrorRules.add( mirror );
+        }
+
+        decisions.clear();
 
         return this;
     }
@@ -90,27 +132,52 @@ public class DefaultMirrorSelector
     {
         String repoId = repository.getId();
 
-        if ( repoId != null && !mirrors.isEmpty() )
+        if ( repoId == null || mirrors.isEmpty() )
         {
-            for ( MirrorDef mirror : mirrors )
+            return null;
+        }
+
+        Key key = new Key( repository );
+        Object decision = decisions.get( key );
+        if ( decision == null )
+        {
+            MirrorDef mirror = selectMirror( repository );
+            decision = ( mirror != null ) ? mirror : NO_MIRROR;
+            if ( decisions.size() >= MAX_DECISIONS )
             {
-                if ( repoId.equals( mirror.mirrorOfIds )
-                    && matchesType( repository.getContentType(), mirror.mirrorOfTypes ) )
-                {
-                    return mirror;
-                }
+                decisions.clear();
             }
+            decisions.put( key, decision );
+        }
+
+        return ( decision != NO_MIRROR ) ? (MirrorDef) decision : null;
+    }
 
-            for ( MirrorDef mirror : mirrors )
+    private MirrorDef selectMirror( RemoteRepository repository )
+    {
+        String repoId = repository.getId();
+        String repoType = repository.getContentType();
+
+        List<MirrorDef> exact = mirrorsByIds.get( repoId );
+        if ( exact != null )
+        {
+            for ( MirrorDef mirror : exact )
             {
-                if ( matchPattern( repository, mirror.mirrorOfIds )
-                    && matchesType( repository.getContentType(), mirror.mirrorOfTypes ) )
+                if ( mirror.types.matches( repoType, repository ) )
                 {
                     return mirror;
                 }
             }
         }
 
+        for ( MirrorDef mirror : mirrorRules )
+        {
+            if ( mirror.ids.matches( repoId, repository ) && mirror.types.matches( repoType, repository ) )
+            {
+                return mirror;
+            }
+        }
+
         return null;
     }
 
@@ -124,50 +191,7 @@ public class DefaultMirrorSelector
      */
     static boolean matchPattern( RemoteRepository repository, String pattern )
     {
-        boolean result = false;
-        String originalId = repository.getId();
-
-        // simple checks first to short circuit processing below.
-        if ( WILDCARD.equals( pattern ) || pattern.equals( originalId ) )
-        {
-            result = true;
-        }
-        else
-        {
-            // process the list
-            String[] repos = pattern.split( "," );
-            for ( String repo : repos )
-            {
-                // see if this is a negative match
-                if ( repo.length() > 1 && repo.startsWith( "!" ) )
-                {
-                    if ( repo.substring( 1 ).equals( originalId ) )
-                    {
-                        // explicitly exclude. Set result and stop processing.
-                        result = false;
-                        break;
-                    }
-                }
-                // check for exact match
-                else if ( repo.equals( originalId ) )
-                {
-                    result = true;
-                    break;
-                }
-                // check for external:*
-                else if ( EXTERNAL_WILDCARD.equals( repo ) && isExternalRepo( repository ) )
-                {
-                    result = true;
-                    // don't stop processing in case a future segment explicitly excludes this repo
-                }
-                else if ( WILDCARD.equals( repo ) )
-                {
-                    result = true;
-                    // don't stop processing in case a future segment explicitly excludes this repo
-                }
-            }
-        }
-        return result;
+        return new MirrorOfSpec( pattern, true ).matches( repository.getId(), repository );
     }
 
     /**
@@ -194,48 +218,7 @@ public class DefaultMirrorSelector
      */
     static boolean matchesType( String repoType, String mirrorType )
     {
-        boolean result = false;
-
-        // simple checks first to short circuit processing below.
-        if ( mirrorType == null || mirrorType.length() <= 0 || WILDCARD.equals( mirrorType ) )
-        {
-            result = true;
-        }
-        else if ( mirrorType.equals( repoType ) )
-        {
-            result = true;
-        }
-        else
-        {
-            // process the list
-            String[] layouts = mirrorType.split( "," );
-            for ( String layout : layouts )
-            {
-                // see if this is a negative match
-                if ( layout.length() > 1 && layout.startsWith( "!" ) )
-                {
-                    if ( layout.substring( 1 ).equals( repoType ) )
-                    {
-                        // explicitly exclude. Set result and stop processing.
-                        result = false;
-                        break;
-                    }
-                }
-                // check for exact match
-                else if ( layout.equals( repoType ) )
-                {
-                    result = true;
-                    break;
-                }
-                else if ( WILDCARD.equals( layout ) )
-                {
-                    result = true;
-                    // don't stop processing in case a future segment explicitly excludes this repo
-                }
-            }
-        }
-
-        return result;
+        return new MirrorOfSpec( mirrorType, false ).matches( repoType, null );
     }
 
     static class MirrorDef
@@ -253,6 +236,10 @@ public class DefaultMirrorSelector
 
         final String mirrorOfTypes;
 
+        final MirrorOfSpec ids;
+
+        final MirrorOfSpec types;
+
         public MirrorDef( String id, String url, String type, boolean repositoryManager, String mirrorOfIds,
                           String mirrorOfTypes )
         {
@@ -262,6 +249,151 @@ public class DefaultMirrorSelector
             this.repositoryManager = repositoryManager;
             this.mirrorOfIds = mirrorOfIds;
             this.mirrorOfTypes = mirrorOfTypes;
+            this.ids = new MirrorOfSpec( mirrorOfIds, true );
+            this.types = new MirrorOfSpec( mirrorOfTypes, false );
+        }
+
+    }
+
+    /**
+     * A parsed specification of the repository ids or content types that a mirror serves. Of the values listed
+     * explicitly, only the first inclusion or exclusion of a value counts, all other values are matched by the
+     * wildcards.
+     */
+    static final class MirrorOfSpec
+    {
+
+        private final String spec;
+
+        private final boolean all;
+
+        private final boolean wildcard;
+
+        private final boolean externalWildcard;
+
+        private final Map<String, Boolean> explicit = new HashMap<String, Boolean>();
+
+        private final int segments;
+
+        MirrorOfSpec( String spec, boolean ids )
+        {
+            this.spec = spec;
+
+            boolean wildcard = false;
+            boolean externalWildcard = false;
+            String[] tokens = ( spec != null ) ? spec.split( "," ) : new String[0];
+            for ( String token : tokens )
+            {
+                // see if this is a negative match
+                if ( token.length() > 1 && token.startsWith( "!" ) )
+                {
+                    include( token.substring( 1 ), Boolean.FALSE );
+                }
+                else
+                {
+                    include( token, Boolean.TRUE );
+                    if ( ids && EXTERNAL_WILDCARD.equals( token ) )
+                    {
+                        externalWildcard = true;
+                    }
+                    else if ( WILDCARD.equals( token ) )
+                    {
+                        wildcard = true;
+                    }
+                }
+            }
+
+            this.all = WILDCARD.equals( spec ) || ( !ids && ( spec == null || spec.length() <= 0 ) );
+            this.wildcard = wildcard;
+            this.externalWildcard = externalWildcard;
+            this.segments = tokens.length;
+        }
+
+        private void include( String value, Boolean included )
+        {
+            if ( !explicit.containsKey( value ) )
+            {
+                explicit.put( value, included );
+            }
+        }
+
+        /**
+         * Determines whether this specification can match values other than the specification string itself.
+         */
+        boolean isRule()
+        {
+            return all || wildcard || externalWildcard || segments > 1;
+        }
+
+        boolean matches( String value, RemoteRepository repository )
+        {
+            if ( all || ( spec != null && spec.equals( value ) ) )
+            {
+                return true;
+            }
+            Boolean included = explicit.get( value );
+            if ( included != null )
+            {
+                return included.booleanValue();
+            }
+            return wildcard || ( externalWildcard && isExternalRepo( repository ) );
+        }
+
+    }
+
+    static final class Key
+    {
+
+        private final String id;
+
+        private final String url;
+
+        private final String type;
+
+        private final int hashCode;
+
+        Key( RemoteRepository repository )
+        {
+            id = repository.getId();
+            url = repository.getUrl();
+            type = repository.getContentType();
+
+            int hash = 17;
+            hash = hash * 31 + hash( id );
+            hash = hash * 31 + hash( url );
+            hash = hash * 31 + hash( type );
+            hashCode = hash;
+        }
+
+        private static int hash( Object obj )
+        {
+            return ( obj != null ) ? obj.hashCode() : 0;
+        }
+
+        private static boolean eq( Object s1, Object s2 )
+        {
+            return ( s1 != null ) ? s1.equals( s2 ) : s2 == null;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key that = (Key) obj;
+            return eq( id, that.id ) && eq( url, that.url ) && eq( type, that.type );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
         }
 
     }
@@ -72,24 +72,51 @@ final class GenericVersion
     }
 
     /**
-     * Represents a numeric item in the version item list.
+     * Represents a numeric item in the version item list. Values that fit into a {@code long} are kept as such, only
+     * larger values are kept as {@link BigInteger}.
      */
     private static class IntegerItem
         implements Item
     {
 
-        private final BigInteger value;
+        /**
+         * The max number of digits that always fit into a {@code long}.
+         */
+        private static final int MAX_LONG_DIGITS = 18;
+
+        private final long value;
+
+        private final BigInteger bigValue;
 
         public static final IntegerItem ZERO = new IntegerItem();
 
         private IntegerItem()
         {
-            this.value = BigInteger.ZERO;
+            this.value = 0;
+            this.bigValue = null;
         }
 
         public IntegerItem( String str )
         {
-            this.value = new BigInteger( str );
+            if ( str.length() <= MAX_LONG_DIGITS )
+            {
+                this.value = Long.parseLong( str );
+                this.bigValue = null;
+            }
+            else
+            {
+                BigInteger big = new BigInteger( str );
+                if ( big.bitLength() < 64 )
+                {
+                    this.value = big.longValue();
+                    this.bigValue = null;
+                }
+                else
+                {
+                    this.value = 0;
+                    this.bigValue = big;
+                }
+            }
         }
 
         public int getType()
@@ -99,20 +126,20 @@ final class GenericVersion
 
         public boolean isNull()
         {
-            return BigInteger.ZERO.equals( value );
+            return bigValue == null && value == 0;
         }
 
         public int compareTo( Item item )
         {
             if ( item == null )
             {
-                return BigInteger.ZERO.equals( value ) ? 0 : 1; // 1.0 == 1, 1.1 > 1
+                return isNull() ? 0 : 1; // 1.0 == 1, 1.1 > 1
             }
 
             switch ( item.getType() )
             {
                 case INTEGER_ITEM:
-                    return value.compareTo( ( (IntegerItem) item ).value );
+                    return compareTo( (IntegerItem) item );
 
                 case STRING_ITEM:
                     return 1; // 1.1 > 1-sp
@@ -125,9 +152,27 @@ final class GenericVersion
             }
         }
 
+        private int compareTo( IntegerItem that )
+        {
+            if ( bigValue == null && that.bigValue == null )
+            {
+                return ( value < that.value ) ? -1 : ( ( value == that.value ) ? 0 : 1 );
+            }
+            // values are never negative, a big value is hence larger than any other value
+            if ( bigValue == null )
+            {
+                return -1;
+            }
+            if ( that.bigValue == null )
+            {
+                return 1;
+            }
+            return bigValue.compareTo( that.bigValue );
+        }
+
         public String toString()
         {
-            return value.toString();
+            return ( bigValue != null ) ? bigValue.toString() : Long.toString( value );
         }
     }
 
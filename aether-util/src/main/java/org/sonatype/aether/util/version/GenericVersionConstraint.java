@@ -9,6 +9,7 @@ package org.sonatype.aether.util.version;
  *******************************************************************************/
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
 import org.sonatype.aether.version.Version;
@@ -46,7 +47,7 @@ final class GenericVersionConstraint
 
     public Collection<VersionRange> getRanges()
     {
-        return ranges;
+        return Collections.unmodifiableCollection( ranges );
     }
 
     /**
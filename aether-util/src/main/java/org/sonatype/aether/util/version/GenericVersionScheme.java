@@ -8,6 +8,9 @@ package org.sonatype.aether.util.version;
  *   http://www.eclipse.org/legal/epl-v10.html
  *******************************************************************************/
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.sonatype.aether.version.InvalidVersionSpecificationException;
 import org.sonatype.aether.version.Version;
 import org.sonatype.aether.version.VersionConstraint;
@@ -15,7 +18,8 @@ import org.sonatype.aether.version.VersionRange;
 import org.sonatype.aether.version.VersionScheme;
 
 /**
- * A version scheme using a generic version syntax.
+ * A version scheme using a generic version syntax. Parsed versions, version ranges and version constraints are immutable
+ * and cached in a bounded JVM-wide cache, i.e. parsing the same string again yields the same object.
  * 
  * @author Benjamin Bentmann
  * @author Alin Dreghiciu
@@ -24,20 +28,76 @@ public class GenericVersionScheme
     implements VersionScheme
 {
 
+    private static final int MAX_CACHED_VERSIONS = 8192;
+
+    private static final int MAX_CACHED_RANGES = 2048;
+
+    private static final ConcurrentMap<String, Version> VERSIONS = new ConcurrentHashMap<String, Version>( 1024 );
+
+    private static final ConcurrentMap<String, VersionRange> RANGES = new ConcurrentHashMap<String, VersionRange>( 256 );
+
+    private static final ConcurrentMap<String, VersionConstraint> CONSTRAINTS =
+        new ConcurrentHashMap<String, VersionConstraint>( 256 );
+
     public Version parseVersion( final String version )
         throws InvalidVersionSpecificationException
     {
-        return new GenericVersion( version );
+        if ( version == null )
+        {
+            return new GenericVersion( version );
+        }
+        Version result = VERSIONS.get( version );
+        if ( result == null )
+        {
+            result = cache( VERSIONS, version, new GenericVersion( version ), MAX_CACHED_VERSIONS );
+        }
+        return result;
     }
 
     public VersionRange parseVersionRange( final String range )
         throws InvalidVersionSpecificationException
     {
-        return new GenericVersionRange( range );
+        if ( range == null )
+        {
+            return new GenericVersionRange( range );
+        }
+        VersionRange result = RANGES.get( range );
+        if ( result == null )
+        {
+            result = cache( RANGES, range, new GenericVersionRange( range ), MAX_CACHED_RANGES );
+        }
+        return result;
     }
 
     public VersionConstraint parseVersionConstraint( final String constraint )
         throws InvalidVersionSpecificationException
+    {
+        // subclasses may parse the versions and ranges of a constraint differently
+        if ( constraint == null || !GenericVersionScheme.class.equals( getClass() ) )
+        {
+            return newVersionConstraint( constraint );
+        }
+        VersionConstraint result = CONSTRAINTS.get( constraint );
+        if ( result == null )
+        {
+            result = cache( CONSTRAINTS, constraint, newVersionConstraint( constraint ), MAX_CACHED_RANGES );
+        }
+        return result;
+    }
+
+    private static <T> T cache( ConcurrentMap<String, T> cache, String key, T value, int maxSize )
+    {
+        if ( cache.size() >= maxSize )
+        {
+            // cheaper than tracking the usage of the entries, the working set is repopulated quickly
+            cache.clear();
+        }
+        T existing = cache.putIfAbsent( key, value );
+        return ( existing != null ) ? existing : value;
+    }
+
+    private VersionConstraint newVersionConstraint( final String constraint )
+        throws InvalidVersionSpecificationException
     {
         GenericVersionConstraint result = new GenericVersionConstraint();
 
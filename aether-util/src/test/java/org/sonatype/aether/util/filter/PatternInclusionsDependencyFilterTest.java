@@ -10,6 +10,7 @@ package org.sonatype.aether.util.filter;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -145,6 +146,38 @@ public class PatternInclusionsDependencyFilterTest
         assertFalse( prefix + "(1.0.2,1.0.3)", acceptVersionRange( node, prefix + "(1.0.2,1.0.3)", prefix + "(1.0.3,)" ) );
     }
 
+    @Test
+    public void acceptTestManyPatterns()
+    {
+        List<String> patterns = new ArrayList<String>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            patterns.add( "com.example.group" + i + ":artifact" + i );
+            patterns.add( "org.example" + i + ".*:*:war" );
+        }
+        patterns.add( "com.example.test:testArtifact:jar:[2,)" );
+        patterns.add( "*:*:*:[1.0,1.0.3)" );
+        patterns.add( "com.example.test:testArtifact:jar:[1,2" );
+        PatternInclusionsDependencyFilter filter =
+            new PatternInclusionsDependencyFilter( new GenericVersionScheme(), patterns );
+        List<DependencyNode> parents = new LinkedList<DependencyNode>();
+
+        NodeBuilder builder = new NodeBuilder();
+        builder.groupId( "com.example.test" ).artifactId( "testArtifact" ).ext( "jar" ).version( "1.0.3" );
+        assertFalse( filter.accept( builder.build(), parents ) );
+
+        builder.groupId( "com.example.group42" ).artifactId( "artifact42" );
+        assertTrue( filter.accept( builder.build(), parents ) );
+        builder.artifactId( "artifact43" );
+        assertFalse( filter.accept( builder.build(), parents ) );
+
+        builder.groupId( "org.example7.sub" ).artifactId( "web" ).ext( "war" );
+        assertTrue( filter.accept( builder.build(), parents ) );
+
+        builder.groupId( "net.example" ).artifactId( "lib" ).ext( "jar" ).version( "1.0.2" );
+        assertTrue( filter.accept( builder.build(), parents ) );
+    }
+
     public boolean accept( DependencyNode node, String expression )
     {
         return new PatternInclusionsDependencyFilter( expression ).accept( node, new LinkedList<DependencyNode>() );
@@ -0,0 +1,124 @@
+package org.sonatype.aether.util.repository;
+
+/*******************************************************************************
+ * Copyright (c) 2010-2011 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+
+public class DefaultMirrorSelectorTest
+{
+
+    private RemoteRepository newRepo( String id, String url )
+    {
+        return new RemoteRepository( id, "default", url );
+    }
+
+    private String getMirrorId( DefaultMirrorSelector selector, RemoteRepository repository )
+    {
+        RemoteRepository mirror = selector.getMirror( repository );
+        return ( mirror != null ) ? mirror.getId() : null;
+    }
+
+    @Test
+    public void testMatchPattern()
+    {
+        RemoteRepository central = newRepo( "central", "http://repo1.maven.org/maven2" );
+        RemoteRepository local = newRepo( "local", "file:///tmp/repo" );
+
+        assertTrue( DefaultMirrorSelector.matchPattern( central, "*" ) );
+        assertTrue( DefaultMirrorSelector.matchPattern( central, "central" ) );
+        assertFalse( DefaultMirrorSelector.matchPattern( central, "other" ) );
+        assertTrue( DefaultMirrorSelector.matchPattern( central, "other,central" ) );
+        assertFalse( DefaultMirrorSelector.matchPattern( central, "*,!central" ) );
+        assertFalse( DefaultMirrorSelector.matchPattern( central, "!central,*" ) );
+        assertTrue( DefaultMirrorSelector.matchPattern( central, "central,!central" ) );
+        assertTrue( DefaultMirrorSelector.matchPattern( central, "external:*" ) );
+        assertFalse( DefaultMirrorSelector.matchPattern( local, "external:*" ) );
+        assertTrue( DefaultMirrorSelector.matchPattern( local, "external:*,local" ) );
+        assertFalse( DefaultMirrorSelector.matchPattern( central, "external:*,!central" ) );
+        assertFalse( DefaultMirrorSelector.matchPattern( central, "!" ) );
+    }
+
+    @Test
+    public void testMatchesType()
+    {
+        assertTrue( DefaultMirrorSelector.matchesType( "default", null ) );
+        assertTrue( DefaultMirrorSelector.matchesType( "default", "" ) );
+        assertTrue( DefaultMirrorSelector.matchesType( "default", "*" ) );
+        assertTrue( DefaultMirrorSelector.matchesType( "default", "default" ) );
+        assertFalse( DefaultMirrorSelector.matchesType( "default", "p2" ) );
+        assertTrue( DefaultMirrorSelector.matchesType( "default", "p2,default" ) );
+        assertFalse( DefaultMirrorSelector.matchesType( "p2", "*,!p2" ) );
+        assertTrue( DefaultMirrorSelector.matchesType( "default", "*,!p2" ) );
+        assertTrue( DefaultMirrorSelector.matchesType( "external:*", "external:*" ) );
+        assertFalse( DefaultMirrorSelector.matchesType( "default", "external:*" ) );
+    }
+
+    @Test
+    public void testExactIdTakesPrecedenceOverWildcards()
+    {
+        DefaultMirrorSelector selector = new DefaultMirrorSelector();
+        selector.add( "all", "http://mirror/all", "default", false, "*", null );
+        for ( int i = 0; i < 50; i++ )
+        {
+            selector.add( "mirror" + i, "http://mirror/" + i, "default", false, "repo" + i, null );
+        }
+
+        assertEquals( "mirror42", getMirrorId( selector, newRepo( "repo42", "http://host/42" ) ) );
+        assertEquals( "all", getMirrorId( selector, newRepo( "other", "http://host/other" ) ) );
+    }
+
+    @Test
+    public void testRulesAreAppliedInOrder()
+    {
+        DefaultMirrorSelector selector = new DefaultMirrorSelector();
+        selector.add( "external", "http://mirror/ext", "default", false, "external:*,!snapshots", "*,!p2" );
+        selector.add( "p2", "http://mirror/p2", "p2", false, "*", "p2" );
+        selector.add( "list", "http://mirror/list", "default", false, "snapshots,local", null );
+
+        assertEquals( "external", getMirrorId( selector, newRepo( "central", "http://host/central" ) ) );
+        assertEquals( "list", getMirrorId( selector, newRepo( "snapshots", "http://host/snapshots" ) ) );
+        assertEquals( "list", getMirrorId( selector, newRepo( "local", "file:///tmp/local" ) ) );
+        assertEquals( null, getMirrorId( selector, newRepo( "other", "http://localhost/other" ) ) );
+        assertEquals( "p2", getMirrorId( selector, new RemoteRepository( "eclipse", "p2", "http://host/p2" ) ) );
+    }
+
+    @Test
+    public void testDecisionsDependOnUrlAndType()
+    {
+        DefaultMirrorSelector selector = new DefaultMirrorSelector();
+        selector.add( "external", "http://mirror/ext", "default", false, "external:*", "default" );
+
+        assertEquals( "external", getMirrorId( selector, newRepo( "repo", "http://host/repo" ) ) );
+        assertEquals( null, getMirrorId( selector, newRepo( "repo", "http://localhost/repo" ) ) );
+        assertEquals( null, getMirrorId( selector, new RemoteRepository( "repo", "p2", "http://host/repo" ) ) );
+        assertEquals( "external", getMirrorId( selector, newRepo( "repo", "http://host/repo" ) ) );
+    }
+
+    @Test
+    public void testAddingMirrorInvalidatesDecisions()
+    {
+        DefaultMirrorSelector selector = new DefaultMirrorSelector();
+        selector.add( "other", "http://mirror/other", "default", false, "other", null );
+
+        RemoteRepository central = newRepo( "central", "http://repo1.maven.org/maven2" );
+        assertNull( selector.getMirror( central ) );
+
+        selector.add( "all", "http://mirror/all", "default", false, "*", null );
+        RemoteRepository mirror = selector.getMirror( central );
+        assertEquals( "all", mirror.getId() );
+        assertEquals( "http://mirror/all", mirror.getUrl() );
+        assertEquals( Arrays.asList( central ), mirror.getMirroredRepositories() );
+    }
+
+}
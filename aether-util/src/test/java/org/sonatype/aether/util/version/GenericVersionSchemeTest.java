@@ -92,6 +92,24 @@ public class GenericVersionSchemeTest
         assertContains( String.format( "%s: %%s should be contained\n", c.toString() ), c, true, versions );
     }
     
+    @Test
+    public void testParsedVersionsAreShared()
+        throws InvalidVersionSpecificationException
+    {
+        String version = "1.2.3-SNAPSHOT";
+        assertSame( scheme.parseVersion( version ), new GenericVersionScheme().parseVersion( version ) );
+        assertSame( scheme.parseVersionRange( "[1,2)" ), scheme.parseVersionRange( "[1,2)" ) );
+        assertSame( scheme.parseVersionConstraint( "[1,2),(3,)" ), scheme.parseVersionConstraint( "[1,2),(3,)" ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void testSharedConstraintIsUnmodifiable()
+        throws InvalidVersionSpecificationException
+    {
+        VersionConstraint c = scheme.parseVersionConstraint( "[1,2)" );
+        c.getRanges().clear();
+    }
+
     @Test
     public void testInvalid()
     {
@@ -9,6 +9,7 @@ package org.sonatype.aether.util.version;
  *******************************************************************************/
 
 import java.util.Locale;
+import java.util.Random;
 
 import org.sonatype.aether.util.version.GenericVersion;
 import org.sonatype.aether.version.Version;
@@ -171,6 +172,65 @@ public class GenericVersionTest
         checkVersionsOrder( "1.0-20101206.111434-2", "1.0-20101206.111434-10" );
     }
 
+    public void testLargeNumbers()
+    {
+        checkVersionsOrder( new String[] { "999999999999999999", "1000000000000000000", "9223372036854775807",
+            "9223372036854775808", "18446744073709551616", "100000000000000000000" } );
+        checkVersionsOrder( new String[] { "1.9223372036854775807", "1.9223372036854775807-1",
+            "1.9223372036854775808", "1.9223372036854775808-sp" } );
+        checkVersionsEqual( "1.00000000000000000000000000", "1" );
+        checkVersionsEqual( "1.009223372036854775808", "1.9223372036854775808" );
+    }
+
+    public void testOrderingMatchesBigIntegerImplementation()
+    {
+        String[] parts =
+            { "0", "1", "2", "10", "007", "123456789", "999999999999999999", "1000000000000000000",
+                "9223372036854775806", "9223372036854775807", "9223372036854775808", "18446744073709551615",
+                "18446744073709551616", "123456789012345678901234567890", "a", "alpha", "b", "m", "rc", "cr",
+                "snapshot", "ga", "final", "sp", "xyz", "" };
+        String[] separators = { ".", "-", "" };
+
+        Random random = new Random( 42 );
+        String[] versions = new String[500];
+        for ( int i = 0; i < versions.length; i++ )
+        {
+            StringBuilder buffer = new StringBuilder();
+            for ( int j = random.nextInt( 5 ); j >= 0; j-- )
+            {
+                buffer.append( parts[random.nextInt( parts.length )] );
+                if ( j > 0 )
+                {
+                    buffer.append( separators[random.nextInt( separators.length )] );
+                }
+            }
+            versions[i] = buffer.toString();
+        }
+
+        GenericVersion[] actual = new GenericVersion[versions.length];
+        BigIntegerGenericVersion[] expected = new BigIntegerGenericVersion[versions.length];
+        for ( int i = 0; i < versions.length; i++ )
+        {
+            actual[i] = new GenericVersion( versions[i] );
+            expected[i] = new BigIntegerGenericVersion( versions[i] );
+        }
+
+        for ( int i = 0; i < versions.length; i++ )
+        {
+            for ( int j = 0; j < versions.length; j++ )
+            {
+                String msg = versions[i] + " vs " + versions[j];
+                assertEquals( msg, Integer.signum( expected[i].compareTo( expected[j] ) ),
+                              Integer.signum( actual[i].compareTo( actual[j] ) ) );
+                assertEquals( msg, expected[i].equals( expected[j] ), actual[i].equals( actual[j] ) );
+                if ( actual[i].equals( actual[j] ) )
+                {
+                    assertEquals( msg, actual[i].hashCode(), actual[j].hashCode() );
+                }
+            }
+        }
+    }
+
     public void testLocaleIndependent()
     {
         Locale orig = Locale.getDefault();